@@ -48,6 +48,19 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    testOptions {
+        unitTests {
+            // android.util.Log and friends are no-ops in JVM tests instead of throwing
+            isReturnDefaultValues = true
+            // Robolectric tests run against the merged manifest and resources
+            isIncludeAndroidResources = true
+            // Benchmarks are skipped unless run with -Psnapnews.benchmarks=true
+            all {
+                it.systemProperty("snapnews.benchmarks", project.findProperty("snapnews.benchmarks") ?: "false")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -80,6 +93,8 @@ dependencies {
     implementation("androidx.webkit:webkit:1.7.0")
 
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.robolectric:robolectric:4.14.1")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
@@ -7,8 +7,6 @@ import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -24,24 +22,18 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.RoundedCorners;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.snapnews.R;
-import com.example.snapnews.database.ArticleDao;
-import com.example.snapnews.database.NewsDatabaseHelper;
 import com.example.snapnews.databinding.ActivityDetailBinding;
 import com.example.snapnews.models.Article;
 import com.example.snapnews.models.Source;
+import com.example.snapnews.repository.ArticleRepository;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class DetailActivity extends AppCompatActivity {
     private static final String TAG = "DetailActivity";
     private ActivityDetailBinding binding;
     private Article article;
 
-    private ArticleDao articleDao;
-    private NewsDatabaseHelper dbHelper;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private ArticleRepository repository;
     private boolean isDestroyed = false;
 
     private boolean isLoadingFullArticle = false;
@@ -65,14 +57,13 @@ public class DetailActivity extends AppCompatActivity {
             setContentView(binding.getRoot());
 
             // Initialize components
-            mainHandler = new Handler(Looper.getMainLooper());
-            initializeDatabase();
+            repository = ArticleRepository.getInstance(this);
             getArticleFromIntent();
             setupUI();
             setupButtons();
 
-            // Load favorite status from database
             loadFavoriteStatus();
+            loadStoredContent();
 
             Log.d(TAG, "DetailActivity created successfully");
         } catch (Exception e) {
@@ -81,17 +72,6 @@ public class DetailActivity extends AppCompatActivity {
         }
     }
 
-    private void initializeDatabase() {
-        try {
-            dbHelper = NewsDatabaseHelper.getInstance(this);
-            articleDao = new ArticleDao(dbHelper);
-            executorService = Executors.newSingleThreadExecutor();
-            Log.d(TAG, "Database initialized successfully");
-        } catch (Exception e) {
-            Log.e(TAG, "Error initializing database: " + e.getMessage(), e);
-        }
-    }
-
     private void getArticleFromIntent() {
         try {
             Intent intent = getIntent();
@@ -121,26 +101,50 @@ public class DetailActivity extends AppCompatActivity {
         }
     }
 
+    // From the in-memory favorite set - no database read
     private void loadFavoriteStatus() {
         if (article == null || article.getUrl() == null) return;
 
-        executorService.execute(() -> {
-            try {
-                Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-
-                mainHandler.post(() -> {
-                    if (existingArticle != null) {
-                        article.setFavorite(existingArticle.isFavorite());
-                        article.setId(existingArticle.getId());
-                        Log.d(TAG, "Loaded favorite status: " + article.isFavorite());
-                    } else {
-                        article.setFavorite(false);
-                        Log.d(TAG, "Article not in database, default favorite: false");
-                    }
-                    invalidateOptionsMenu();
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading favorite status", e);
+        repository.whenFavoritesLoaded().whenComplete((loaded, error) -> {
+            if (isDestroyed) {
+                return;
+            }
+            if (error != null) {
+                // Keep the flag the article was opened with
+                Log.e(TAG, "Error loading favorite status", error);
+                return;
+            }
+
+            article.setFavorite(repository.isFavorite(article.getUrl()));
+            Log.d(TAG, "Loaded favorite status: " + article.isFavorite());
+            invalidateOptionsMenu();
+        });
+    }
+
+    // List rows are loaded without the body, so take it from the full stored row
+    private void loadStoredContent() {
+        if (article == null || article.getUrl() == null
+                || (article.getContent() != null && !article.getContent().isEmpty())) {
+            return;
+        }
+
+        repository.getArticle(article.getUrl()).whenComplete((existingArticle, error) -> {
+            if (isDestroyed) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "Error loading stored content", error);
+                return;
+            }
+            if (existingArticle == null || existingArticle.getContent() == null) {
+                return;
+            }
+
+            article.setId(existingArticle.getId());
+            article.setContent(existingArticle.getContent());
+            setupReadingTime();
+            if ("summary".equals(currentMode)) {
+                loadWebViewContent();
             }
         });
     }
@@ -670,33 +674,27 @@ public class DetailActivity extends AppCompatActivity {
 
         Log.d(TAG, "Toggling favorite for article: " + article.getTitle());
 
-        executorService.execute(() -> {
-            try {
-                boolean newFavoriteStatus = !article.isFavorite();
-                article.setFavorite(newFavoriteStatus);
-
-                Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-
-                if (existingArticle != null) {
-                    existingArticle.setFavorite(newFavoriteStatus);
-                    articleDao.updateArticle(existingArticle);
-                } else {
-                    articleDao.insertArticle(article);
-                }
+        boolean newFavoriteStatus = !article.isFavorite();
+        article.setFavorite(newFavoriteStatus);
+        invalidateOptionsMenu();
 
-                mainHandler.post(() -> {
-                    invalidateOptionsMenu();
-                    String message = newFavoriteStatus ?
-                            "Added to favorites" : "Removed from favorites";
-                    Toast.makeText(DetailActivity.this, message, Toast.LENGTH_SHORT).show();
-                });
+        repository.setFavorite(article, newFavoriteStatus).whenComplete((state, error) -> {
+            if (isDestroyed) {
+                return;
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error toggling favorite", e);
-                mainHandler.post(() -> {
-                    Toast.makeText(DetailActivity.this, "Error updating favorite", Toast.LENGTH_SHORT).show();
-                });
+            if (error != null) {
+                Log.e(TAG, "Error toggling favorite", error);
+                Toast.makeText(DetailActivity.this, "Error updating favorite", Toast.LENGTH_SHORT).show();
+                // Show what is actually stored
+                loadFavoriteStatus();
+                return;
             }
+
+            article.setId(state.getId());
+            String message = state.isFavorite() ?
+                    "Added to favorites" : "Removed from favorites";
+            Toast.makeText(DetailActivity.this, message, Toast.LENGTH_SHORT).show();
         });
     }
 
@@ -844,16 +842,6 @@ public class DetailActivity extends AppCompatActivity {
                 binding.webView.destroy();
             }
 
-            // Cleanup executor service
-            if (executorService != null && !executorService.isShutdown()) {
-                executorService.shutdown();
-            }
-
-            // Clear handlers
-            if (mainHandler != null) {
-                mainHandler.removeCallbacksAndMessages(null);
-            }
-
             // Clear binding
             binding = null;
 
@@ -9,14 +9,14 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
-import androidx.fragment.app.Fragment;
 
 import com.example.snapnews.activity.DetailActivity;
 import com.example.snapnews.models.Article;
-import com.example.snapnews.fragment.FavoritesFragment;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.example.snapnews.R;
+import com.example.snapnews.database.CacheRetentionManager;
 import com.example.snapnews.databinding.ActivityMainBinding;
+import com.example.snapnews.repository.ArticleRepository;
 import com.example.snapnews.utils.ApiKeyManager;
 import com.example.snapnews.utils.ThemeManager;
 
@@ -38,6 +38,12 @@ public class MainActivity extends AppCompatActivity {
 
         setupToolbar();
         setupBottomNavigation();
+
+        // Trim the offline cache in the background if the last pass is old enough
+        CacheRetentionManager.getInstance(this).scheduleIfDue();
+
+        // Creating the repository starts reading favorites into memory before the first list binds
+        ArticleRepository.getInstance(this);
     }
 
     private void validateApiKeyConfiguration() {
@@ -125,49 +131,12 @@ public class MainActivity extends AppCompatActivity {
         startActivity(intent);
     }
 
-    public void onFavoriteChanged(Article article) {
-        android.util.Log.d("MainActivity", "Favorite changed: " + article.getTitle() +
-                " -> " + article.isFavorite());
-
-        // Refresh favorites fragment jika sedang aktif atau akan dibuka
-        refreshFavoritesFragment();
-    }
-
-    private void refreshFavoritesFragment() {
-        try {
-            // Find current fragment
-            NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_activity_main);
-            Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.nav_host_fragment_activity_main);
-
-            if (currentFragment != null) {
-                // Check if current fragment container has FavoritesFragment
-                Fragment navHostFragment = currentFragment.getChildFragmentManager().getFragments().get(0);
-                if (navHostFragment instanceof FavoritesFragment) {
-                    // Refresh favorites fragment
-                    ((FavoritesFragment) navHostFragment).refreshFavorites();
-                    android.util.Log.d("MainActivity", "Refreshed FavoritesFragment");
-                }
-            }
-        } catch (Exception e) {
-            android.util.Log.e("MainActivity", "Error refreshing favorites fragment", e);
-        }
-    }
-
-    public void refreshFavoritesOnNavigation() {
-        // Delay sedikit untuk memastikan fragment sudah loaded
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            refreshFavoritesFragment();
-        }, 100);
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
         if (themeManager != null) {
             themeManager.initializeTheme();
         }
-
-        refreshFavoritesOnNavigation();
     }
 
     @Override
@@ -3,17 +3,32 @@ package com.example.snapnews.activity;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.format.Formatter;
+import android.util.Log;
 import android.view.MenuItem;
+import android.view.View;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.snapnews.BuildConfig;
 import com.example.snapnews.R;
+import com.example.snapnews.database.CacheRetentionManager;
+import com.example.snapnews.database.DaoStats;
 import com.example.snapnews.databinding.ActivitySettingsBinding;
+import com.example.snapnews.network.HttpBodyLog;
+import com.example.snapnews.network.NetworkStats;
 import com.example.snapnews.utils.ThemeManager;
+import java.io.File;
+import java.util.concurrent.Callable;
 
 public class SettingsActivity extends AppCompatActivity {
+    private static final String TAG = "SettingsActivity";
+    private static final long[] SLOW_QUERY_THRESHOLDS_MILLIS = {4, 16, 32, 100, 250};
+
     private ActivitySettingsBinding binding;
     private ThemeManager themeManager;
+    private CacheRetentionManager cacheRetentionManager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -26,6 +41,8 @@ public class SettingsActivity extends AppCompatActivity {
 
         setupToolbar();
         setupThemeSettings();
+        setupCacheSettings();
+        setupDeveloperSettings();
     }
 
     private void setupToolbar() {
@@ -65,6 +82,178 @@ public class SettingsActivity extends AppCompatActivity {
         binding.textThemeDescription.setText(description);
     }
 
+    private void setupCacheSettings() {
+        cacheRetentionManager = CacheRetentionManager.getInstance(this);
+        updateCacheDisplay();
+
+        binding.cacheCard.setOnClickListener(v -> runCacheCleanup());
+    }
+
+    private void updateCacheDisplay() {
+        if (cacheRetentionManager.getLastRunTime() == 0) {
+            binding.textCacheReclaimed.setText(R.string.cache_never_cleaned);
+            return;
+        }
+
+        binding.textCacheReclaimed.setText(getString(R.string.cache_last_cleanup,
+                cacheRetentionManager.getLastRowsDeleted(),
+                Formatter.formatShortFileSize(this, cacheRetentionManager.getLastBytesReclaimed()),
+                Formatter.formatShortFileSize(this, cacheRetentionManager.getTotalBytesReclaimed())));
+    }
+
+    private void runCacheCleanup() {
+        binding.cacheCard.setEnabled(false);
+        binding.textCacheAction.setText(R.string.cleaning_up);
+
+        cacheRetentionManager.runNow(result -> {
+            if (binding == null) {
+                return;
+            }
+
+            binding.cacheCard.setEnabled(true);
+            binding.textCacheAction.setText(R.string.clean_up_now);
+
+            if (result == null) {
+                Toast.makeText(this, R.string.cache_cleanup_busy,
+                        Toast.LENGTH_SHORT).show();
+            }
+            updateCacheDisplay();
+        });
+    }
+
+    // Database and network timings are debugging aids, so their cards only exist in debug builds
+    private void setupDeveloperSettings() {
+        if (!BuildConfig.DEBUG) {
+            return;
+        }
+
+        binding.textDeveloperHeader.setVisibility(View.VISIBLE);
+        binding.daoStatsCard.setVisibility(View.VISIBLE);
+        updateDaoStatsDisplay();
+
+        binding.daoStatsCard.setOnClickListener(v -> showDaoStatsDialog());
+
+        binding.networkStatsCard.setVisibility(View.VISIBLE);
+        updateNetworkStatsDisplay();
+        binding.networkStatsCard.setOnClickListener(v -> showNetworkStatsDialog());
+    }
+
+    private void updateDaoStatsDisplay() {
+        binding.textDaoStatsSummary.setText(getString(R.string.database_timings_summary,
+                DaoStats.getSlowQueryThresholdMillis(), DaoStats.getSlowQueryCount(),
+                DaoStats.getUpsertRowsWritten(), DaoStats.getUpsertRowsSeen()));
+    }
+
+    private void showDaoStatsDialog() {
+        String[] options = {
+                getString(R.string.export_timings),
+                getString(R.string.slow_query_threshold),
+                getString(R.string.reset_timings)
+        };
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.database_timings)
+                .setItems(options, (dialog, which) -> {
+                    switch (which) {
+                        case 0:
+                            exportDaoStats();
+                            break;
+                        case 1:
+                            showSlowQueryThresholdDialog();
+                            break;
+                        default:
+                            DaoStats.reset();
+                            updateDaoStatsDisplay();
+                            break;
+                    }
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private void showSlowQueryThresholdDialog() {
+        String[] labels = new String[SLOW_QUERY_THRESHOLDS_MILLIS.length];
+        int selected = -1;
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = SLOW_QUERY_THRESHOLDS_MILLIS[i] + " ms";
+            if (SLOW_QUERY_THRESHOLDS_MILLIS[i] == DaoStats.getSlowQueryThresholdMillis()) {
+                selected = i;
+            }
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.slow_query_threshold)
+                .setSingleChoiceItems(labels, selected, (dialog, which) -> {
+                    DaoStats.setSlowQueryThresholdMillis(SLOW_QUERY_THRESHOLDS_MILLIS[which]);
+                    updateDaoStatsDisplay();
+                    dialog.dismiss();
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private void exportDaoStats() {
+        exportTimings(() -> DaoStats.dumpToFile(this), "DaoStatsExport");
+    }
+
+    private void updateNetworkStatsDisplay() {
+        binding.textNetworkStatsSummary.setText(getString(R.string.network_timings_summary,
+                NetworkStats.getCallCount(), NetworkStats.getCacheHitCount(),
+                getString(HttpBodyLog.isEnabled() ? R.string.http_body_log_on : R.string.http_body_log_off)));
+    }
+
+    private void showNetworkStatsDialog() {
+        String[] options = {
+                getString(R.string.export_timings),
+                getString(HttpBodyLog.isEnabled() ? R.string.stop_http_body_log : R.string.start_http_body_log),
+                getString(R.string.reset_timings)
+        };
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.network_timings)
+                .setItems(options, (dialog, which) -> {
+                    switch (which) {
+                        case 0:
+                            exportTimings(() -> NetworkStats.dumpToFile(this), "NetworkStatsExport");
+                            break;
+                        case 1:
+                            HttpBodyLog.setEnabled(!HttpBodyLog.isEnabled());
+                            updateNetworkStatsDisplay();
+                            break;
+                        default:
+                            NetworkStats.reset();
+                            HttpBodyLog.clear();
+                            updateNetworkStatsDisplay();
+                            break;
+                    }
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private void exportTimings(Callable<File> dump, String threadName) {
+        // File IO stays off the main thread
+        new Thread(() -> {
+            File file = null;
+            try {
+                file = dump.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Error writing timings", e);
+            }
+
+            final File written = file;
+            runOnUiThread(() -> {
+                if (binding == null) {
+                    return;
+                }
+                String message = written != null
+                        ? getString(R.string.timings_exported, written.getAbsolutePath())
+                        : getString(R.string.timings_export_failed);
+                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+            });
+        }, threadName).start();
+    }
+
     private void showThemeSelectionDialog() {
         String[] themeOptions = ThemeManager.getThemeNames();
         int currentSelection = themeManager.getCurrentThemeMode();
@@ -80,9 +269,9 @@ public class SettingsActivity extends AppCompatActivity {
 
                         // Show a toast to indicate theme change
                         String themeName = ThemeManager.getThemeNames()[which];
-                        android.widget.Toast.makeText(this,
+                        Toast.makeText(this,
                                 "Theme changed to " + themeName,
-                                android.widget.Toast.LENGTH_SHORT).show();
+                                Toast.LENGTH_SHORT).show();
 
                         // Delay the recreation slightly to allow UI to settle
                         new Handler(Looper.getMainLooper()).postDelayed(() -> {
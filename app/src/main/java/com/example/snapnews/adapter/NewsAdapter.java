@@ -1,8 +1,6 @@
 package com.example.snapnews.adapter;
 
 import android.content.Intent;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -14,28 +12,29 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.RoundedCorners;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.snapnews.R;
+import com.example.snapnews.database.ArticleChange;
 import com.example.snapnews.database.ArticleDao;
-import com.example.snapnews.database.NewsDatabaseHelper;
 import com.example.snapnews.databinding.ItemNewsBinding;
 import com.example.snapnews.models.Article;
 import com.example.snapnews.models.FilterChip;
+import com.example.snapnews.repository.ArticleRepository;
 import com.example.snapnews.utils.DateUtils;
+import com.example.snapnews.utils.SearchHighlighter;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder> {
     private List<Article> articles;
     private OnItemClickListener onItemClickListener;
     private OnItemActionListener onItemActionListener;
 
-    private ArticleDao articleDao;
-    private NewsDatabaseHelper dbHelper;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    // Set while attached to a RecyclerView
+    private ArticleRepository repository;
 
     private FilterChip currentCategory;
 
+    // Keeps favorite icons in step with writes made anywhere - other screens, DetailActivity
+    private final ArticleDao.OnArticlesChangedListener changeListener = this::applyArticleChanges;
+
     public interface OnItemClickListener {
         void onItemClick(Article article);
     }
@@ -50,14 +49,6 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
     public NewsAdapter(List<Article> articles, OnItemClickListener listener) {
         this.articles = articles;
         this.onItemClickListener = listener;
-
-        this.executorService = Executors.newSingleThreadExecutor();
-        this.mainHandler = new Handler(Looper.getMainLooper());
-    }
-
-    public void initializeDatabase(NewsDatabaseHelper dbHelper) {
-        this.dbHelper = dbHelper;
-        this.articleDao = new ArticleDao(dbHelper);
     }
 
     public void setOnItemActionListener(OnItemActionListener listener) {
@@ -71,6 +62,25 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
                 (currentCategory != null ? currentCategory.getName() : "null"));
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        repository = ArticleRepository.getInstance(recyclerView.getContext());
+        ArticleRepository.addOnArticlesChangedListener(changeListener);
+        // Changes made while detached were not delivered, so catch up once the favorite set is ready
+        repository.whenFavoritesLoaded().whenComplete((loaded, error) -> {
+            if (error == null) {
+                refreshFavoriteStatuses();
+            }
+        });
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        ArticleRepository.removeOnArticlesChangedListener(changeListener);
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
     @NonNull
     @Override
     public NewsViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -82,6 +92,9 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
     @Override
     public void onBindViewHolder(@NonNull NewsViewHolder holder, int position) {
         Article article = articles.get(position);
+        if (repository != null && repository.isFavoritesLoaded()) {
+            article.setFavorite(repository.isFavorite(article.getUrl()));
+        }
         holder.bind(article);
     }
 
@@ -107,36 +120,45 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
         }
     }
 
+    // Re-reads every row's flag from the in-memory favorite set; main thread only
     public void refreshFavoriteStatuses() {
-        if (articleDao == null || executorService == null || executorService.isShutdown()) {
+        if (repository == null || !repository.isFavoritesLoaded()) {
             return;
         }
 
-        executorService.execute(() -> {
-            try {
-                // Load favorite status untuk semua articles dari database
-                for (Article article : articles) {
-                    if (article.getUrl() != null) {
-                        Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-                        if (existingArticle != null) {
-                            article.setFavorite(existingArticle.isFavorite());
-                            article.setId(existingArticle.getId());
-                        }
-                    }
-                }
+        int updatedCount = 0;
+        for (int i = 0; i < articles.size(); i++) {
+            Article article = articles.get(i);
+            boolean isFavorite = repository.isFavorite(article.getUrl());
+            if (article.isFavorite() != isFavorite) {
+                article.setFavorite(isFavorite);
+                notifyItemChanged(i);
+                updatedCount++;
+            }
+        }
 
-                // Update UI di main thread
-                if (mainHandler != null) {
-                    mainHandler.post(() -> {
-                        notifyDataSetChanged();
-                        android.util.Log.d("NewsAdapter", "Favorite statuses refreshed for all articles");
-                    });
-                }
+        android.util.Log.d("NewsAdapter", "Favorite statuses refreshed - " + updatedCount + " articles updated");
+    }
 
-            } catch (Exception e) {
-                android.util.Log.e("NewsAdapter", "Error refreshing favorite statuses", e);
+    // Rebinds every row of a changed article. Rows are not compared with the new flag, because
+    // list snapshots from ArticleRepository share Article objects between screens - the screen
+    // that made the change has already flipped the flag on objects other screens show
+    private void applyArticleChanges(List<ArticleChange> changes) {
+        for (ArticleChange change : changes) {
+            if (change.getKind() != ArticleChange.Kind.FAVORITE) {
+                continue;
             }
-        });
+
+            for (int i = 0; i < articles.size(); i++) {
+                Article article = articles.get(i);
+                if (!change.matches(article)) {
+                    continue;
+                }
+                article.setId(change.getId());
+                article.setFavorite(change.isFavorite());
+                notifyItemChanged(i);
+            }
+        }
     }
 
     class NewsViewHolder extends RecyclerView.ViewHolder {
@@ -152,8 +174,11 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
             binding.textTitle.setText(article.getTitle());
             binding.textTitle.setSelected(true);
 
-            // Set description
-            if (article.getDescription() != null && !article.getDescription().isEmpty()) {
+            // Set description - offline search results show the matched snippet instead
+            if (article.getMatchSnippet() != null && !article.getMatchSnippet().isEmpty()) {
+                binding.textDescription.setText(SearchHighlighter.highlight(article.getMatchSnippet()));
+                binding.textDescription.setVisibility(View.VISIBLE);
+            } else if (article.getDescription() != null && !article.getDescription().isEmpty()) {
                 binding.textDescription.setText(article.getDescription());
                 binding.textDescription.setVisibility(View.VISIBLE);
             } else {
@@ -272,53 +297,26 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
         }
 
         private void saveFavoriteToDatabase(Article article, boolean isFavorite) {
-            if (articleDao == null || executorService == null) {
-                android.util.Log.w("NewsAdapter", "Database not initialized, cannot save favorite");
+            if (repository == null) {
+                android.util.Log.w("NewsAdapter", "Adapter not attached, cannot save favorite");
                 return;
             }
 
-            executorService.execute(() -> {
-                try {
-                    // Set timestamp if not set
-                    if (article.getTimestamp() == 0) {
-                        article.setTimestamp(System.currentTimeMillis());
-                    }
-
-                    // Check if article exists in database
-                    Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-
-                    if (existingArticle != null) {
-                        // Update existing article
-                        existingArticle.setFavorite(isFavorite);
-                        articleDao.updateArticle(existingArticle);
-
-                        // Update local article ID
-                        article.setId(existingArticle.getId());
-
-                        android.util.Log.d("NewsAdapter", "Updated existing article favorite status: " +
-                                article.getTitle() + " -> " + isFavorite);
-                    } else {
-                        // Insert new article with favorite status
-                        article.setFavorite(isFavorite);
-                        articleDao.insertArticle(article);
-
-                        android.util.Log.d("NewsAdapter", "Inserted new article with favorite status: " +
-                                article.getTitle() + " -> " + isFavorite);
-                    }
-
-                } catch (Exception e) {
-                    android.util.Log.e("NewsAdapter", "Error updating favorite in database", e);
-
-                    // Revert UI change on error
-                    if (mainHandler != null) {
-                        mainHandler.post(() -> {
-                            article.setFavorite(!isFavorite); // Revert
-                            updateFavoriteIcon(article);
-                            Toast.makeText(binding.getRoot().getContext(),
-                                    "Error updating favorite", Toast.LENGTH_SHORT).show();
-                        });
-                    }
+            // Rapid taps on the same card collapse into one write in the shared writer queue
+            repository.setFavorite(article, isFavorite).whenComplete((state, error) -> {
+                if (error == null) {
+                    // Update local article ID
+                    article.setId(state.getId());
+                    android.util.Log.d("NewsAdapter", "Saved favorite status: " +
+                            article.getTitle() + " -> " + state.isFavorite());
+                    return;
                 }
+
+                android.util.Log.e("NewsAdapter", "Error updating favorite in database", error);
+                // Toggles may have been coalesced, so show the committed flags instead of flipping back
+                refreshFavoriteStatuses();
+                Toast.makeText(binding.getRoot().getContext(),
+                        "Error updating favorite", Toast.LENGTH_SHORT).show();
             });
         }
 
@@ -486,10 +484,4 @@ public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder
             return minutes + " min read";
         }
     }
-
-    public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.snapnews.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+public class PagedScrollListener extends RecyclerView.OnScrollListener {
+    // Start fetching the next page while this many rows are still below the last visible one
+    private static final int PREFETCH_DISTANCE = 5;
+
+    private final LinearLayoutManager layoutManager;
+    private final OnLoadMoreListener onLoadMoreListener;
+
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+
+    public PagedScrollListener(LinearLayoutManager layoutManager, OnLoadMoreListener listener) {
+        this.layoutManager = layoutManager;
+        this.onLoadMoreListener = listener;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0) {
+            return;
+        }
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - PREFETCH_DISTANCE) {
+            // Listener is responsible for ignoring calls while a page is already loading
+            onLoadMoreListener.onLoadMore();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.snapnews.database;
+
+import android.util.LruCache;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+
+// Byte-bounded LRU of full article rows keyed by UrlKey, in front of ArticleDao.getArticleByUrl.
+// Entries keep description and content compressed, and every hit builds a fresh Article, so
+// callers can mutate what they get. "Not stored" is cached too. Writers invalidate the keys they
+// touched after their transaction ends; a lookup that read the row before such a write carries an
+// older generation and is not allowed to cache it.
+final class ArticleCache {
+    // Object headers, references and the LruCache node per entry, roughly
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+    private static final int MAX_CACHE_BYTES = 2 * 1024 * 1024;
+
+    // Compared by identity only, never handed to callers
+    static final Article NOT_CACHED = new Article();
+
+    private static final ArticleCache instance =
+            new ArticleCache((int) Math.min(Runtime.getRuntime().maxMemory() / 64, MAX_CACHE_BYTES));
+
+    private final LruCache<Long, Entry> entries;
+    private long generation;
+
+    private ArticleCache(int maxBytes) {
+        entries = new LruCache<Long, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Entry entry) {
+                return entry.sizeBytes;
+            }
+        };
+    }
+
+    static ArticleCache getInstance() {
+        return instance;
+    }
+
+    // Read before querying and pass to put, so a write that lands in between wins
+    synchronized long generation() {
+        return generation;
+    }
+
+    // NOT_CACHED on a miss; null when the URL is cached as not stored
+    Article get(long urlKey) {
+        Entry entry = entries.get(urlKey);
+        return entry != null ? entry.toArticle() : NOT_CACHED;
+    }
+
+    // article must come straight from the row mapper, before anything inflated its text
+    synchronized void put(long urlKey, Article article, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        entries.put(urlKey, new Entry(article));
+    }
+
+    synchronized void invalidate(long urlKey) {
+        generation++;
+        entries.remove(urlKey);
+    }
+
+    synchronized void invalidate(Iterable<Long> urlKeys) {
+        generation++;
+        for (Long urlKey : urlKeys) {
+            entries.remove(urlKey);
+        }
+    }
+
+    // For writes selected by something other than URL, such as retention batches
+    synchronized void invalidateAll() {
+        generation++;
+        entries.evictAll();
+    }
+
+    ArticleCacheStats stats() {
+        return new ArticleCacheStats(entries.hitCount(), entries.missCount(),
+                entries.evictionCount(), entries.size(), entries.maxSize());
+    }
+
+    // Immutable copy of one stored row, or of "no row" when article is null
+    private static final class Entry {
+        final int id;
+        final String title;
+        final byte[] packedDescription;
+        final String description;
+        final String url;
+        final String urlToImage;
+        final String publishedAt;
+        final byte[] packedContent;
+        final String content;
+        final String author;
+        final String sourceId;
+        final String sourceName;
+        final boolean isFavorite;
+        final long timestamp;
+        final boolean stored;
+        final int sizeBytes;
+
+        Entry(Article article) {
+            stored = article != null;
+            if (!stored) {
+                id = 0;
+                title = description = url = urlToImage = publishedAt = content = author = sourceId = sourceName = null;
+                packedDescription = packedContent = null;
+                isFavorite = false;
+                timestamp = 0;
+                sizeBytes = ENTRY_OVERHEAD_BYTES;
+                return;
+            }
+
+            id = article.getId();
+            title = article.getTitle();
+            // Keep whichever form the article holds, without inflating
+            packedDescription = article.getPackedDescription();
+            description = packedDescription == null ? article.getDescription() : null;
+            url = article.getUrl();
+            urlToImage = article.getUrlToImage();
+            publishedAt = article.getPublishedAt();
+            packedContent = article.getPackedContent();
+            content = packedContent == null ? article.getContent() : null;
+            author = article.getAuthor();
+            sourceId = article.getSource() != null ? article.getSource().getId() : null;
+            sourceName = article.getSource() != null ? article.getSource().getName() : null;
+            isFavorite = article.isFavorite();
+            timestamp = article.getTimestamp();
+            sizeBytes = ENTRY_OVERHEAD_BYTES
+                    + chars(title) + chars(description) + chars(url) + chars(urlToImage)
+                    + chars(publishedAt) + chars(content) + chars(author) + chars(sourceId) + chars(sourceName)
+                    + (packedDescription != null ? packedDescription.length : 0)
+                    + (packedContent != null ? packedContent.length : 0);
+        }
+
+        Article toArticle() {
+            if (!stored) {
+                return null;
+            }
+
+            Article article = new Article();
+            article.setId(id);
+            article.setTitle(title);
+            if (packedDescription != null) {
+                article.setPackedDescription(packedDescription);
+            } else {
+                article.setDescription(description);
+            }
+            article.setUrl(url);
+            article.setUrlToImage(urlToImage);
+            article.setPublishedAt(publishedAt);
+            if (packedContent != null) {
+                article.setPackedContent(packedContent);
+            } else {
+                article.setContent(content);
+            }
+            article.setAuthor(author);
+            if (sourceId != null || sourceName != null) {
+                article.setSource(new Source(sourceId, sourceName));
+            }
+            article.setFavorite(isFavorite);
+            article.setTimestamp(timestamp);
+            return article;
+        }
+
+        // Two bytes per char, as held in memory
+        private static int chars(String value) {
+            return value != null ? value.length() * 2 : 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.snapnews.database;
+
+import java.util.Locale;
+
+// Counters of the getArticleByUrl cache since process start
+public class ArticleCacheStats {
+    private final int hits;
+    private final int misses;
+    private final int evictions;
+    private final int sizeBytes;
+    private final int maxBytes;
+
+    ArticleCacheStats(int hits, int misses, int evictions, int sizeBytes, int maxBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.sizeBytes = sizeBytes;
+        this.maxBytes = maxBytes;
+    }
+
+    public int getHits() { return hits; }
+
+    public int getMisses() { return misses; }
+
+    public int getEvictions() { return evictions; }
+
+    public int getSizeBytes() { return sizeBytes; }
+
+    public int getMaxBytes() { return maxBytes; }
+
+    public double getHitRate() {
+        int lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "ArticleCacheStats{hits=%d, misses=%d, hitRate=%.2f, evictions=%d, size=%d/%d bytes}",
+                hits, misses, getHitRate(), evictions, sizeBytes, maxBytes);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+
+// One stored article that changed, as published to ArticleDao listeners after the write committed.
+// Identity is the UrlKey, so a change matches every URL variant of the same article
+public class ArticleChange {
+    public enum Kind {
+        // isFavorite was written, or a favorite was deleted (published as isFavorite false)
+        FAVORITE,
+        // Row inserted, or its title/text/author/source rewritten by a refresh
+        CONTENT
+    }
+
+    private final Kind kind;
+    private final long urlKey;
+    private final int id;
+    private final boolean isFavorite;
+    private final Article article;
+
+    ArticleChange(Kind kind, Article article, ArticleState state) {
+        this(kind, UrlKey.of(article.getUrl()), state, article);
+    }
+
+    ArticleChange(Kind kind, long urlKey, ArticleState state, Article article) {
+        this.kind = kind;
+        this.urlKey = urlKey;
+        this.id = state.getId();
+        this.isFavorite = state.isFavorite();
+        this.article = article;
+    }
+
+    public Kind getKind() { return kind; }
+
+    public long getUrlKey() { return urlKey; }
+
+    public int getId() { return id; }
+
+    public boolean isFavorite() { return isFavorite; }
+
+    // The article as the writer was given it - shared, so treat as read-only.
+    // Null when only the flag was written by URL
+    public Article getArticle() { return article; }
+
+    public boolean matches(Article other) {
+        return other != null && other.getUrl() != null && UrlKey.of(other.getUrl()) == urlKey;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleChange{" +
+                "kind=" + kind +
+                ", id=" + id +
+                ", isFavorite=" + isFavorite +
+                '}';
+    }
+}
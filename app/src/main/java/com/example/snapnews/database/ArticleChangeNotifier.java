@@ -0,0 +1,47 @@
+package com.example.snapnews.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Process-wide fan-out of article changes. Every write path publishes what it committed, one batch
+// per transaction, and listeners get the batch on the main thread - whichever DAO instance or
+// thread made the write
+final class ArticleChangeNotifier {
+    private static final List<ArticleDao.OnArticlesChangedListener> listeners = new CopyOnWriteArrayList<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ArticleChangeNotifier() {}
+
+    static void addListener(ArticleDao.OnArticlesChangedListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    static void removeListener(ArticleDao.OnArticlesChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Call only after the transaction that made the changes has committed.
+    // The favorite set is updated here on the writer's thread, before any listener runs
+    static void publish(List<ArticleChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        FavoriteSet.getInstance().apply(changes);
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        List<ArticleChange> batch = Collections.unmodifiableList(new ArrayList<>(changes));
+        mainHandler.post(() -> {
+            for (ArticleDao.OnArticlesChangedListener listener : listeners) {
+                listener.onArticlesChanged(batch);
+            }
+        });
+    }
+}
@@ -2,350 +2,795 @@ package com.example.snapnews.database;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.util.Log;
 import com.example.snapnews.models.Article;
-import com.example.snapnews.models.Source;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 public class ArticleDao {
     private static final String TAG = "ArticleDao";
+    private static final int MAX_SEARCH_RESULTS = 100;
+    // Stays well under SQLITE_MAX_VARIABLE_NUMBER (999 on older framework builds)
+    private static final int MAX_BIND_ARGS = 500;
+    // Rows per cursor in streamArticles; a window of full rows stays inside one 2MB CursorWindow
+    public static final int DEFAULT_STREAM_WINDOW = 256;
+    // Ids linked to one category (bound as the single argument), read straight off the primary key
+    private static final String CATEGORY_ARTICLE_IDS =
+            "(SELECT " + NewsDatabaseHelper.COLUMN_ARTICLE_ID +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLE_CATEGORIES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_CATEGORY + " = ?)";
+    // pageQuery filters: favorites only, and one category's articles
+    static final String FAVORITE_PAGE_FILTER = NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1";
+    static final String CATEGORY_PAGE_FILTER = NewsDatabaseHelper.COLUMN_ID + " IN " + CATEGORY_ARTICLE_IDS;
+    private static final String SQL_LINK_CATEGORY =
+            "INSERT OR IGNORE INTO " + NewsDatabaseHelper.TABLE_ARTICLE_CATEGORIES + " (" +
+                    NewsDatabaseHelper.COLUMN_ARTICLE_ID + ", " + NewsDatabaseHelper.COLUMN_CATEGORY +
+                    ") VALUES (?, ?)";
     private final NewsDatabaseHelper dbHelper;
 
+    // Called on the main thread with everything one committed transaction changed
+    public interface OnArticlesChangedListener {
+        void onArticlesChanged(List<ArticleChange> changes);
+    }
+
+    // Receives every row of a streamArticles walk on the calling thread; return false to stop
+    public interface ArticleRowConsumer {
+        boolean onRow(ArticleRowView row);
+    }
+
     public ArticleDao(NewsDatabaseHelper dbHelper) {
         this.dbHelper = dbHelper;
         Log.d(TAG, "ArticleDao initialized with NewsDatabaseHelper");
     }
 
+    // CHANGE LISTENERS - PROCESS-WIDE, NOT TIED TO THIS DAO INSTANCE
+    public static void addOnArticlesChangedListener(OnArticlesChangedListener listener) {
+        ArticleChangeNotifier.addListener(listener);
+    }
+
+    public static void removeOnArticlesChangedListener(OnArticlesChangedListener listener) {
+        ArticleChangeNotifier.removeListener(listener);
+    }
+
     // GET ALL ARTICLES
     public List<Article> getAllArticles() {
+        long start = DaoStats.start();
         List<Article> articles = new ArrayList<>();
-        SQLiteDatabase db = null;
         Cursor cursor = null;
 
         try {
-            db = dbHelper.getReadableDatabase();
-            String query = "SELECT * FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+            SQLiteDatabase db = dbHelper.getDatabase();
+            String query = "SELECT " + ArticleRowMapper.LIST_PROJECTION +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
                     " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC";
 
             cursor = db.rawQuery(query, null);
             Log.d(TAG, "getAllArticles - Found " + cursor.getCount() + " articles");
 
-            if (cursor.moveToFirst()) {
-                do {
-                    Article article = cursorToArticle(cursor);
-                    if (article != null) {
-                        articles.add(article);
-                    }
-                } while (cursor.moveToNext());
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                articles.add(mapper.map(cursor));
             }
+            DaoStats.GET_ALL.record(start, articles.size(), articles.size(), query);
         } catch (Exception e) {
             Log.e(TAG, "Error getting all articles", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
-            if (db != null) {
-                db.close();
-            }
         }
 
         return articles;
     }
 
+    // STREAM ALL ARTICLES - FIXED-SIZE id WINDOWS, ONE REUSED ROW VIEW, NOTHING COLLECTED
+    // For bulk work over the whole table. Heap use depends on the window size, not the row count.
+    // Each window is its own short query, so no read transaction spans the walk and writers are
+    // never held back; rows written behind the walk's position are not seen.
+    // Returns the number of rows handed to the consumer, also when cancelled part way. Any other
+    // failure, from the query or the consumer, is rethrown: a partial count would pass for the
+    // whole table. Call off the main thread
+    public int streamArticles(boolean includeContent, CancellationSignal cancellationSignal,
+                              ArticleRowConsumer consumer) {
+        return streamArticles(includeContent, DEFAULT_STREAM_WINDOW, cancellationSignal, consumer);
+    }
+
+    public int streamArticles(boolean includeContent, int windowSize,
+                              CancellationSignal cancellationSignal, ArticleRowConsumer consumer) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+
+        long start = DaoStats.start();
+        ArticleRowView row = new ArticleRowView(includeContent);
+        String query = "SELECT " +
+                (includeContent ? ArticleRowView.PROJECTION_WITH_CONTENT : ArticleRowView.PROJECTION) +
+                " FROM " + (includeContent ? ArticleRowMapper.FULL_FROM : NewsDatabaseHelper.TABLE_ARTICLES + " a") +
+                " WHERE a." + NewsDatabaseHelper.COLUMN_ID + " > ?" +
+                " ORDER BY a." + NewsDatabaseHelper.COLUMN_ID +
+                " LIMIT " + windowSize;
+        String[] args = {"0"};
+        int delivered = 0;
+        int windows = 0;
+        Cursor cursor = null;
+
+        try {
+            SQLiteDatabase db = dbHelper.getDatabase();
+            boolean more = true;
+            while (more) {
+                cursor = db.rawQuery(query, args, cancellationSignal);
+                row.moveTo(cursor);
+                windows++;
+
+                int lastId = -1;
+                while (cursor.moveToNext()) {
+                    if (cancellationSignal != null) {
+                        cancellationSignal.throwIfCanceled();
+                    }
+                    lastId = row.getId();
+                    delivered++;
+                    if (!consumer.onRow(row)) {
+                        more = false;
+                        break;
+                    }
+                }
+                // A short window means the end of the table
+                more = more && cursor.getCount() == windowSize;
+                cursor.close();
+                cursor = null;
+
+                args[0] = String.valueOf(lastId);
+            }
+            Log.d(TAG, "streamArticles - " + delivered + " rows in " + windows + " windows");
+        } catch (OperationCanceledException e) {
+            Log.d(TAG, "streamArticles - Cancelled after " + delivered + " rows");
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            DaoStats.STREAM.record(start, delivered, Math.min(delivered, windowSize), query);
+        }
+
+        return delivered;
+    }
+
     // GET FAVORITE ARTICLES
     public List<Article> getFavoriteArticles() {
+        long start = DaoStats.start();
         List<Article> articles = new ArrayList<>();
-        SQLiteDatabase db = null;
         Cursor cursor = null;
 
         try {
-            db = dbHelper.getReadableDatabase();
-            String query = "SELECT * FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+            SQLiteDatabase db = dbHelper.getDatabase();
+            String query = "SELECT " + ArticleRowMapper.LIST_PROJECTION +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
                     " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1" +
                     " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC";
 
             cursor = db.rawQuery(query, null);
             Log.d(TAG, "getFavoriteArticles - Found " + cursor.getCount() + " favorite articles");
 
-            if (cursor.moveToFirst()) {
-                do {
-                    Article article = cursorToArticle(cursor);
-                    if (article != null) {
-                        articles.add(article);
-                    }
-                } while (cursor.moveToNext());
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                articles.add(mapper.map(cursor));
             }
+            DaoStats.GET_FAVORITES.record(start, articles.size(), articles.size(), query);
         } catch (Exception e) {
             Log.e(TAG, "Error getting favorite articles", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
-            if (db != null) {
-                db.close();
-            }
         }
 
         return articles;
     }
 
-    // SEARCH ARTICLES
-    public List<Article> searchArticles(String query) {
-        List<Article> articles = new ArrayList<>();
-        SQLiteDatabase db = null;
+    // GET ARTICLES PAGE - KEYSET PAGINATION ON (timestamp, id), NEWEST FIRST
+    public List<Article> getArticlesPage(PageKey after, int pageSize) {
+        return queryArticlePage(null, null, after, pageSize);
+    }
+
+    // GET FAVORITE ARTICLES PAGE
+    public List<Article> getFavoriteArticlesPage(PageKey after, int pageSize) {
+        return queryArticlePage(FAVORITE_PAGE_FILTER, null, after, pageSize);
+    }
+
+    // GET ARTICLES BY CATEGORY PAGE - RESOLVED THROUGH THE (category, article_id) KEY, NO TEXT MATCHING
+    // A null category means the unfiltered feed
+    public List<Article> getArticlesByCategory(String category, PageKey after, int pageSize) {
+        if (category == null) {
+            return getArticlesPage(after, pageSize);
+        }
+        return queryArticlePage(CATEGORY_PAGE_FILTER, normalizeCategory(category), after, pageSize);
+    }
+
+    // Bind the filter argument, if any, then timestamp, timestamp, id of the page key
+    static String pageQuery(String filter, int pageSize) {
+        // Row values need SQLite 3.15, so the (timestamp, id) < (?, ?) comparison is spelled out.
+        // The leading timestamp <= ? is what lets the index seek to the page instead of scanning
+        // down from the newest row
+        return "SELECT " + ArticleRowMapper.LIST_PROJECTION +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                " WHERE " + (filter != null ? filter + " AND " : "") +
+                NewsDatabaseHelper.COLUMN_TIMESTAMP + " <= ? AND (" +
+                NewsDatabaseHelper.COLUMN_TIMESTAMP + " < ? OR " + NewsDatabaseHelper.COLUMN_ID + " < ?)" +
+                " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC, " +
+                NewsDatabaseHelper.COLUMN_ID + " DESC" +
+                " LIMIT " + pageSize;
+    }
+
+    private List<Article> queryArticlePage(String filter, String filterArg, PageKey after, int pageSize) {
+        long start = DaoStats.start();
+        List<Article> articles = new ArrayList<>(pageSize);
         Cursor cursor = null;
 
         try {
-            db = dbHelper.getReadableDatabase();
-            String sqlQuery = "SELECT * FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
-                    " WHERE " + NewsDatabaseHelper.COLUMN_TITLE + " LIKE ? OR " +
-                    NewsDatabaseHelper.COLUMN_DESCRIPTION + " LIKE ?" +
-                    " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC";
+            SQLiteDatabase db = dbHelper.getDatabase();
 
-            String searchPattern = "%" + query + "%";
-            String[] selectionArgs = {searchPattern, searchPattern};
+            String query = pageQuery(filter, pageSize);
 
-            cursor = db.rawQuery(sqlQuery, selectionArgs);
-            Log.d(TAG, "searchArticles - Found " + cursor.getCount() + " articles for query: " + query);
+            String timestamp = String.valueOf(after.getTimestamp());
+            String id = String.valueOf(after.getId());
+            String[] selectionArgs = filterArg != null
+                    ? new String[]{filterArg, timestamp, timestamp, id}
+                    : new String[]{timestamp, timestamp, id};
+            cursor = db.rawQuery(query, selectionArgs);
 
-            if (cursor.moveToFirst()) {
-                do {
-                    Article article = cursorToArticle(cursor);
-                    if (article != null) {
-                        articles.add(article);
-                    }
-                } while (cursor.moveToNext());
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                articles.add(mapper.map(cursor));
             }
+            DaoStats.GET_PAGE.record(start, articles.size(), articles.size(), query);
+            Log.d(TAG, "queryArticlePage - Loaded " + articles.size() + " articles after " + after);
         } catch (Exception e) {
-            Log.e(TAG, "Error searching articles", e);
+            Log.e(TAG, "Error loading article page", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
-            if (db != null) {
-                db.close();
-            }
         }
 
         return articles;
     }
 
-    // INSERT ARTICLE - PRESERVE EXISTING FAVORITE STATUS
-    public void insertArticle(Article article) {
-        SQLiteDatabase db = null;
+    // SEARCH ARTICLES - FULL-TEXT PREFIX MATCH, RANKED BY BM25, WITH HIGHLIGHT SNIPPETS
+    public List<Article> searchArticles(String query) {
+        return searchArticles(query, MAX_SEARCH_RESULTS);
+    }
+
+    public List<Article> searchArticles(String query, int limit) {
+        return searchArticles(query, null, limit);
+    }
+
+    // Same ranking, restricted to articles fetched under the given category (null for all)
+    public List<Article> searchArticles(String query, String category, int limit) {
+        List<Article> articles = new ArrayList<>();
+        String match = ArticleSearch.buildMatchQuery(query);
+        if (match == null || limit <= 0) {
+            return articles;
+        }
 
         try {
-            db = dbHelper.getWritableDatabase();
+            SQLiteDatabase db = dbHelper.getDatabase();
 
-            // CRITICAL: Check if article already exists and preserve favorite status
-            Article existingArticle = getArticleByUrlInternal(db, article.getUrl());
-            if (existingArticle != null) {
-                // Preserve favorite status from existing article
-                article.setFavorite(existingArticle.isFavorite());
-                article.setId(existingArticle.getId());
-                Log.d(TAG, "Preserving favorite status: " + article.isFavorite() + " for article: " + article.getTitle());
+            long[] rankedIds = rankSearchMatches(db, match, normalizeCategory(category), limit);
+            if (rankedIds.length == 0) {
+                Log.d(TAG, "searchArticles - No matches for query: " + query);
+                return articles;
             }
 
-            ContentValues values = articleToContentValues(article);
+            articles.addAll(loadSearchResults(db, query, rankedIds));
+            Log.d(TAG, "searchArticles - Found " + articles.size() + " articles for query: " + query);
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching articles", e);
+        }
 
-            long result = db.insertWithOnConflict(
-                    NewsDatabaseHelper.TABLE_ARTICLES,
-                    null,
-                    values,
-                    SQLiteDatabase.CONFLICT_REPLACE
-            );
+        return articles;
+    }
+
+    // Bind the MATCH expression, then the category when byCategory
+    static String rankQuery(boolean byCategory) {
+        return "SELECT docid, matchinfo(" + NewsDatabaseHelper.TABLE_ARTICLES_FTS + ", '" +
+                ArticleSearch.MATCHINFO_FORMAT + "') FROM " + NewsDatabaseHelper.TABLE_ARTICLES_FTS +
+                " WHERE " + NewsDatabaseHelper.TABLE_ARTICLES_FTS + " MATCH ?" +
+                (byCategory ? " AND docid IN " + CATEGORY_ARTICLE_IDS : "");
+    }
+
+    // Pass 1: score every match from docid + matchinfo only, keeping the best `limit` ids
+    private long[] rankSearchMatches(SQLiteDatabase db, String match, String category, int limit) {
+        long start = DaoStats.start();
+        PriorityQueue<double[]> best = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a[0], b[0]));
+        Cursor cursor = null;
 
-            if (result != -1) {
-                Log.d(TAG, "Article inserted/updated successfully with ID: " + result);
-            } else {
-                Log.e(TAG, "Failed to insert article");
+        try {
+            String sqlQuery = rankQuery(category != null);
+            String[] selectionArgs = category != null ? new String[]{match, category} : new String[]{match};
+
+            cursor = db.rawQuery(sqlQuery, selectionArgs);
+
+            int matches = 0;
+            while (cursor.moveToNext()) {
+                matches++;
+                best.offer(new double[]{ArticleSearch.bm25(cursor.getBlob(1)), cursor.getLong(0)});
+                if (best.size() > limit) {
+                    best.poll();
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error inserting article", e);
+            DaoStats.SEARCH_RANK.record(start, best.size(), matches, sqlQuery);
         } finally {
-            if (db != null) {
-                db.close();
+            if (cursor != null) {
+                cursor.close();
             }
         }
+
+        // Queue head is the lowest score, so fill from the back for best-first order
+        long[] ids = new long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = (long) best.poll()[1];
+        }
+        return ids;
     }
 
-    // INSERT MULTIPLE ARTICLES - PRESERVE EXISTING FAVORITE STATUS
-    public void insertArticles(List<Article> articles) {
-        SQLiteDatabase db = null;
+    // Pass 2: load only the winning rows and highlight the best-matching column of each
+    private List<Article> loadSearchResults(SQLiteDatabase db, String query, long[] rankedIds) {
+        long start = DaoStats.start();
+        Map<Long, Integer> rankById = new HashMap<>();
+        StringBuilder idList = new StringBuilder();
+        for (int i = 0; i < rankedIds.length; i++) {
+            rankById.put(rankedIds[i], i);
+            if (i > 0) {
+                idList.append(',');
+            }
+            idList.append(rankedIds[i]);
+        }
 
-        try {
-            db = dbHelper.getWritableDatabase();
-            db.beginTransaction();
+        Article[] ranked = new Article[rankedIds.length];
+        List<String> terms = ArticleSearch.queryTerms(query);
+        Cursor cursor = null;
 
-            for (Article article : articles) {
-                // CRITICAL: Check and preserve favorite status for each article
-                Article existingArticle = getArticleByUrlInternal(db, article.getUrl());
-                if (existingArticle != null) {
-                    // Preserve favorite status
-                    article.setFavorite(existingArticle.isFavorite());
-                    Log.d(TAG, "Preserving favorite status: " + article.isFavorite() + " for: " + article.getTitle());
+        try {
+            // Snippets may come from the body, so this is the one list query that joins it
+            String sql = "SELECT " + ArticleRowMapper.FULL_PROJECTION +
+                    " FROM " + ArticleRowMapper.FULL_FROM +
+                    " WHERE a." + NewsDatabaseHelper.COLUMN_ID + " IN (" + idList + ")";
+            cursor = db.rawQuery(sql, null);
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                rows++;
+                Article article = mapper.map(cursor);
+                Integer rank = rankById.get((long) article.getId());
+                if (rank != null) {
+                    article.setMatchSnippet(ArticleSearch.buildSnippet(article, terms));
+                    ranked[rank] = article;
                 }
+            }
+            DaoStats.SEARCH_LOAD.record(start, rows, rows, sql);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
 
-                ContentValues values = articleToContentValues(article);
-                db.insertWithOnConflict(
-                        NewsDatabaseHelper.TABLE_ARTICLES,
-                        null,
-                        values,
-                        SQLiteDatabase.CONFLICT_REPLACE
-                );
+        List<Article> articles = new ArrayList<>(ranked.length);
+        for (Article article : ranked) {
+            if (article != null) {
+                articles.add(article);
             }
+        }
+        return articles;
+    }
 
+    // INSERT ARTICLE - PRESERVE EXISTING FAVORITE STATUS
+    public void insertArticle(Article article) {
+        if (article.getUrl() == null) {
+            Log.w(TAG, "Skipping insert of article without URL: " + article.getTitle());
+            return;
+        }
+
+        long start = DaoStats.start();
+        SQLiteDatabase db = dbHelper.getDatabase();
+        db.beginTransactionNonExclusive();
+        ArticleUpsert upsert = new ArticleUpsert(db);
+        boolean committed = false;
+
+        try {
+            ArticleState state = upsert.execute(article);
             db.setTransactionSuccessful();
-            Log.d(TAG, "Successfully inserted " + articles.size() + " articles with preserved favorites");
+            committed = true;
+
+            // Keep caller's copy in sync with what is stored
+            article.setId(state.getId());
+            article.setFavorite(state.isFavorite());
+            Log.d(TAG, "Article inserted/updated successfully: " + state);
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting article", e);
+        } finally {
+            upsert.close();
+            db.endTransaction();
+            upsert.invalidateCache();
+        }
+        DaoStats.INSERT_ARTICLE.record(start, committed ? 1 : 0, 0);
+
+        if (committed) {
+            ArticleChangeNotifier.publish(upsert.getChanges());
+        }
+    }
+
+    // INSERT MULTIPLE ARTICLES - ONE UPSERT PER ROW, id AND isFavorite ARE NEVER OVERWRITTEN
+    // Returns the stored state keyed by URL so callers can merge favorites without re-querying
+    public Map<String, ArticleState> insertArticles(List<Article> articles) {
+        return insertArticles(articles, null);
+    }
+
+    // Same upsert, also linking every row to the top-headlines category it was fetched for
+    public Map<String, ArticleState> insertArticles(List<Article> articles, String category) {
+        long start = DaoStats.start();
+        Map<String, ArticleState> states = Collections.emptyMap();
+        SQLiteDatabase db = dbHelper.getDatabase();
+        // Non-exclusive so WAL readers on other connections keep running during the refresh
+        db.beginTransactionNonExclusive();
+        ArticleUpsert upsert = new ArticleUpsert(db);
+        boolean committed = false;
+
+        try {
+            states = upsertArticles(db, upsert, articles, category);
+            db.setTransactionSuccessful();
+            committed = true;
+            Log.d(TAG, "Upserted " + states.size() + " articles - " + upsert.getInsertedCount() +
+                    " new, " + upsert.getUpdatedCount() + " changed, " + upsert.getUnchangedCount() + " unchanged");
 
         } catch (Exception e) {
             Log.e(TAG, "Error inserting articles", e);
+            states = Collections.emptyMap();
         } finally {
-            if (db != null) {
-                db.endTransaction();
-                db.close();
+            upsert.close();
+            db.endTransaction();
+            upsert.invalidateCache();
+        }
+        DaoStats.INSERT_ARTICLES.record(start, committed ? upsert.getRowsWritten() : 0, 0);
+
+        if (committed) {
+            DaoStats.recordUpsert(upsert);
+            ArticleChangeNotifier.publish(upsert.getChanges());
+        }
+        return states;
+    }
+
+    // Body of insertArticles, also used by ArticleWriter's group commits.
+    // Runs inside the caller's transaction and throws instead of logging
+    static Map<String, ArticleState> upsertArticles(SQLiteDatabase db, ArticleUpsert upsert,
+                                                    List<Article> articles, String category) {
+        Map<String, ArticleState> states = new HashMap<>();
+        String normalizedCategory = normalizeCategory(category);
+        SQLiteStatement linkCategory = normalizedCategory != null ? db.compileStatement(SQL_LINK_CATEGORY) : null;
+
+        try {
+            for (Article article : articles) {
+                if (article.getUrl() == null) {
+                    Log.w(TAG, "Skipping article without URL: " + article.getTitle());
+                    continue;
+                }
+                ArticleState state = upsert.execute(article);
+                states.put(article.getUrl(), state);
+
+                if (linkCategory != null) {
+                    linkCategory.bindLong(1, state.getId());
+                    linkCategory.bindString(2, normalizedCategory);
+                    linkCategory.executeInsert();
+                }
+            }
+        } finally {
+            if (linkCategory != null) {
+                linkCategory.close();
             }
         }
+
+        return Collections.unmodifiableMap(states);
     }
 
     // UPDATE ARTICLE - SPECIFICALLY FOR FAVORITE TOGGLE
+    // Only the flag is written: list rows carry no body, so a full upsert would drop the stored one.
+    // An article that was never cached is inserted already flagged, like ArticleWriter.setFavorite
     public void updateArticle(Article article) {
-        SQLiteDatabase db = null;
+        long start = DaoStats.start();
+        SQLiteDatabase db = dbHelper.getDatabase();
+        db.beginTransactionNonExclusive();
+        ArticleUpsert upsert = new ArticleUpsert(db);
+        boolean committed = false;
 
         try {
-            db = dbHelper.getWritableDatabase();
-            ContentValues values = articleToContentValues(article);
-
-            int rowsAffected = db.update(
-                    NewsDatabaseHelper.TABLE_ARTICLES,
-                    values,
-                    NewsDatabaseHelper.COLUMN_URL + " = ?",
-                    new String[]{article.getUrl()}
-            );
-
-            Log.d(TAG, "Updated " + rowsAffected + " articles - Favorite status: " + article.isFavorite());
+            ArticleState state = upsert.executeFavorite(article, article.isFavorite());
+            db.setTransactionSuccessful();
+            committed = true;
+            Log.d(TAG, "Updated article " + state.getId() + " - Favorite status: " + article.isFavorite());
         } catch (Exception e) {
             Log.e(TAG, "Error updating article", e);
         } finally {
-            if (db != null) {
-                db.close();
-            }
+            upsert.close();
+            db.endTransaction();
+            upsert.invalidateCache();
+        }
+        DaoStats.UPDATE_ARTICLE.record(start, committed ? 1 : 0, 0);
+
+        if (committed) {
+            ArticleChangeNotifier.publish(upsert.getChanges());
         }
     }
 
     // UPDATE FAVORITE STATUS ONLY
     public void updateFavoriteStatus(String url, boolean isFavorite) {
-        SQLiteDatabase db = null;
-
+        long start = DaoStats.start();
         try {
-            db = dbHelper.getWritableDatabase();
+            SQLiteDatabase db = dbHelper.getDatabase();
+            long urlKey = UrlKey.of(url);
+            String[] keyArgs = {String.valueOf(urlKey)};
             ContentValues values = new ContentValues();
             values.put(NewsDatabaseHelper.COLUMN_IS_FAVORITE, isFavorite ? 1 : 0);
 
             int rowsAffected = db.update(
                     NewsDatabaseHelper.TABLE_ARTICLES,
                     values,
-                    NewsDatabaseHelper.COLUMN_URL + " = ?",
-                    new String[]{url}
+                    NewsDatabaseHelper.COLUMN_URL_KEY + " = ?",
+                    keyArgs
             );
+            ArticleCache.getInstance().invalidate(urlKey);
+            DaoStats.UPDATE_FAVORITE.record(start, rowsAffected, 0);
 
             Log.d(TAG, "Updated favorite status for " + rowsAffected + " articles to: " + isFavorite);
+            if (rowsAffected > 0) {
+                int id = (int) DatabaseUtils.longForQuery(db, "SELECT " + NewsDatabaseHelper.COLUMN_ID +
+                        " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                        " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?", keyArgs);
+                ArticleChangeNotifier.publish(Collections.singletonList(new ArticleChange(
+                        ArticleChange.Kind.FAVORITE, urlKey, new ArticleState(id, isFavorite), null)));
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error updating favorite status", e);
-        } finally {
-            if (db != null) {
-                db.close();
-            }
         }
     }
 
     // DELETE ARTICLE
     public void deleteArticle(Article article) {
-        SQLiteDatabase db = null;
+        int rowsDeleted = deleteIndexedArticles(NewsDatabaseHelper.COLUMN_URL_KEY + " = ?",
+                new String[]{String.valueOf(UrlKey.of(article.getUrl()))});
+        Log.d(TAG, "Deleted " + rowsDeleted + " articles");
+    }
 
+    // COUNT NON-FAVORITE ARTICLES - THE ROWS THE RETENTION POLICY IS ALLOWED TO EVICT
+    public int countNonFavoriteArticles() {
+        long start = DaoStats.start();
         try {
-            db = dbHelper.getWritableDatabase();
-            int rowsDeleted = db.delete(
-                    NewsDatabaseHelper.TABLE_ARTICLES,
-                    NewsDatabaseHelper.COLUMN_URL + " = ?",
-                    new String[]{article.getUrl()}
-            );
+            SQLiteDatabase db = dbHelper.getDatabase();
+            int count = (int) DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES,
+                    NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 0");
+            DaoStats.COUNT_NON_FAVORITE.record(start, count, 1);
+            return count;
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting non-favorite articles", e);
+            return 0;
+        }
+    }
 
-            Log.d(TAG, "Deleted " + rowsDeleted + " articles");
+    // DELETE OLDEST NON-FAVORITE ARTICLES - ONE SMALL BATCH, FAVORITES ARE NEVER TOUCHED
+    // Walks idx_articles_favorite_timestamp from the oldest end, so each batch is a short write
+    public int deleteOldestNonFavoriteArticles(long olderThanTimestamp, int limit) {
+        int rowsDeleted = deleteIndexedArticles(
+                NewsDatabaseHelper.COLUMN_ID + " IN (SELECT " + NewsDatabaseHelper.COLUMN_ID +
+                        " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                        " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 0" +
+                        " AND " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " < ?" +
+                        " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " ASC, " +
+                        NewsDatabaseHelper.COLUMN_ID + " ASC" +
+                        " LIMIT ?)",
+                new String[]{String.valueOf(olderThanTimestamp), String.valueOf(limit)}
+        );
+
+        Log.d(TAG, "Evicted " + rowsDeleted + " non-favorite articles");
+        return rowsDeleted;
+    }
+
+    // Unindexes and deletes the matching rows in one transaction; the index needs their text first
+    private int deleteIndexedArticles(String selection, String[] selectionArgs) {
+        long start = DaoStats.start();
+        int rowsDeleted = 0;
+        List<ArticleChange> unfavorited = Collections.emptyList();
+        boolean committed = false;
+        SQLiteDatabase db = dbHelper.getDatabase();
+        db.beginTransactionNonExclusive();
+
+        try {
+            long[] ids = ArticleSearchIndex.removeMatching(db, selection, selectionArgs);
+            if (ids.length == 0) {
+                db.setTransactionSuccessful();
+                return 0;
+            }
+
+            StringBuilder idList = new StringBuilder();
+            for (long id : ids) {
+                if (idList.length() > 0) {
+                    idList.append(',');
+                }
+                idList.append(id);
+            }
+
+            unfavorited = queryDeletedFavorites(db, idList.toString());
+            rowsDeleted = db.delete(NewsDatabaseHelper.TABLE_ARTICLES,
+                    NewsDatabaseHelper.COLUMN_ID + " IN (" + idList + ")", null);
+            db.setTransactionSuccessful();
+            committed = true;
+            return rowsDeleted;
         } catch (Exception e) {
-            Log.e(TAG, "Error deleting article", e);
+            Log.e(TAG, "Error deleting articles", e);
+            rowsDeleted = 0;
+            return 0;
         } finally {
-            if (db != null) {
-                db.close();
+            db.endTransaction();
+            // Rows are picked by id or age here, not URL; deletes are rare enough to drop everything
+            ArticleCache.getInstance().invalidateAll();
+            DaoStats.DELETE_ARTICLES.record(start, rowsDeleted, 0);
+            if (committed) {
+                // A deleted favorite is one that is no longer favorite, to FavoriteSet and listeners alike
+                ArticleChangeNotifier.publish(unfavorited);
             }
         }
     }
 
-    // DELETE NON-FAVORITE ARTICLES - IMPROVED VERSION
-    public void deleteNonFavoriteArticles() {
-        SQLiteDatabase db = null;
-
+    // FAVORITE=false changes for the favorites among the given ids; the retention sweep never selects any
+    private static List<ArticleChange> queryDeletedFavorites(SQLiteDatabase db, String idList) {
+        Cursor cursor = db.rawQuery("SELECT " + NewsDatabaseHelper.COLUMN_ID + ", " + NewsDatabaseHelper.COLUMN_URL_KEY +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                " WHERE " + NewsDatabaseHelper.COLUMN_ID + " IN (" + idList + ")" +
+                " AND " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1", null);
         try {
-            db = dbHelper.getWritableDatabase();
+            List<ArticleChange> changes = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                changes.add(new ArticleChange(ArticleChange.Kind.FAVORITE, cursor.getLong(1),
+                        new ArticleState(cursor.getInt(0), false), null));
+            }
+            return changes;
+        } finally {
+            cursor.close();
+        }
+    }
 
-            // Get count of favorites before deletion for logging
-            Cursor favoriteCursor = db.rawQuery(
-                    "SELECT COUNT(*) FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
-                            " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1", null);
+    // GET STORED STATE (id + isFavorite) FOR MANY URLS - CHUNKED IN-LIST ON THE UNIQUE urlKey INDEX
+    // Keyed by the caller's URL strings; variants of one canonical URL all map to the same row
+    public Map<String, ArticleState> getArticleStates(Collection<String> urls) {
+        long start = DaoStats.start();
+        Map<String, ArticleState> states = new HashMap<>();
+        if (urls == null || urls.isEmpty()) {
+            return Collections.unmodifiableMap(states);
+        }
 
-            int favoriteCount = 0;
-            if (favoriteCursor.moveToFirst()) {
-                favoriteCount = favoriteCursor.getInt(0);
+        Map<Long, List<String>> urlsByKey = new LinkedHashMap<>();
+        for (String url : new LinkedHashSet<>(urls)) {
+            if (url == null) {
+                continue;
             }
-            favoriteCursor.close();
-
-            // Delete non-favorites
-            int rowsDeleted = db.delete(
-                    NewsDatabaseHelper.TABLE_ARTICLES,
-                    NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 0",
-                    null
-            );
+            long key = UrlKey.of(url);
+            List<String> variants = urlsByKey.get(key);
+            if (variants == null) {
+                variants = new ArrayList<>(1);
+                urlsByKey.put(key, variants);
+            }
+            variants.add(url);
+        }
 
-            Log.d(TAG, "Deleted " + rowsDeleted + " non-favorite articles, preserved " + favoriteCount + " favorites");
+        try {
+            SQLiteDatabase db = dbHelper.getDatabase();
+            List<Long> keys = new ArrayList<>(urlsByKey.keySet());
+            int rows = 0;
+            for (int from = 0; from < keys.size(); from += MAX_BIND_ARGS) {
+                List<Long> chunk = keys.subList(from, Math.min(from + MAX_BIND_ARGS, keys.size()));
+                rows += queryArticleStates(db, chunk, urlsByKey, states);
+            }
+            DaoStats.GET_STATES.record(start, rows, rows);
+            Log.d(TAG, "getArticleStates - " + states.size() + " of " + urls.size() + " URLs stored");
         } catch (Exception e) {
-            Log.e(TAG, "Error deleting non-favorite articles", e);
+            Log.e(TAG, "Error getting article states", e);
+        }
+
+        return Collections.unmodifiableMap(states);
+    }
+
+    // Returns the number of stored rows found
+    private int queryArticleStates(SQLiteDatabase db, List<Long> keys, Map<Long, List<String>> urlsByKey,
+                                   Map<String, ArticleState> states) {
+        // Keys are longs, so they are inlined rather than bound as strings
+        StringBuilder keyList = new StringBuilder();
+        for (Long key : keys) {
+            if (keyList.length() > 0) {
+                keyList.append(',');
+            }
+            keyList.append(key);
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + NewsDatabaseHelper.COLUMN_URL_KEY + ", " +
+                    NewsDatabaseHelper.COLUMN_ID + ", " + NewsDatabaseHelper.COLUMN_IS_FAVORITE +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " IN (" + keyList + ")", null);
+
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                rows++;
+                ArticleState state = new ArticleState(cursor.getInt(1), cursor.getInt(2) == 1);
+                for (String url : urlsByKey.get(cursor.getLong(0))) {
+                    states.put(url, state);
+                }
+            }
+            return rows;
         } finally {
-            if (db != null) {
-                db.close();
+            if (cursor != null) {
+                cursor.close();
             }
         }
     }
 
     // GET ARTICLE BY URL - PUBLIC METHOD
+    // Warm lookups are answered by ArticleCache without touching SQLite
     public Article getArticleByUrl(String url) {
-        SQLiteDatabase db = null;
-        try {
-            db = dbHelper.getReadableDatabase();
-            return getArticleByUrlInternal(db, url);
-        } finally {
-            if (db != null) {
-                db.close();
-            }
+        if (url == null) {
+            return null;
         }
+
+        long start = DaoStats.start();
+        Article cached = ArticleCache.getInstance().get(UrlKey.of(url));
+        if (cached != ArticleCache.NOT_CACHED) {
+            DaoStats.GET_BY_URL_CACHED.record(start, cached != null ? 1 : 0, 0);
+            return cached;
+        }
+        return getArticleByUrlInternal(dbHelper.getDatabase(), url);
+    }
+
+    // CACHE COUNTERS FOR getArticleByUrl
+    public static ArticleCacheStats getArticleCacheStats() {
+        return ArticleCache.getInstance().stats();
     }
 
-    // GET ARTICLE BY URL - INTERNAL METHOD (REUSES DB CONNECTION)
+    // GET ARTICLE BY URL - INTERNAL METHOD (REUSES DB CONNECTION), FILLS THE CACHE
     private Article getArticleByUrlInternal(SQLiteDatabase db, String url) {
+        long start = DaoStats.start();
+        ArticleCache cache = ArticleCache.getInstance();
+        long urlKey = UrlKey.of(url);
+        // Taken before the read, so a write committed meanwhile keeps this row out of the cache
+        long generation = cache.generation();
         Cursor cursor = null;
 
         try {
-            String query = "SELECT * FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
-                    " WHERE " + NewsDatabaseHelper.COLUMN_URL + " = ? LIMIT 1";
+            String query = "SELECT " + ArticleRowMapper.FULL_PROJECTION +
+                    " FROM " + ArticleRowMapper.FULL_FROM +
+                    " WHERE a." + NewsDatabaseHelper.COLUMN_URL_KEY + " = ? LIMIT 1";
 
-            cursor = db.rawQuery(query, new String[]{url});
+            String[] selectionArgs = {String.valueOf(urlKey)};
+            cursor = db.rawQuery(query, selectionArgs);
 
+            Article article = null;
             if (cursor.moveToFirst()) {
-                Article article = cursorToArticle(cursor);
+                article = new ArticleRowMapper(cursor).map(cursor);
                 Log.d(TAG, "Found article by URL: " + url + ", Favorite: " + (article != null ? article.isFavorite() : "null"));
-                return article;
             }
+            cache.put(urlKey, article, generation);
+            int rows = article != null ? 1 : 0;
+            DaoStats.GET_BY_URL.record(start, rows, rows, query);
+            return article;
         } catch (Exception e) {
             Log.e(TAG, "Error getting article by URL", e);
         } finally {
@@ -357,82 +802,28 @@ public class ArticleDao {
         return null;
     }
 
-    // HELPER: Convert Cursor to Article object
-    private Article cursorToArticle(Cursor cursor) {
-        try {
-            Article article = new Article();
-
-            article.setId(cursor.getInt(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_ID)));
-            article.setTitle(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_TITLE)));
-            article.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_DESCRIPTION)));
-            article.setUrl(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_URL)));
-            article.setUrlToImage(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_URL_TO_IMAGE)));
-            article.setPublishedAt(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_PUBLISHED_AT)));
-            article.setContent(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_CONTENT)));
-            article.setAuthor(cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_AUTHOR)));
-
-            // Create Source object
-            String sourceId = cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_SOURCE_ID));
-            String sourceName = cursor.getString(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_SOURCE_NAME));
-            if (sourceId != null || sourceName != null) {
-                Source source = new Source(sourceId, sourceName);
-                article.setSource(source);
-            }
-
-            // CRITICAL: Properly set favorite status
-            int favoriteInt = cursor.getInt(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_IS_FAVORITE));
-            article.setFavorite(favoriteInt == 1);
-
-            article.setTimestamp(cursor.getLong(cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_TIMESTAMP)));
-
-            return article;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error converting cursor to article", e);
+    // Categories come from FilterChip values; stored lower-case so lookups are exact matches
+    private static String normalizeCategory(String category) {
+        if (category == null || category.trim().isEmpty()) {
             return null;
         }
-    }
-
-    // HELPER: Convert Article to ContentValues
-    private ContentValues articleToContentValues(Article article) {
-        ContentValues values = new ContentValues();
-
-        values.put(NewsDatabaseHelper.COLUMN_TITLE, article.getTitle());
-        values.put(NewsDatabaseHelper.COLUMN_DESCRIPTION, article.getDescription());
-        values.put(NewsDatabaseHelper.COLUMN_URL, article.getUrl());
-        values.put(NewsDatabaseHelper.COLUMN_URL_TO_IMAGE, article.getUrlToImage());
-        values.put(NewsDatabaseHelper.COLUMN_PUBLISHED_AT, article.getPublishedAt());
-        values.put(NewsDatabaseHelper.COLUMN_CONTENT, article.getContent());
-        values.put(NewsDatabaseHelper.COLUMN_AUTHOR, article.getAuthor());
-
-        // Handle Source object - flatten to separate columns
-        if (article.getSource() != null) {
-            values.put(NewsDatabaseHelper.COLUMN_SOURCE_ID, article.getSource().getId());
-            values.put(NewsDatabaseHelper.COLUMN_SOURCE_NAME, article.getSource().getName());
-        } else {
-            values.putNull(NewsDatabaseHelper.COLUMN_SOURCE_ID);
-            values.putNull(NewsDatabaseHelper.COLUMN_SOURCE_NAME);
-        }
-
-        // CRITICAL: Properly save favorite status
-        values.put(NewsDatabaseHelper.COLUMN_IS_FAVORITE, article.isFavorite() ? 1 : 0);
-        values.put(NewsDatabaseHelper.COLUMN_TIMESTAMP, article.getTimestamp());
-
-        return values;
+        return category.trim().toLowerCase(Locale.ROOT);
     }
 
     // DEBUG: Method to check favorite count
     public int getFavoriteCount() {
-        SQLiteDatabase db = null;
+        long start = DaoStats.start();
         Cursor cursor = null;
 
         try {
-            db = dbHelper.getReadableDatabase();
-            cursor = db.rawQuery("SELECT COUNT(*) FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
-                    " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1", null);
+            SQLiteDatabase db = dbHelper.getDatabase();
+            String query = "SELECT COUNT(*) FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1";
+            cursor = db.rawQuery(query, null);
 
             if (cursor.moveToFirst()) {
                 int count = cursor.getInt(0);
+                DaoStats.FAVORITE_COUNT.record(start, count, 1, query);
                 Log.d(TAG, "Current favorite count: " + count);
                 return count;
             }
@@ -442,11 +833,44 @@ public class ArticleDao {
             if (cursor != null) {
                 cursor.close();
             }
-            if (db != null) {
-                db.close();
-            }
         }
 
         return 0;
     }
-}
\ No newline at end of file
+
+    // LOAD THE IN-MEMORY FAVORITE SET - ONE PASS OVER idx_articles_favorite_timestamp
+    // Returns false when the read failed; the set then stays unloaded and can be loaded again
+    public boolean loadFavorites() {
+        long start = DaoStats.start();
+        FavoriteSet favorites = FavoriteSet.getInstance();
+        Cursor cursor = null;
+
+        // Before the read starts, so writes committing during it are replayed over its snapshot
+        favorites.beginLoad();
+        try {
+            SQLiteDatabase db = dbHelper.getDatabase();
+            String query = "SELECT " + NewsDatabaseHelper.COLUMN_URL_KEY +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1";
+            cursor = db.rawQuery(query, null);
+
+            long[] keys = new long[cursor.getCount()];
+            int count = 0;
+            while (cursor.moveToNext()) {
+                keys[count++] = cursor.getLong(0);
+            }
+            favorites.finishLoad(keys);
+            DaoStats.LOAD_FAVORITES.record(start, count, count, query);
+            Log.d(TAG, "Loaded " + count + " favorites into memory");
+            return true;
+        } catch (Exception e) {
+            favorites.abortLoad();
+            Log.e(TAG, "Error loading favorites", e);
+            return false;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+}
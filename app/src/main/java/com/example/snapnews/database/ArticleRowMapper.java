@@ -0,0 +1,115 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+
+// Maps cursor rows to Article with column indices resolved once per cursor instead of per row.
+// Columns missing from the projection (e.g. content in list rows) are simply left null.
+// Compressed text is handed to the Article as-is and only inflated when something reads it.
+class ArticleRowMapper {
+    // List rows never show the article body, so it stays out of the cursor window
+    static final String[] LIST_COLUMNS = {
+            NewsDatabaseHelper.COLUMN_ID,
+            NewsDatabaseHelper.COLUMN_TITLE,
+            NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED,
+            NewsDatabaseHelper.COLUMN_URL,
+            NewsDatabaseHelper.COLUMN_URL_TO_IMAGE,
+            NewsDatabaseHelper.COLUMN_PUBLISHED_AT,
+            NewsDatabaseHelper.COLUMN_AUTHOR,
+            NewsDatabaseHelper.COLUMN_SOURCE_ID,
+            NewsDatabaseHelper.COLUMN_SOURCE_NAME,
+            NewsDatabaseHelper.COLUMN_IS_FAVORITE,
+            NewsDatabaseHelper.COLUMN_TIMESTAMP
+    };
+
+    static final String LIST_PROJECTION = projection(LIST_COLUMNS, null);
+
+    // Detail view and search snippets need the body too, which since version 8 lives in
+    // article_bodies. Select FULL_PROJECTION FROM FULL_FROM; articles is aliased a, bodies b
+    static final String FULL_FROM = NewsDatabaseHelper.TABLE_ARTICLES + " a" +
+            " LEFT JOIN " + NewsDatabaseHelper.TABLE_ARTICLE_BODIES + " b" +
+            " ON b." + NewsDatabaseHelper.COLUMN_ARTICLE_ID + " = a." + NewsDatabaseHelper.COLUMN_ID;
+    static final String FULL_PROJECTION =
+            projection(LIST_COLUMNS, "a") + ", b." + NewsDatabaseHelper.COLUMN_CONTENT_PACKED;
+
+    private final int idIndex;
+    private final int titleIndex;
+    private final int descriptionIndex;
+    private final int urlIndex;
+    private final int urlToImageIndex;
+    private final int publishedAtIndex;
+    private final int contentIndex;
+    private final int authorIndex;
+    private final int sourceIdIndex;
+    private final int sourceNameIndex;
+    private final int isFavoriteIndex;
+    private final int timestampIndex;
+
+    ArticleRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_ID);
+        titleIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_TITLE);
+        descriptionIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED);
+        urlIndex = cursor.getColumnIndexOrThrow(NewsDatabaseHelper.COLUMN_URL);
+        urlToImageIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_URL_TO_IMAGE);
+        publishedAtIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_PUBLISHED_AT);
+        contentIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_CONTENT_PACKED);
+        authorIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_AUTHOR);
+        sourceIdIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_SOURCE_ID);
+        sourceNameIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_SOURCE_NAME);
+        isFavoriteIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_IS_FAVORITE);
+        timestampIndex = cursor.getColumnIndex(NewsDatabaseHelper.COLUMN_TIMESTAMP);
+    }
+
+    // Comma-separated column list, optionally qualified with a table alias for joins
+    static String projection(String[] columns, String tableAlias) {
+        StringBuilder projection = new StringBuilder();
+        for (String column : columns) {
+            if (projection.length() > 0) {
+                projection.append(", ");
+            }
+            if (tableAlias != null) {
+                projection.append(tableAlias).append('.');
+            }
+            projection.append(column);
+        }
+        return projection.toString();
+    }
+
+    Article map(Cursor cursor) {
+        Article article = new Article();
+
+        article.setId(cursor.getInt(idIndex));
+        article.setTitle(getString(cursor, titleIndex));
+        article.setPackedDescription(getBlob(cursor, descriptionIndex));
+        article.setUrl(cursor.getString(urlIndex));
+        article.setUrlToImage(getString(cursor, urlToImageIndex));
+        article.setPublishedAt(getString(cursor, publishedAtIndex));
+        article.setPackedContent(getBlob(cursor, contentIndex));
+        article.setAuthor(getString(cursor, authorIndex));
+
+        // Create Source object
+        String sourceId = getString(cursor, sourceIdIndex);
+        String sourceName = getString(cursor, sourceNameIndex);
+        if (sourceId != null || sourceName != null) {
+            article.setSource(new Source(sourceId, sourceName));
+        }
+
+        if (isFavoriteIndex >= 0) {
+            article.setFavorite(cursor.getInt(isFavoriteIndex) == 1);
+        }
+        if (timestampIndex >= 0) {
+            article.setTimestamp(cursor.getLong(timestampIndex));
+        }
+
+        return article;
+    }
+
+    private static String getString(Cursor cursor, int index) {
+        return index >= 0 ? cursor.getString(index) : null;
+    }
+
+    private static byte[] getBlob(Cursor cursor, int index) {
+        return index >= 0 ? cursor.getBlob(index) : null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.utils.CompressedText;
+
+// Read-only view of the current row of an ArticleDao.streamArticles walk. One instance is
+// re-pointed at every row, so it is only valid inside the consumer callback - copy out what
+// must outlive it, or call toArticle(). Text columns are decoded when read, never in advance.
+public final class ArticleRowView {
+    static final String[] COLUMNS = {
+            NewsDatabaseHelper.COLUMN_ID,
+            NewsDatabaseHelper.COLUMN_URL_KEY,
+            NewsDatabaseHelper.COLUMN_URL,
+            NewsDatabaseHelper.COLUMN_TITLE,
+            NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED,
+            NewsDatabaseHelper.COLUMN_URL_TO_IMAGE,
+            NewsDatabaseHelper.COLUMN_PUBLISHED_AT,
+            NewsDatabaseHelper.COLUMN_AUTHOR,
+            NewsDatabaseHelper.COLUMN_SOURCE_ID,
+            NewsDatabaseHelper.COLUMN_SOURCE_NAME,
+            NewsDatabaseHelper.COLUMN_IS_FAVORITE,
+            NewsDatabaseHelper.COLUMN_TIMESTAMP
+    };
+
+    // Column positions in COLUMNS order; content, when selected, comes last
+    private static final int ID = 0;
+    private static final int URL_KEY = 1;
+    private static final int URL = 2;
+    private static final int TITLE = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int AUTHOR = 7;
+    private static final int SOURCE_NAME = 9;
+    private static final int IS_FAVORITE = 10;
+    private static final int TIMESTAMP = 11;
+    private static final int CONTENT = COLUMNS.length;
+
+    // articles is aliased a; with content, article_bodies is joined in as b
+    static final String PROJECTION = ArticleRowMapper.projection(COLUMNS, "a");
+    static final String PROJECTION_WITH_CONTENT =
+            PROJECTION + ", b." + NewsDatabaseHelper.COLUMN_CONTENT_PACKED;
+
+    private final boolean hasContent;
+    private Cursor cursor;
+    private ArticleRowMapper mapper;
+
+    ArticleRowView(boolean hasContent) {
+        this.hasContent = hasContent;
+    }
+
+    // Called once per window; every window selects the same projection
+    void moveTo(Cursor cursor) {
+        if (this.cursor != cursor) {
+            this.cursor = cursor;
+            this.mapper = null;
+        }
+    }
+
+    public int getId() { return cursor.getInt(ID); }
+
+    public long getUrlKey() { return cursor.getLong(URL_KEY); }
+
+    public String getUrl() { return cursor.getString(URL); }
+
+    public String getTitle() { return cursor.getString(TITLE); }
+
+    public String getDescription() { return CompressedText.unpack(cursor.getBlob(DESCRIPTION)); }
+
+    // Null unless the walk was started with includeContent
+    public String getContent() {
+        return hasContent ? CompressedText.unpack(cursor.getBlob(CONTENT)) : null;
+    }
+
+    public String getAuthor() { return cursor.getString(AUTHOR); }
+
+    public String getSourceName() { return cursor.getString(SOURCE_NAME); }
+
+    public boolean isFavorite() { return cursor.getInt(IS_FAVORITE) == 1; }
+
+    public long getTimestamp() { return cursor.getLong(TIMESTAMP); }
+
+    // A detached copy that stays valid after the callback returns
+    public Article toArticle() {
+        if (mapper == null) {
+            mapper = new ArticleRowMapper(cursor);
+        }
+        return mapper.map(cursor);
+    }
+}
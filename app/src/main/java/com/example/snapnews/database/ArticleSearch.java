@@ -0,0 +1,204 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.utils.SearchHighlighter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Query building, ranking and snippets for the articles_fts index.
+// FTS4 has no built-in bm25(), so scores are computed from matchinfo(articles_fts, 'pcnalx').
+// snippet() cannot read the compressed columns either, so highlights are built here from the
+// decoded text of the few rows that are actually returned.
+class ArticleSearch {
+    static final String MATCHINFO_FORMAT = "pcnalx";
+
+    static final String SNIPPET_ELLIPSIS = "…";
+    static final int SNIPPET_TOKENS = 16;
+
+    // Per-column weights in NewsDatabaseHelper.FTS_COLUMNS order: title, description, content, author, sourceName
+    private static final double[] COLUMN_WEIGHTS = {4.0, 2.0, 1.0, 0.5, 0.5};
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Same token boundaries as the unicode61 tokenizer, close enough for highlighting
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private ArticleSearch() {}
+
+    // Turns free text into an AND of prefix terms: "climate chan" -> "climate"* "chan"*
+    // Returns null when the input has no searchable tokens
+    static String buildMatchQuery(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String term : queryTerms(query)) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(term).append("*\"");
+        }
+
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    // Lower-cased search tokens, each matched as a prefix
+    static List<String> queryTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+
+        Matcher matcher = TOKEN.matcher(query.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            terms.add(matcher.group());
+        }
+        return terms;
+    }
+
+    // Best window of SNIPPET_TOKENS tokens from the highest-weighted column with a hit, with
+    // SearchHighlighter markers around every matching token. Null when no column matches
+    static String buildSnippet(Article article, List<String> terms) {
+        String[] columns = {
+                article.getTitle(),
+                article.getDescription(),
+                article.getContent(),
+                article.getAuthor(),
+                article.getSource() != null ? article.getSource().getName() : null
+        };
+
+        String bestText = null;
+        List<int[]> bestTokens = null;
+        double bestScore = 0;
+
+        for (int column = 0; column < columns.length; column++) {
+            String text = columns[column];
+            if (text == null || text.isEmpty()) {
+                continue;
+            }
+
+            List<int[]> tokens = tokenize(text, terms);
+            int hits = 0;
+            for (int[] token : tokens) {
+                hits += token[2];
+            }
+
+            double score = hits * COLUMN_WEIGHTS[column];
+            if (score > bestScore) {
+                bestScore = score;
+                bestText = text;
+                bestTokens = tokens;
+            }
+        }
+
+        if (bestText == null) {
+            return null;
+        }
+        return highlightWindow(bestText, bestTokens);
+    }
+
+    // {start, end, isHit} for every token in the text
+    private static List<int[]> tokenize(String text, List<String> terms) {
+        List<int[]> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.find()) {
+            String token = matcher.group().toLowerCase(Locale.ROOT);
+            int hit = 0;
+            for (String term : terms) {
+                if (token.startsWith(term)) {
+                    hit = 1;
+                    break;
+                }
+            }
+            tokens.add(new int[]{matcher.start(), matcher.end(), hit});
+        }
+        return tokens;
+    }
+
+    private static String highlightWindow(String text, List<int[]> tokens) {
+        // Slide a fixed-size window and keep the first one with the most hits
+        int window = Math.min(SNIPPET_TOKENS, tokens.size());
+        int hits = 0;
+        for (int i = 0; i < window; i++) {
+            hits += tokens.get(i)[2];
+        }
+        int bestStart = 0;
+        int bestHits = hits;
+        for (int start = 1; start + window <= tokens.size(); start++) {
+            hits += tokens.get(start + window - 1)[2] - tokens.get(start - 1)[2];
+            if (hits > bestHits) {
+                bestHits = hits;
+                bestStart = start;
+            }
+        }
+
+        int first = bestStart;
+        int last = bestStart + window - 1;
+        StringBuilder snippet = new StringBuilder();
+        if (first > 0) {
+            snippet.append(SNIPPET_ELLIPSIS);
+        }
+
+        int position = tokens.get(first)[0];
+        for (int i = first; i <= last; i++) {
+            int[] token = tokens.get(i);
+            snippet.append(text, position, token[0]);
+            if (token[2] == 1) {
+                snippet.append(SearchHighlighter.HIGHLIGHT_START)
+                        .append(text, token[0], token[1])
+                        .append(SearchHighlighter.HIGHLIGHT_END);
+            } else {
+                snippet.append(text, token[0], token[1]);
+            }
+            position = token[1];
+        }
+
+        if (last < tokens.size() - 1) {
+            snippet.append(SNIPPET_ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    // Okapi BM25 over the matchinfo 'pcnalx' blob: p, c, n, a[c], l[c], x[3 * p * c]
+    static double bm25(byte[] matchinfo) {
+        if (matchinfo == null || matchinfo.length < 12) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        long rowCount = buffer.getInt(8) & 0xFFFFFFFFL;
+
+        int avgOffset = 3;
+        int lengthOffset = avgOffset + columnCount;
+        int hitsOffset = lengthOffset + columnCount;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int hitBase = hitsOffset + 3 * (phrase * columnCount + column);
+                int termFrequency = buffer.getInt(hitBase * 4);
+                if (termFrequency == 0) {
+                    continue;
+                }
+
+                int docsWithHit = buffer.getInt((hitBase + 2) * 4);
+                double avgLength = Math.max(1, buffer.getInt((avgOffset + column) * 4));
+                double length = buffer.getInt((lengthOffset + column) * 4);
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+
+                double idf = Math.log(1 + (rowCount - docsWithHit + 0.5) / (docsWithHit + 0.5));
+                double tf = termFrequency * (K1 + 1) /
+                        (termFrequency + K1 * (1 - B + B * length / avgLength));
+
+                score += weight * idf * tf;
+            }
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import com.example.snapnews.utils.CompressedText;
+
+// Keeps articles_fts in sync from the DAO. The index is still external-content over articles,
+// but FTS4 cannot read the compressed columns, so new rows are indexed with their decoded text.
+// FTS4 has no 'delete' command taking the old values: DELETE re-reads the indexed columns from
+// the articles row. So the decoded text is staged into the legacy plain columns for the duration
+// of that DELETE and cleared again straight after, all inside the caller's transaction.
+// External-content tables never defer tokens, so MATCH itself never reads the articles row.
+class ArticleSearchIndex {
+    private static final String SQL_ADD =
+            "INSERT INTO " + NewsDatabaseHelper.TABLE_ARTICLES_FTS + " (docid, " +
+                    NewsDatabaseHelper.FTS_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_STAGE_TEXT =
+            "UPDATE " + NewsDatabaseHelper.TABLE_ARTICLES + " SET " +
+                    NewsDatabaseHelper.COLUMN_DESCRIPTION + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_CONTENT + " = ?" +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_ID + " = ?";
+
+    private static final String SQL_REMOVE =
+            "DELETE FROM " + NewsDatabaseHelper.TABLE_ARTICLES_FTS + " WHERE docid = ?";
+
+    // Stored columns the index text is decoded from, in FTS_COLUMNS order after the id.
+    // Since version 8 the body is in article_bodies, so they are selected FROM INDEXED_FROM
+    static final String INDEXED_COLUMNS =
+            "a." + NewsDatabaseHelper.COLUMN_TITLE + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED + ", " +
+                    "b." + NewsDatabaseHelper.COLUMN_CONTENT_PACKED + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_AUTHOR + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_SOURCE_NAME;
+    static final String INDEXED_FROM = ArticleRowMapper.FULL_FROM;
+
+    // Versions 5 to 7 kept the body inline; only for migrations that run before the split
+    private static final String INDEXED_COLUMNS_INLINE =
+            "a." + NewsDatabaseHelper.COLUMN_TITLE + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_CONTENT_PACKED + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_AUTHOR + ", " +
+                    "a." + NewsDatabaseHelper.COLUMN_SOURCE_NAME;
+    private static final String INDEXED_FROM_INLINE = NewsDatabaseHelper.TABLE_ARTICLES + " a";
+
+    private final SQLiteStatement addStatement;
+    private final SQLiteStatement stageStatement;
+    private final SQLiteStatement removeStatement;
+
+    ArticleSearchIndex(SQLiteDatabase db) {
+        addStatement = db.compileStatement(SQL_ADD);
+        stageStatement = db.compileStatement(SQL_STAGE_TEXT);
+        removeStatement = db.compileStatement(SQL_REMOVE);
+    }
+
+    void add(long id, String title, String description, String content, String author, String sourceName) {
+        addStatement.clearBindings();
+        addStatement.bindLong(1, id);
+        ArticleUpsert.bindStringOrNull(addStatement, 2, title);
+        ArticleUpsert.bindStringOrNull(addStatement, 3, description);
+        ArticleUpsert.bindStringOrNull(addStatement, 4, content);
+        ArticleUpsert.bindStringOrNull(addStatement, 5, author);
+        ArticleUpsert.bindStringOrNull(addStatement, 6, sourceName);
+        addStatement.executeInsert();
+    }
+
+    // Removes the row under the cursor, which must select id followed by INDEXED_COLUMNS.
+    // Must run before the row's title, author or source name are overwritten
+    void remove(Cursor cursor) {
+        long id = cursor.getLong(0);
+
+        stage(id, CompressedText.unpack(cursor.getBlob(2)), CompressedText.unpack(cursor.getBlob(3)));
+        removeStatement.bindLong(1, id);
+        removeStatement.executeUpdateDelete();
+        stage(id, null, null);
+    }
+
+    void close() {
+        addStatement.close();
+        stageStatement.close();
+        removeStatement.close();
+    }
+
+    private void stage(long id, String description, String content) {
+        stageStatement.clearBindings();
+        ArticleUpsert.bindStringOrNull(stageStatement, 1, description);
+        ArticleUpsert.bindStringOrNull(stageStatement, 2, content);
+        stageStatement.bindLong(3, id);
+        stageStatement.executeUpdateDelete();
+    }
+
+    // Unindexes every article matching the selection and returns their ids, so the caller can
+    // delete exactly those rows in the same transaction. Unqualified columns in the selection
+    // refer to articles
+    static long[] removeMatching(SQLiteDatabase db, String selection, String[] selectionArgs) {
+        return removeMatching(db, INDEXED_COLUMNS, INDEXED_FROM, selection, selectionArgs);
+    }
+
+    // Same, against the version 5 to 7 layout
+    static long[] removeMatchingInline(SQLiteDatabase db, String selection, String[] selectionArgs) {
+        return removeMatching(db, INDEXED_COLUMNS_INLINE, INDEXED_FROM_INLINE, selection, selectionArgs);
+    }
+
+    private static long[] removeMatching(SQLiteDatabase db, String columns, String from,
+                                         String selection, String[] selectionArgs) {
+        ArticleSearchIndex index = new ArticleSearchIndex(db);
+        Cursor cursor = null;
+
+        try {
+            cursor = db.rawQuery("SELECT a." + NewsDatabaseHelper.COLUMN_ID + ", " + columns +
+                    " FROM " + from +
+                    " WHERE " + selection, selectionArgs);
+
+            long[] ids = new long[cursor.getCount()];
+            int count = 0;
+            while (cursor.moveToNext()) {
+                index.remove(cursor);
+                ids[count++] = cursor.getLong(0);
+            }
+            return ids;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            index.close();
+        }
+    }
+}
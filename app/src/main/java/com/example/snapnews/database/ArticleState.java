@@ -0,0 +1,24 @@
+package com.example.snapnews.database;
+
+// Row id and favorite flag of an article as stored in the articles table
+public class ArticleState {
+    private final int id;
+    private final boolean isFavorite;
+
+    public ArticleState(int id, boolean isFavorite) {
+        this.id = id;
+        this.isFavorite = isFavorite;
+    }
+
+    public int getId() { return id; }
+
+    public boolean isFavorite() { return isFavorite; }
+
+    @Override
+    public String toString() {
+        return "ArticleState{" +
+                "id=" + id +
+                ", isFavorite=" + isFavorite +
+                '}';
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.utils.CompressedText;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// Compiled statements for a favorite-preserving upsert keyed on UrlKey.
+// minSdk 24 ships SQLite 3.9, which has no INSERT ... ON CONFLICT DO UPDATE, so each row is
+// a lookup followed by either an UPDATE by rowid or a plain INSERT.
+// Neither path touches id or isFavorite of an existing row, unlike CONFLICT_REPLACE.
+// Rows whose ContentHash matches the fetched article only have their timestamp moved to the
+// fetch time, so feed order and age eviction still see them as refreshed, and keys the
+// StoredKeyFilter has never seen skip the lookup and go straight to INSERT.
+// The lookup reads the narrow articles row only; a changed row then has its indexed text read,
+// body included, so the search index and article_bodies are only rewritten when they changed.
+class ArticleUpsert {
+    private static final String SQL_LOOKUP =
+            "SELECT " + NewsDatabaseHelper.COLUMN_ID + ", " +
+                    NewsDatabaseHelper.COLUMN_IS_FAVORITE + ", " +
+                    NewsDatabaseHelper.COLUMN_CONTENT_HASH + ", " +
+                    NewsDatabaseHelper.COLUMN_TIMESTAMP +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?";
+    private static final int LOOKUP_IS_FAVORITE = 1;
+    private static final int LOOKUP_CONTENT_HASH = 2;
+    private static final int LOOKUP_TIMESTAMP = 3;
+
+    private static final String SQL_INDEXED_TEXT =
+            "SELECT a." + NewsDatabaseHelper.COLUMN_ID + ", " + ArticleSearchIndex.INDEXED_COLUMNS +
+                    " FROM " + ArticleSearchIndex.INDEXED_FROM +
+                    " WHERE a." + NewsDatabaseHelper.COLUMN_ID + " = ?";
+
+    private static final String SQL_UPDATE =
+            "UPDATE " + NewsDatabaseHelper.TABLE_ARTICLES + " SET " +
+                    NewsDatabaseHelper.COLUMN_TITLE + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_URL_TO_IMAGE + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_PUBLISHED_AT + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_AUTHOR + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_SOURCE_ID + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_SOURCE_NAME + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_TIMESTAMP + " = ?, " +
+                    NewsDatabaseHelper.COLUMN_CONTENT_HASH + " = ?" +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_ID + " = ?";
+
+    // Unchanged rows: the body, the search index and the other columns stay as they are
+    private static final String SQL_TOUCH =
+            "UPDATE " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " SET " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " = ?" +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_ID + " = ?";
+
+    private static final String SQL_INSERT =
+            "INSERT INTO " + NewsDatabaseHelper.TABLE_ARTICLES + " (" +
+                    NewsDatabaseHelper.COLUMN_TITLE + ", " +
+                    NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED + ", " +
+                    NewsDatabaseHelper.COLUMN_URL_TO_IMAGE + ", " +
+                    NewsDatabaseHelper.COLUMN_PUBLISHED_AT + ", " +
+                    NewsDatabaseHelper.COLUMN_AUTHOR + ", " +
+                    NewsDatabaseHelper.COLUMN_SOURCE_ID + ", " +
+                    NewsDatabaseHelper.COLUMN_SOURCE_NAME + ", " +
+                    NewsDatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                    NewsDatabaseHelper.COLUMN_CONTENT_HASH + ", " +
+                    NewsDatabaseHelper.COLUMN_URL_KEY + ", " +
+                    NewsDatabaseHelper.COLUMN_URL + ", " +
+                    NewsDatabaseHelper.COLUMN_IS_FAVORITE +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Bodies are only stored for articles that have one
+    private static final String SQL_PUT_BODY =
+            "INSERT OR REPLACE INTO " + NewsDatabaseHelper.TABLE_ARTICLE_BODIES + " (" +
+                    NewsDatabaseHelper.COLUMN_ARTICLE_ID + ", " + NewsDatabaseHelper.COLUMN_CONTENT_PACKED +
+                    ") VALUES (?, ?)";
+
+    private static final String SQL_DELETE_BODY =
+            "DELETE FROM " + NewsDatabaseHelper.TABLE_ARTICLE_BODIES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_ARTICLE_ID + " = ?";
+
+    private static final String SQL_SET_FAVORITE =
+            "UPDATE " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " SET " + NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = ?" +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?";
+
+    private static final String SQL_ID_BY_KEY =
+            "SELECT " + NewsDatabaseHelper.COLUMN_ID +
+                    " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+                    " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?";
+
+    // Number of content columns shared by SQL_UPDATE and SQL_INSERT, bound first in both
+    private static final int CONTENT_COLUMN_COUNT = 9;
+
+    private final SQLiteDatabase db;
+    // Stored for articles that carry no timestamp; they are never stamped themselves, because
+    // the caller's objects may already be on screen and are only merged on the main thread
+    private final long writeTime = System.currentTimeMillis();
+    private final SQLiteStatement updateStatement;
+    private final SQLiteStatement insertStatement;
+    private final SQLiteStatement touchStatement;
+    private final SQLiteStatement putBodyStatement;
+    private final SQLiteStatement deleteBodyStatement;
+    private final ArticleSearchIndex searchIndex;
+    private final StoredKeyFilter keyFilter = StoredKeyFilter.getInstance();
+    private boolean keyFilterReady;
+    private SQLiteStatement setFavoriteStatement;
+    private SQLiteStatement idStatement;
+    // What this transaction changed, for ArticleChangeNotifier once it commits
+    private final List<ArticleChange> changes = new ArrayList<>();
+    // Every key written, for ArticleCache once the transaction ends
+    private final List<Long> writtenKeys = new ArrayList<>();
+    // Rows by outcome, for refresh stats
+    private int insertedCount;
+    private int updatedCount;
+    private int unchangedCount;
+
+    ArticleUpsert(SQLiteDatabase db) {
+        this.db = db;
+        updateStatement = db.compileStatement(SQL_UPDATE);
+        insertStatement = db.compileStatement(SQL_INSERT);
+        touchStatement = db.compileStatement(SQL_TOUCH);
+        putBodyStatement = db.compileStatement(SQL_PUT_BODY);
+        deleteBodyStatement = db.compileStatement(SQL_DELETE_BODY);
+        searchIndex = new ArticleSearchIndex(db);
+    }
+
+    // Must run inside the caller's transaction so the lookup and the write see the same row
+    ArticleState execute(Article article) {
+        return execute(article, article.isFavorite());
+    }
+
+    // Favorite toggle: flips the flag of a stored row without rewriting its content, or inserts
+    // the article already flagged when it was never cached. Same transaction rule as execute
+    ArticleState executeFavorite(Article article, boolean isFavorite) {
+        if (setFavoriteStatement == null) {
+            setFavoriteStatement = db.compileStatement(SQL_SET_FAVORITE);
+            idStatement = db.compileStatement(SQL_ID_BY_KEY);
+        }
+
+        long urlKey = UrlKey.of(article.getUrl());
+        writtenKeys.add(urlKey);
+        setFavoriteStatement.bindLong(1, isFavorite ? 1 : 0);
+        setFavoriteStatement.bindLong(2, urlKey);
+        ArticleState state;
+        if (setFavoriteStatement.executeUpdateDelete() > 0) {
+            idStatement.bindLong(1, urlKey);
+            state = new ArticleState((int) idStatement.simpleQueryForLong(), isFavorite);
+        } else {
+            state = execute(article, isFavorite);
+        }
+        changes.add(new ArticleChange(ArticleChange.Kind.FAVORITE, article, state));
+        return state;
+    }
+
+    // favoriteIfNew only applies to the insert path; an existing row keeps its flag
+    private ArticleState execute(Article article, boolean favoriteIfNew) {
+        if (!keyFilterReady) {
+            keyFilter.ensureLoaded(db);
+            keyFilterReady = true;
+        }
+
+        long urlKey = UrlKey.of(article.getUrl());
+        long contentHash = ContentHash.of(article);
+        if (keyFilter.mightContain(urlKey)) {
+            Cursor existing = db.rawQuery(SQL_LOOKUP, new String[]{String.valueOf(urlKey)});
+            try {
+                if (existing.moveToFirst()) {
+                    return update(article, urlKey, contentHash, existing);
+                }
+            } finally {
+                existing.close();
+            }
+        }
+
+        PackedText text = new PackedText(article);
+        bindContent(insertStatement, article, text, contentHash);
+        insertStatement.bindLong(CONTENT_COLUMN_COUNT + 1, urlKey);
+        insertStatement.bindString(CONTENT_COLUMN_COUNT + 2, article.getUrl());
+        insertStatement.bindLong(CONTENT_COLUMN_COUNT + 3, favoriteIfNew ? 1 : 0);
+        long id = insertStatement.executeInsert();
+        if (text.content != null) {
+            putBody(id, text.content);
+        }
+        keyFilter.add(urlKey);
+        writtenKeys.add(urlKey);
+        insertedCount++;
+
+        text.addToIndex(searchIndex, id, article);
+        ArticleState state = new ArticleState((int) id, favoriteIfNew);
+        changes.add(new ArticleChange(ArticleChange.Kind.CONTENT, article, state));
+        return state;
+    }
+
+    // existing is positioned on the stored row
+    private ArticleState update(Article article, long urlKey, long contentHash, Cursor existing) {
+        int id = existing.getInt(0);
+        ArticleState state = new ArticleState(id, existing.getInt(LOOKUP_IS_FAVORITE) == 1);
+
+        if (existing.getLong(LOOKUP_CONTENT_HASH) == contentHash) {
+            // Same content: only the timestamp moves, and only when this fetch is newer.
+            // The article is left alone, it may already be on screen
+            long timestamp = timestampOf(article);
+            if (timestamp > existing.getLong(LOOKUP_TIMESTAMP)) {
+                touchStatement.bindLong(1, timestamp);
+                touchStatement.bindLong(2, id);
+                touchStatement.executeUpdateDelete();
+                writtenKeys.add(urlKey);
+            }
+            unchangedCount++;
+            return state;
+        }
+
+        // Only now is the text worth compressing
+        PackedText text = new PackedText(article);
+        boolean indexChanged;
+        boolean bodyChanged;
+        Cursor indexed = db.rawQuery(SQL_INDEXED_TEXT, new String[]{String.valueOf(id)});
+        try {
+            indexed.moveToFirst();
+            indexChanged = !text.matchesIndexed(indexed);
+            bodyChanged = !Arrays.equals(text.content, indexed.getBlob(3));
+            if (indexChanged) {
+                searchIndex.remove(indexed);
+            }
+        } finally {
+            indexed.close();
+        }
+
+        bindContent(updateStatement, article, text, contentHash);
+        updateStatement.bindLong(CONTENT_COLUMN_COUNT + 1, id);
+        updateStatement.executeUpdateDelete();
+        if (bodyChanged) {
+            if (text.content != null) {
+                putBody(id, text.content);
+            } else {
+                deleteBodyStatement.bindLong(1, id);
+                deleteBodyStatement.executeUpdateDelete();
+            }
+        }
+        writtenKeys.add(urlKey);
+        updatedCount++;
+
+        if (indexChanged) {
+            text.addToIndex(searchIndex, id, article);
+            changes.add(new ArticleChange(ArticleChange.Kind.CONTENT, article, state));
+        }
+        return state;
+    }
+
+    // Rows actually inserted or rewritten by execute; favorite flips are not counted
+    int getRowsWritten() {
+        return insertedCount + updatedCount;
+    }
+
+    int getInsertedCount() { return insertedCount; }
+
+    int getUpdatedCount() { return updatedCount; }
+
+    int getUnchangedCount() { return unchangedCount; }
+
+    List<ArticleChange> getChanges() {
+        return changes;
+    }
+
+    // Call after endTransaction, whether it committed or not
+    void invalidateCache() {
+        if (!writtenKeys.isEmpty()) {
+            ArticleCache.getInstance().invalidate(writtenKeys);
+        }
+    }
+
+    void close() {
+        updateStatement.close();
+        insertStatement.close();
+        touchStatement.close();
+        putBodyStatement.close();
+        deleteBodyStatement.close();
+        searchIndex.close();
+        if (setFavoriteStatement != null) {
+            setFavoriteStatement.close();
+            idStatement.close();
+        }
+    }
+
+    private void putBody(long id, byte[] content) {
+        putBodyStatement.bindLong(1, id);
+        putBodyStatement.bindBlob(2, content);
+        putBodyStatement.executeInsert();
+    }
+
+    private long timestampOf(Article article) {
+        return article.getTimestamp() != 0 ? article.getTimestamp() : writeTime;
+    }
+
+    private void bindContent(SQLiteStatement statement, Article article, PackedText text, long contentHash) {
+        statement.clearBindings();
+        bindStringOrNull(statement, 1, article.getTitle());
+        NewsDatabaseHelper.bindBlobOrNull(statement, 2, text.description);
+        bindStringOrNull(statement, 3, article.getUrlToImage());
+        bindStringOrNull(statement, 4, article.getPublishedAt());
+        bindStringOrNull(statement, 5, article.getAuthor());
+        bindStringOrNull(statement, 6, article.getSource() != null ? article.getSource().getId() : null);
+        bindStringOrNull(statement, 7, article.getSource() != null ? article.getSource().getName() : null);
+        statement.bindLong(8, timestampOf(article));
+        statement.bindLong(9, contentHash);
+    }
+
+    static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    // Stored form of the indexed columns of one article. Rows read back from the database keep
+    // their compressed bytes, so a favorite toggle never inflates and re-deflates the body
+    private static class PackedText {
+        final String title;
+        final byte[] description;
+        final byte[] content;
+        final String author;
+        final String sourceName;
+
+        PackedText(Article article) {
+            byte[] packedDescription = article.getPackedDescription();
+            byte[] packedContent = article.getPackedContent();
+            title = article.getTitle();
+            description = packedDescription != null ? packedDescription : CompressedText.pack(article.getDescription());
+            content = packedContent != null ? packedContent : CompressedText.pack(article.getContent());
+            author = article.getAuthor();
+            sourceName = article.getSource() != null ? article.getSource().getName() : null;
+        }
+
+        // Cursor columns: id, then ArticleSearchIndex.INDEXED_COLUMNS.
+        // Packing is deterministic, so equal bytes mean the indexed text is unchanged
+        boolean matchesIndexed(Cursor existing) {
+            return Objects.equals(title, existing.getString(1))
+                    && Arrays.equals(description, existing.getBlob(2))
+                    && Arrays.equals(content, existing.getBlob(3))
+                    && Objects.equals(author, existing.getString(4))
+                    && Objects.equals(sourceName, existing.getString(5));
+        }
+
+        void addToIndex(ArticleSearchIndex index, long id, Article article) {
+            index.add(id, title, article.getDescription(), article.getContent(), author, sourceName);
+        }
+    }
+}
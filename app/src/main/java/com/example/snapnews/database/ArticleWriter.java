@@ -0,0 +1,279 @@
+package com.example.snapnews.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+import com.example.snapnews.models.Article;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// The one place article writes reach SQLite from. Writes are queued and applied by a single
+// thread in group commits: the first queued write opens a short window and everything queued by
+// the end of it shares one transaction, so a refresh and the taps around it cost one fsync.
+// A favorite toggle still waiting in the queue is overwritten by the next toggle of the same URL.
+// The queue is FIFO and has one consumer, so writes to a URL land in the order they were made.
+public class ArticleWriter {
+    private static final String TAG = "ArticleWriter";
+
+    // Long enough to catch a burst of taps, short enough to be invisible to the caller
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 4;
+    private static final int MAX_GROUP_SIZE = 64;
+
+    private static ArticleWriter instance;
+
+    private final NewsDatabaseHelper dbHelper;
+    private final Object lock = new Object();
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+    // Queued favorite writes by UrlKey - the ones a new toggle may still be folded into
+    private final Map<Long, FavoriteWrite> queuedFavorites = new HashMap<>();
+
+    private ArticleWriter(Context context) {
+        this(NewsDatabaseHelper.getInstance(context.getApplicationContext()));
+    }
+
+    // The app shares getInstance(); tests give each case a writer on its own database
+    ArticleWriter(NewsDatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+
+        Thread writerThread = new Thread(this::runWriter, TAG);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public static synchronized ArticleWriter getInstance(Context context) {
+        if (instance == null) {
+            instance = new ArticleWriter(context);
+        }
+        return instance;
+    }
+
+    // Upserts the articles, linking them to category when it is not null.
+    // Completes with the stored state keyed by URL, like ArticleDao.insertArticles
+    public CompletableFuture<Map<String, ArticleState>> saveArticles(List<Article> articles, String category) {
+        SaveWrite write = new SaveWrite(new ArrayList<>(articles), category);
+
+        synchronized (lock) {
+            // A toggle queued before this save must not absorb one made after it
+            for (Article article : write.articles) {
+                if (article.getUrl() != null) {
+                    queuedFavorites.remove(UrlKey.of(article.getUrl()));
+                }
+            }
+            enqueue(write);
+        }
+        return write.future;
+    }
+
+    // Stores the favorite flag, inserting the article when it was never cached.
+    // Toggles coalesced into one write share its future, which completes with the final state
+    public CompletableFuture<ArticleState> setFavorite(Article article, boolean isFavorite) {
+        if (article.getUrl() == null) {
+            CompletableFuture<ArticleState> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new IllegalArgumentException("Article has no URL"));
+            return rejected;
+        }
+
+        long urlKey = UrlKey.of(article.getUrl());
+        synchronized (lock) {
+            FavoriteWrite queued = queuedFavorites.get(urlKey);
+            if (queued != null) {
+                queued.article = article;
+                queued.isFavorite = isFavorite;
+                Log.d(TAG, "Coalesced favorite toggle for " + article.getUrl() + " -> " + isFavorite);
+                return queued.future;
+            }
+
+            FavoriteWrite write = new FavoriteWrite(urlKey, article, isFavorite);
+            queuedFavorites.put(urlKey, write);
+            enqueue(write);
+            return write.future;
+        }
+    }
+
+    private void enqueue(PendingWrite write) {
+        queue.add(write);
+        lock.notifyAll();
+    }
+
+    private void runWriter() {
+        List<PendingWrite> group = new ArrayList<>(MAX_GROUP_SIZE);
+
+        while (true) {
+            try {
+                takeGroup(group);
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Writer thread interrupted, stopping");
+                return;
+            }
+
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void takeGroup(List<PendingWrite> group) throws InterruptedException {
+        synchronized (lock) {
+            while (queue.isEmpty()) {
+                lock.wait();
+            }
+
+            // Same clock as Object.wait, so the window cannot stall on a clock that stands still
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GROUP_COMMIT_WINDOW_MILLIS);
+            long remaining;
+            while (queue.size() < MAX_GROUP_SIZE
+                    && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+
+            while (!queue.isEmpty() && group.size() < MAX_GROUP_SIZE) {
+                PendingWrite write = queue.poll();
+                if (write instanceof FavoriteWrite) {
+                    // Taken - later toggles of this URL start a new write
+                    queuedFavorites.remove(((FavoriteWrite) write).urlKey, write);
+                }
+                group.add(write);
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> group) {
+        long startTime = SystemClock.elapsedRealtime();
+        long statsStart = DaoStats.start();
+
+        List<ArticleChange> changes = new ArrayList<>();
+        Exception groupError = applyInTransaction(group, changes);
+        if (groupError == null) {
+            for (PendingWrite write : group) {
+                write.complete();
+            }
+            ArticleChangeNotifier.publish(changes);
+            DaoStats.WRITER_COMMIT.record(statsStart, group.size(), 0);
+            Log.d(TAG, "Committed " + group.size() + " writes in " +
+                    (SystemClock.elapsedRealtime() - startTime) + "ms");
+            return;
+        }
+        if (group.size() == 1) {
+            group.get(0).fail(groupError);
+            return;
+        }
+
+        // The whole group rolled back; retry one by one so a bad write only fails itself
+        for (PendingWrite write : group) {
+            Exception error = applyInTransaction(Collections.singletonList(write), changes);
+            if (error == null) {
+                write.complete();
+            } else {
+                write.fail(error);
+            }
+        }
+        ArticleChangeNotifier.publish(changes);
+    }
+
+    // Returns null on commit, otherwise the error that rolled the transaction back.
+    // Changes are only added to committedChanges once the transaction has committed
+    private Exception applyInTransaction(List<PendingWrite> writes, List<ArticleChange> committedChanges) {
+        ArticleUpsert upsert = null;
+
+        try {
+            SQLiteDatabase db = dbHelper.getDatabase();
+            // Non-exclusive so WAL readers on other connections keep running during the commit
+            db.beginTransactionNonExclusive();
+            try {
+                upsert = new ArticleUpsert(db);
+                for (PendingWrite write : writes) {
+                    write.apply(db, upsert);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                if (upsert != null) {
+                    upsert.close();
+                }
+                // Commits here, and can itself fail
+                db.endTransaction();
+                if (upsert != null) {
+                    upsert.invalidateCache();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying " + writes.size() + " writes", e);
+            return e;
+        }
+
+        DaoStats.recordUpsert(upsert);
+        committedChanges.addAll(upsert.getChanges());
+        return null;
+    }
+
+    // Futures are completed on the writer thread, only after the transaction has committed
+    private abstract static class PendingWrite {
+        abstract void apply(SQLiteDatabase db, ArticleUpsert upsert);
+
+        abstract void complete();
+
+        abstract void fail(Exception error);
+    }
+
+    private static class SaveWrite extends PendingWrite {
+        final List<Article> articles;
+        final String category;
+        final CompletableFuture<Map<String, ArticleState>> future = new CompletableFuture<>();
+        Map<String, ArticleState> states;
+
+        SaveWrite(List<Article> articles, String category) {
+            this.articles = articles;
+            this.category = category;
+        }
+
+        @Override
+        void apply(SQLiteDatabase db, ArticleUpsert upsert) {
+            states = ArticleDao.upsertArticles(db, upsert, articles, category);
+        }
+
+        @Override
+        void complete() {
+            future.complete(states);
+        }
+
+        @Override
+        void fail(Exception error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    // article and isFavorite are replaced under the writer lock until the write is taken
+    private static class FavoriteWrite extends PendingWrite {
+        final long urlKey;
+        final CompletableFuture<ArticleState> future = new CompletableFuture<>();
+        Article article;
+        boolean isFavorite;
+        ArticleState state;
+
+        FavoriteWrite(long urlKey, Article article, boolean isFavorite) {
+            this.urlKey = urlKey;
+            this.article = article;
+            this.isFavorite = isFavorite;
+        }
+
+        @Override
+        void apply(SQLiteDatabase db, ArticleUpsert upsert) {
+            state = upsert.executeFavorite(article, isFavorite);
+        }
+
+        @Override
+        void complete() {
+            future.complete(state);
+        }
+
+        @Override
+        void fail(Exception error) {
+            future.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.snapnews.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the offline article cache inside RetentionPolicy limits.
+// Evicts the oldest non-favorites in small batches on its own background thread, each batch in
+// its own short transaction so feed refreshes and favorite toggles are never blocked for long.
+public class CacheRetentionManager {
+    private static final String TAG = "CacheRetentionManager";
+
+    private static final String PREFS_NAME = "SnapNewsCachePrefs";
+    private static final String KEY_LAST_RUN = "last_run";
+    private static final String KEY_LAST_ROWS_DELETED = "last_rows_deleted";
+    private static final String KEY_LAST_BYTES_RECLAIMED = "last_bytes_reclaimed";
+    private static final String KEY_TOTAL_ROWS_DELETED = "total_rows_deleted";
+    private static final String KEY_TOTAL_BYTES_RECLAIMED = "total_bytes_reclaimed";
+
+    // Automatic runs are throttled; "Clean up now" in Settings ignores this
+    private static final long MIN_RUN_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    // Upper bound on batches per eviction step, so one run never turns into a long write burst
+    private static final int MAX_BATCHES_PER_STEP = 50;
+
+    public interface OnRetentionCompleteListener {
+        void onRetentionComplete(RetentionResult result);
+    }
+
+    private static CacheRetentionManager instance;
+
+    private final NewsDatabaseHelper dbHelper;
+    private final ArticleDao articleDao;
+    private final SharedPreferences prefs;
+    private final RetentionPolicy policy;
+    private final ExecutorService executorService;
+    private final Handler mainHandler;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private CacheRetentionManager(Context context) {
+        this(context, NewsDatabaseHelper.getInstance(context.getApplicationContext()));
+    }
+
+    // The app shares getInstance(); tests run enforce() against their own database
+    CacheRetentionManager(Context context, NewsDatabaseHelper dbHelper) {
+        Context appContext = context.getApplicationContext();
+        this.dbHelper = dbHelper;
+        this.articleDao = new ArticleDao(dbHelper);
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.policy = RetentionPolicy.DEFAULT;
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    public static synchronized CacheRetentionManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new CacheRetentionManager(context);
+        }
+        return instance;
+    }
+
+    // Cheap to call after every refresh - only queues work when the last run is old enough
+    public void scheduleIfDue() {
+        long sinceLastRun = System.currentTimeMillis() - getLastRunTime();
+        if (sinceLastRun < MIN_RUN_INTERVAL_MILLIS) {
+            return;
+        }
+        runNow(null);
+    }
+
+    // Listener is called on the main thread; it gets null if a run was already in progress
+    public void runNow(OnRetentionCompleteListener listener) {
+        if (!running.compareAndSet(false, true)) {
+            Log.d(TAG, "Retention already running, skipping");
+            if (listener != null) {
+                mainHandler.post(() -> listener.onRetentionComplete(null));
+            }
+            return;
+        }
+
+        executorService.execute(() -> {
+            RetentionResult result = null;
+            try {
+                result = enforce(policy);
+                saveResult(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error enforcing retention policy", e);
+            } finally {
+                running.set(false);
+            }
+
+            if (listener != null) {
+                RetentionResult finalResult = result;
+                mainHandler.post(() -> listener.onRetentionComplete(finalResult));
+            }
+        });
+    }
+
+    // Runs on the retention thread: age limit first, then row limit, then byte limit
+    RetentionResult enforce(RetentionPolicy policy) {
+        long startTime = SystemClock.elapsedRealtime();
+
+        // Without incremental auto-vacuum deleted pages stay in the file forever
+        boolean canVacuum = dbHelper.enableIncrementalVacuum();
+        long fileBytesBefore = dbHelper.getFileBytes();
+        int batchSize = policy.getBatchSize();
+        int rowsDeleted = 0;
+
+        // 1. Age - everything not refreshed within maxAge
+        long cutoff = System.currentTimeMillis() - policy.getMaxAgeMillis();
+        for (int batch = 0; batch < MAX_BATCHES_PER_STEP; batch++) {
+            int deleted = articleDao.deleteOldestNonFavoriteArticles(cutoff, batchSize);
+            rowsDeleted += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+
+        // 2. Row count - only non-favorites count against the limit
+        int excessRows = articleDao.countNonFavoriteArticles() - policy.getMaxRows();
+        for (int batch = 0; batch < MAX_BATCHES_PER_STEP && excessRows > 0; batch++) {
+            int deleted = articleDao.deleteOldestNonFavoriteArticles(
+                    Long.MAX_VALUE, Math.min(batchSize, excessRows));
+            if (deleted == 0) {
+                break;
+            }
+            rowsDeleted += deleted;
+            excessRows -= deleted;
+        }
+
+        // 3. Bytes - measured on live pages, since free pages are handed back by the vacuum below
+        for (int batch = 0; batch < MAX_BATCHES_PER_STEP; batch++) {
+            if (dbHelper.getUsedBytes() <= policy.getMaxBytes()) {
+                break;
+            }
+            int deleted = articleDao.deleteOldestNonFavoriteArticles(Long.MAX_VALUE, batchSize);
+            if (deleted == 0) {
+                // Only favorites left - they are never evicted, even over the byte limit
+                break;
+            }
+            rowsDeleted += deleted;
+        }
+
+        if (canVacuum) {
+            dbHelper.incrementalVacuum();
+        }
+
+        long bytesReclaimed = Math.max(0, fileBytesBefore - dbHelper.getFileBytes());
+        RetentionResult result = new RetentionResult(
+                rowsDeleted, bytesReclaimed, SystemClock.elapsedRealtime() - startTime);
+        Log.d(TAG, "Retention finished: " + result);
+        return result;
+    }
+
+    private void saveResult(RetentionResult result) {
+        prefs.edit()
+                .putLong(KEY_LAST_RUN, System.currentTimeMillis())
+                .putInt(KEY_LAST_ROWS_DELETED, result.getRowsDeleted())
+                .putLong(KEY_LAST_BYTES_RECLAIMED, result.getBytesReclaimed())
+                .putLong(KEY_TOTAL_ROWS_DELETED, getTotalRowsDeleted() + result.getRowsDeleted())
+                .putLong(KEY_TOTAL_BYTES_RECLAIMED, getTotalBytesReclaimed() + result.getBytesReclaimed())
+                .apply();
+    }
+
+    public long getLastRunTime() {
+        return prefs.getLong(KEY_LAST_RUN, 0);
+    }
+
+    public int getLastRowsDeleted() {
+        return prefs.getInt(KEY_LAST_ROWS_DELETED, 0);
+    }
+
+    public long getLastBytesReclaimed() {
+        return prefs.getLong(KEY_LAST_BYTES_RECLAIMED, 0);
+    }
+
+    public long getTotalRowsDeleted() {
+        return prefs.getLong(KEY_TOTAL_ROWS_DELETED, 0);
+    }
+
+    public long getTotalBytesReclaimed() {
+        return prefs.getLong(KEY_TOTAL_BYTES_RECLAIMED, 0);
+    }
+
+    public RetentionPolicy getPolicy() {
+        return policy;
+    }
+}
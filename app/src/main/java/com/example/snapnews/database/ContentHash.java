@@ -0,0 +1,62 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.utils.CompressedText;
+
+// 64-bit hash of everything a refresh can rewrite in a stored row, kept in the contentHash column.
+// A fetched article whose hash equals the stored one only has its timestamp bumped by
+// ArticleUpsert, so refreshing an unchanged feed rewrites no text. Same FNV-1a and finalizer as
+// UrlKey, with a separator after every field and a marker for null, so moving text between fields
+// or nulling one changes the hash.
+// Never returns 0, which marks rows stored before the column existed.
+final class ContentHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int FIELD_SEPARATOR = 0x1F;
+    private static final int NULL_MARKER = 0x00;
+
+    static final long UNKNOWN = 0L;
+
+    private ContentHash() {}
+
+    // Articles read back from the database are hashed from their packed text without inflating
+    // the Article itself, so a later rewrite can still reuse the compressed bytes
+    static long of(Article article) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, article.getTitle());
+        hash = mix(hash, article.getPackedDescription() != null
+                ? CompressedText.unpack(article.getPackedDescription()) : article.getDescription());
+        hash = mix(hash, article.getUrlToImage());
+        hash = mix(hash, article.getPublishedAt());
+        hash = mix(hash, article.getPackedContent() != null
+                ? CompressedText.unpack(article.getPackedContent()) : article.getContent());
+        hash = mix(hash, article.getAuthor());
+        hash = mix(hash, article.getSource() != null ? article.getSource().getId() : null);
+        hash = mix(hash, article.getSource() != null ? article.getSource().getName() : null);
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != UNKNOWN ? hash : 1L;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            hash ^= NULL_MARKER;
+            hash *= FNV_PRIME;
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash ^= c & 0xFF;
+                hash *= FNV_PRIME;
+                hash ^= c >>> 8;
+                hash *= FNV_PRIME;
+            }
+        }
+        hash ^= FIELD_SEPARATOR;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
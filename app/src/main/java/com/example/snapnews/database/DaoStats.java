@@ -0,0 +1,377 @@
+package com.example.snapnews.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.JsonWriter;
+import android.util.Log;
+import com.example.snapnews.BuildConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Timings for every ArticleDao operation: a latency histogram per operation, rows touched and
+// cursor sizes, plus a log of the slowest calls with their query plans.
+// The hot path is atomics only and allocates nothing; while disabled, start() returns 0 and
+// record() returns straight away. Off by default in release builds.
+// Slow calls keep their SQL but never their bind arguments, which hold search text and URLs.
+// Plans are fetched when the stats are dumped, not on the thread that made the call.
+public final class DaoStats {
+    private static final String TAG = "DaoStats";
+
+    public static final String DUMP_FILE_NAME = "dao-stats.json";
+
+    // Bucket i counts calls that took [2^i, 2^(i+1)) microseconds; the last one is open-ended (~33s+)
+    private static final int BUCKET_COUNT = 26;
+    private static final int MAX_SLOW_QUERIES = 50;
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 32;
+
+    private static final List<Operation> OPERATIONS = new ArrayList<>();
+
+    static final Operation GET_ALL = new Operation("getAllArticles");
+    static final Operation STREAM = new Operation("streamArticles");
+    static final Operation GET_FAVORITES = new Operation("getFavoriteArticles");
+    static final Operation GET_PAGE = new Operation("queryArticlePage");
+    static final Operation SEARCH_RANK = new Operation("searchArticles.rank");
+    static final Operation SEARCH_LOAD = new Operation("searchArticles.load");
+    static final Operation GET_STATES = new Operation("getArticleStates");
+    static final Operation GET_BY_URL = new Operation("getArticleByUrl");
+    static final Operation GET_BY_URL_CACHED = new Operation("getArticleByUrl.cached");
+    static final Operation INSERT_ARTICLE = new Operation("insertArticle");
+    static final Operation INSERT_ARTICLES = new Operation("insertArticles");
+    static final Operation UPDATE_ARTICLE = new Operation("updateArticle");
+    static final Operation UPDATE_FAVORITE = new Operation("updateFavoriteStatus");
+    static final Operation DELETE_ARTICLES = new Operation("deleteArticles");
+    static final Operation COUNT_NON_FAVORITE = new Operation("countNonFavoriteArticles");
+    static final Operation FAVORITE_COUNT = new Operation("getFavoriteCount");
+    static final Operation LOAD_FAVORITES = new Operation("loadFavorites");
+    static final Operation WRITER_COMMIT = new Operation("ArticleWriter.commit");
+
+    // Rows handed to ArticleUpsert by refreshes, by outcome
+    private static final AtomicLong upsertInserted = new AtomicLong();
+    private static final AtomicLong upsertUpdated = new AtomicLong();
+    private static final AtomicLong upsertUnchanged = new AtomicLong();
+
+    private static volatile boolean enabled = BuildConfig.DEBUG;
+    private static volatile long slowQueryThresholdNanos =
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+
+    // Newest last; only touched on the slow path
+    private static final ArrayDeque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private DaoStats() {}
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setEnabled(boolean enabled) {
+        DaoStats.enabled = enabled;
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    public static void setSlowQueryThresholdMillis(long millis) {
+        slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    // Token for record(); 0 when recording is off
+    static long start() {
+        return enabled ? SystemClock.elapsedRealtimeNanos() : 0L;
+    }
+
+    // Call once the transaction has committed
+    static void recordUpsert(ArticleUpsert upsert) {
+        if (!enabled) {
+            return;
+        }
+        upsertInserted.addAndGet(upsert.getInsertedCount());
+        upsertUpdated.addAndGet(upsert.getUpdatedCount());
+        upsertUnchanged.addAndGet(upsert.getUnchangedCount());
+    }
+
+    public static long getUpsertRowsWritten() {
+        return upsertInserted.get() + upsertUpdated.get();
+    }
+
+    public static long getUpsertRowsSeen() {
+        return getUpsertRowsWritten() + upsertUnchanged.get();
+    }
+
+    public static int getSlowQueryCount() {
+        synchronized (slowQueries) {
+            return slowQueries.size();
+        }
+    }
+
+    public static void reset() {
+        for (Operation operation : OPERATIONS) {
+            operation.reset();
+        }
+        upsertInserted.set(0);
+        upsertUpdated.set(0);
+        upsertUnchanged.set(0);
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    // Writes the current numbers to files/dao-stats.json and returns the file. Call off the main thread
+    public static File dumpToFile(Context context) throws IOException {
+        File file = new File(context.getApplicationContext().getFilesDir(), DUMP_FILE_NAME);
+        SQLiteDatabase db = NewsDatabaseHelper.getInstance(context).getDatabase();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writeJson(writer, db);
+        }
+        Log.d(TAG, "Stats written to " + file);
+        return file;
+    }
+
+    // db explains the slow queries' SQL; without one they are written without plans
+    public static void writeJson(Writer out, SQLiteDatabase db) throws IOException {
+        List<SlowQuery> slow;
+        synchronized (slowQueries) {
+            slow = new ArrayList<>(slowQueries);
+        }
+
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("enabled").value(enabled);
+        json.name("slowQueryThresholdMillis").value(getSlowQueryThresholdMillis());
+        json.name("bucketUpperBoundsMicros");
+        json.beginArray();
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            json.value(1L << (i + 1));
+        }
+        json.endArray();
+
+        json.name("operations");
+        json.beginObject();
+        for (Operation operation : OPERATIONS) {
+            if (operation.count.get() > 0) {
+                json.name(operation.name);
+                operation.writeJson(json);
+            }
+        }
+        json.endObject();
+
+        json.name("upserts");
+        json.beginObject();
+        json.name("inserted").value(upsertInserted.get());
+        json.name("updated").value(upsertUpdated.get());
+        json.name("unchanged").value(upsertUnchanged.get());
+        json.endObject();
+
+        json.name("slowQueries");
+        json.beginArray();
+        for (SlowQuery query : slow) {
+            query.writeJson(json, db);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private static void logSlow(Operation operation, long nanos, int rowsTouched, int cursorRows, String sql) {
+        SlowQuery query = new SlowQuery(operation.name, System.currentTimeMillis(), nanos,
+                rowsTouched, cursorRows, sql);
+        Log.w(TAG, "Slow " + operation.name + ": " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms, " +
+                rowsTouched + " rows");
+
+        synchronized (slowQueries) {
+            if (slowQueries.size() == MAX_SLOW_QUERIES) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(query);
+        }
+    }
+
+    // EXPLAIN QUERY PLAN for reads; detail is the last column in every SQLite version's output.
+    // Parameters are left unbound, which does not change which indexes the plan uses
+    static String explain(SQLiteDatabase db, String sql) {
+        if (db == null || sql == null || !sql.regionMatches(true, 0, "SELECT", 0, 6)) {
+            return null;
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+            StringBuilder plan = new StringBuilder();
+            int detailColumn = cursor.getColumnCount() - 1;
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(cursor.getString(detailColumn));
+            }
+            return plan.toString();
+        } catch (Exception e) {
+            return "unavailable: " + e.getMessage();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    // One DAO entry point. Counters are independent atomics, so a dump taken mid-call may be off by one
+    static final class Operation {
+        final String name;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong rowsTouched = new AtomicLong();
+        final AtomicLong maxCursorRows = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        private Operation(String name) {
+            this.name = name;
+            OPERATIONS.add(this);
+        }
+
+        void record(long start, int rows, int cursorRows) {
+            record(start, rows, cursorRows, null);
+        }
+
+        // rows: rows read or written by the call; cursorRows: rows the SQL produced, 0 for writes.
+        // sql is only kept when the call was slow, to be explained at dump time
+        void record(long start, int rows, int cursorRows, String sql) {
+            if (start == 0L) {
+                return;
+            }
+
+            long nanos = SystemClock.elapsedRealtimeNanos() - start;
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            updateMax(maxNanos, nanos);
+            rowsTouched.addAndGet(rows);
+            updateMax(maxCursorRows, cursorRows);
+            buckets.incrementAndGet(bucketOf(nanos));
+
+            if (nanos >= slowQueryThresholdNanos) {
+                logSlow(this, nanos, rows, cursorRows, sql);
+            }
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            rowsTouched.set(0);
+            maxCursorRows.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        void writeJson(JsonWriter json) throws IOException {
+            long calls = count.get();
+            long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+            }
+
+            json.beginObject();
+            json.name("count").value(calls);
+            json.name("meanMicros").value(TimeUnit.NANOSECONDS.toMicros(totalNanos.get()) / calls);
+            json.name("p50Micros").value(percentileMicros(counts, 0.50));
+            json.name("p90Micros").value(percentileMicros(counts, 0.90));
+            json.name("p99Micros").value(percentileMicros(counts, 0.99));
+            json.name("maxMicros").value(TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+            json.name("rowsTouched").value(rowsTouched.get());
+            json.name("maxCursorRows").value(maxCursorRows.get());
+            json.name("histogram");
+            json.beginArray();
+            for (long bucketCount : counts) {
+                json.value(bucketCount);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        // Upper bound of the bucket holding the percentile, so estimates err on the slow side
+        private static long percentileMicros(long[] counts, double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return 1L << (i + 1);
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class SlowQuery {
+        final String operation;
+        final long wallTime;
+        final long nanos;
+        final int rowsTouched;
+        final int cursorRows;
+        final String sql;
+        // Filled in by the first dump that explains sql
+        private String plan;
+
+        SlowQuery(String operation, long wallTime, long nanos, int rowsTouched, int cursorRows, String sql) {
+            this.operation = operation;
+            this.wallTime = wallTime;
+            this.nanos = nanos;
+            this.rowsTouched = rowsTouched;
+            this.cursorRows = cursorRows;
+            this.sql = sql;
+        }
+
+        void writeJson(JsonWriter json, SQLiteDatabase db) throws IOException {
+            if (plan == null) {
+                plan = explain(db, sql);
+            }
+
+            json.beginObject();
+            json.name("operation").value(operation);
+            json.name("time").value(wallTime);
+            json.name("micros").value(TimeUnit.NANOSECONDS.toMicros(nanos));
+            json.name("rowsTouched").value(rowsTouched);
+            json.name("cursorRows").value(cursorRows);
+            if (sql != null) {
+                json.name("sql").value(sql);
+            }
+            if (plan != null) {
+                json.name("plan").value(plan);
+            }
+            json.endObject();
+        }
+    }
+}
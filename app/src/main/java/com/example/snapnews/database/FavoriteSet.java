@@ -0,0 +1,199 @@
+package com.example.snapnews.database;
+
+import java.util.Arrays;
+import java.util.List;
+
+// UrlKeys of every favorited article, held in memory so favorite checks never touch SQLite.
+// Open addressing with linear probing over a long[] - no boxing, no per-entry objects - and
+// backward-shift deletion, so removals leave no tombstones behind.
+// Filled once by ArticleDao.loadFavorites, then kept in step by the DAO's own write paths after
+// each commit. Writes that commit while the load is reading are logged and replayed on top of
+// it, so a load never rolls back a newer write.
+public final class FavoriteSet {
+    // 0 marks an empty slot; the one real key that hashes to 0 is tracked on the side
+    private static final long EMPTY = 0L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final FavoriteSet instance = new FavoriteSet();
+
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean containsZero;
+
+    private boolean loaded;
+    // Writes seen while a load is running, in commit order; null when no load is running
+    private long[] pendingKeys;
+    private boolean[] pendingFavorite;
+    private int pendingCount;
+
+    private FavoriteSet() {}
+
+    public static FavoriteSet getInstance() {
+        return instance;
+    }
+
+    // False until the first load finished; until then contains() knows nothing
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean contains(String url) {
+        return url != null && contains(UrlKey.of(url));
+    }
+
+    public synchronized boolean contains(long urlKey) {
+        if (urlKey == EMPTY) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = slot(urlKey, mask); ; i = (i + 1) & mask) {
+            long key = slots[i];
+            if (key == urlKey) {
+                return true;
+            }
+            if (key == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    // LOADING - beginLoad before the query starts, finishLoad with what it read
+    synchronized void beginLoad() {
+        pendingKeys = new long[16];
+        pendingFavorite = new boolean[16];
+        pendingCount = 0;
+    }
+
+    synchronized void finishLoad(long[] favoriteKeys) {
+        slots = new long[capacityFor(favoriteKeys.length)];
+        size = 0;
+        containsZero = false;
+        for (long key : favoriteKeys) {
+            add(key);
+        }
+
+        for (int i = 0; i < pendingCount; i++) {
+            set(pendingKeys[i], pendingFavorite[i]);
+        }
+        pendingKeys = null;
+        pendingFavorite = null;
+        pendingCount = 0;
+        loaded = true;
+    }
+
+    synchronized void abortLoad() {
+        pendingKeys = null;
+        pendingFavorite = null;
+        pendingCount = 0;
+    }
+
+    // WRITES - called by the DAO once the transaction that made them has committed
+    synchronized void apply(List<ArticleChange> changes) {
+        for (ArticleChange change : changes) {
+            record(change.getUrlKey(), change.isFavorite());
+        }
+    }
+
+    synchronized void removeAll(long[] urlKeys) {
+        for (long key : urlKeys) {
+            record(key, false);
+        }
+    }
+
+    private void record(long urlKey, boolean favorite) {
+        if (pendingKeys != null) {
+            if (pendingCount == pendingKeys.length) {
+                pendingKeys = Arrays.copyOf(pendingKeys, pendingCount * 2);
+                pendingFavorite = Arrays.copyOf(pendingFavorite, pendingCount * 2);
+            }
+            pendingKeys[pendingCount] = urlKey;
+            pendingFavorite[pendingCount] = favorite;
+            pendingCount++;
+        }
+        set(urlKey, favorite);
+    }
+
+    private void set(long urlKey, boolean favorite) {
+        if (favorite) {
+            add(urlKey);
+        } else {
+            remove(urlKey);
+        }
+    }
+
+    private void add(long urlKey) {
+        if (urlKey == EMPTY) {
+            containsZero = true;
+            return;
+        }
+        // Kept at most half full, so probe runs stay short
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int i = slot(urlKey, mask);
+        while (slots[i] != EMPTY) {
+            if (slots[i] == urlKey) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = urlKey;
+        size++;
+    }
+
+    private void remove(long urlKey) {
+        if (urlKey == EMPTY) {
+            containsZero = false;
+            return;
+        }
+        int mask = slots.length - 1;
+        int i = slot(urlKey, mask);
+        while (slots[i] != urlKey) {
+            if (slots[i] == EMPTY) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Pull later members of the probe run back over the hole so lookups never stop early
+        int hole = i;
+        for (int j = (hole + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(slots[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                slots[hole] = slots[j];
+                hole = j;
+            }
+        }
+        slots[hole] = EMPTY;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+
+    private static int capacityFor(int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // UrlKey already runs the MurmurHash3 finalizer, so its low bits can index directly
+    private static int slot(long urlKey, int mask) {
+        return (int) (urlKey ^ (urlKey >>> 32)) & mask;
+    }
+}
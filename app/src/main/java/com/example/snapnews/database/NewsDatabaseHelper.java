@@ -1,17 +1,36 @@
 package com.example.snapnews.database;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.util.Log;
+import com.example.snapnews.utils.CompressedText;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class NewsDatabaseHelper extends SQLiteOpenHelper {
     private static final String TAG = "NewsDatabaseHelper";
 
     private static final String DATABASE_NAME = "news_database.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 9;
+
+    // Connection tuning - negative cache_size is in KiB, mmap_size is in bytes
+    private static final int PAGE_CACHE_KIB = 4 * 1024;
+    private static final long MMAP_SIZE_BYTES = 32L * 1024 * 1024;
+
+    // PRAGMA auto_vacuum value for INCREMENTAL
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
 
     public static final String TABLE_ARTICLES = "articles";
+    public static final String TABLE_ARTICLES_FTS = "articles_fts";
+    public static final String TABLE_ARTICLE_CATEGORIES = "article_categories";
+    public static final String TABLE_ARTICLE_BODIES = "article_bodies";
 
     public static final String COLUMN_ID = "id";
     public static final String COLUMN_TITLE = "title";
@@ -25,6 +44,16 @@ public class NewsDatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_SOURCE_NAME = "sourceName";
     public static final String COLUMN_IS_FAVORITE = "isFavorite";
     public static final String COLUMN_TIMESTAMP = "timestamp";
+    // CompressedText blobs; since version 5 the plain description/content columns stay NULL
+    public static final String COLUMN_DESCRIPTION_PACKED = "descriptionPacked";
+    public static final String COLUMN_CONTENT_PACKED = "contentPacked";
+    // UrlKey of the url, the article identity since version 6
+    public static final String COLUMN_URL_KEY = "urlKey";
+    // ContentHash of the fetched fields since version 7; 0 until the row is next written
+    public static final String COLUMN_CONTENT_HASH = "contentHash";
+
+    public static final String COLUMN_ARTICLE_ID = "article_id";
+    public static final String COLUMN_CATEGORY = "category";
 
     private static final String CREATE_ARTICLES_TABLE =
             "CREATE TABLE " + TABLE_ARTICLES + " (" +
@@ -42,10 +71,136 @@ public class NewsDatabaseHelper extends SQLiteOpenHelper {
                     COLUMN_TIMESTAMP + " INTEGER DEFAULT 0" +
                     ")";
 
+    // Columns mirrored into the full-text index, in FTS column order
+    static final String FTS_COLUMNS =
+            COLUMN_TITLE + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_CONTENT + ", " +
+                    COLUMN_AUTHOR + ", " + COLUMN_SOURCE_NAME;
+
+    // External-content FTS4 index over articles (framework SQLite has no FTS5).
+    // prefix=2,3 keeps short "term*" queries off the full-term scan
+    private static final String CREATE_ARTICLES_FTS_TABLE =
+            "CREATE VIRTUAL TABLE " + TABLE_ARTICLES_FTS + " USING fts4(" +
+                    FTS_COLUMNS + ", " +
+                    "content=\"" + TABLE_ARTICLES + "\", " +
+                    "prefix=\"2,3\", " +
+                    "tokenize=unicode61" +
+                    ")";
+
+    // Version 2-4 triggers that kept the index in sync. Dropped in version 5: they cannot read
+    // compressed columns, so ArticleSearchIndex now maintains the index from the DAO
+    private static final String[] CREATE_ARTICLES_FTS_TRIGGERS = {
+            "CREATE TRIGGER articles_fts_bd BEFORE DELETE ON " + TABLE_ARTICLES + " BEGIN " +
+                    "DELETE FROM " + TABLE_ARTICLES_FTS + " WHERE docid = old." + COLUMN_ID + "; END",
+            "CREATE TRIGGER articles_fts_bu BEFORE UPDATE OF " + FTS_COLUMNS + " ON " + TABLE_ARTICLES + " BEGIN " +
+                    "DELETE FROM " + TABLE_ARTICLES_FTS + " WHERE docid = old." + COLUMN_ID + "; END",
+            "CREATE TRIGGER articles_fts_ai AFTER INSERT ON " + TABLE_ARTICLES + " BEGIN " +
+                    "INSERT INTO " + TABLE_ARTICLES_FTS + " (docid, " + FTS_COLUMNS + ") VALUES (" +
+                    "new." + COLUMN_ID + ", new." + COLUMN_TITLE + ", new." + COLUMN_DESCRIPTION + ", " +
+                    "new." + COLUMN_CONTENT + ", new." + COLUMN_AUTHOR + ", new." + COLUMN_SOURCE_NAME + "); END",
+            "CREATE TRIGGER articles_fts_au AFTER UPDATE OF " + FTS_COLUMNS + " ON " + TABLE_ARTICLES + " BEGIN " +
+                    "INSERT INTO " + TABLE_ARTICLES_FTS + " (docid, " + FTS_COLUMNS + ") VALUES (" +
+                    "new." + COLUMN_ID + ", new." + COLUMN_TITLE + ", new." + COLUMN_DESCRIPTION + ", " +
+                    "new." + COLUMN_CONTENT + ", new." + COLUMN_AUTHOR + ", new." + COLUMN_SOURCE_NAME + "); END"
+    };
+
+    // Feed order (timestamp DESC, id DESC) - id is the rowid, so every index already ends with it
+    public static final String INDEX_ARTICLES_TIMESTAMP = "idx_articles_timestamp";
+    // Favorites filter + feed order, covers COUNT/DELETE on isFavorite as well
+    public static final String INDEX_ARTICLES_FAVORITE_TIMESTAMP = "idx_articles_favorite_timestamp";
+
+    // Which top-headlines categories each article was fetched under; filled at ingest time.
+    // The (category, article_id) key serves category filters, the article_id index serves cascading deletes
+    private static final String CREATE_ARTICLE_CATEGORIES_TABLE =
+            "CREATE TABLE " + TABLE_ARTICLE_CATEGORIES + " (" +
+                    COLUMN_ARTICLE_ID + " INTEGER NOT NULL REFERENCES " + TABLE_ARTICLES +
+                    "(" + COLUMN_ID + ") ON DELETE CASCADE, " +
+                    COLUMN_CATEGORY + " TEXT NOT NULL, " +
+                    "PRIMARY KEY (" + COLUMN_CATEGORY + ", " + COLUMN_ARTICLE_ID + ")" +
+                    ") WITHOUT ROWID";
+
+    public static final String INDEX_ARTICLE_CATEGORIES_ARTICLE = "idx_article_categories_article";
+
+    // Version 6 layout: identity moves from the url text (and its UNIQUE index) to an 8-byte key.
+    // description/content stay only as staging columns for ArticleSearchIndex and are NULL at rest
+    private static final String CREATE_ARTICLES_TABLE_V6 =
+            "CREATE TABLE " + TABLE_ARTICLES + "_v6 (" +
+                    COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_URL_KEY + " INTEGER NOT NULL, " +
+                    COLUMN_URL + " TEXT NOT NULL, " +
+                    COLUMN_TITLE + " TEXT, " +
+                    COLUMN_DESCRIPTION + " TEXT, " +
+                    COLUMN_URL_TO_IMAGE + " TEXT, " +
+                    COLUMN_PUBLISHED_AT + " TEXT, " +
+                    COLUMN_CONTENT + " TEXT, " +
+                    COLUMN_AUTHOR + " TEXT, " +
+                    COLUMN_SOURCE_ID + " TEXT, " +
+                    COLUMN_SOURCE_NAME + " TEXT, " +
+                    COLUMN_IS_FAVORITE + " INTEGER DEFAULT 0, " +
+                    COLUMN_TIMESTAMP + " INTEGER DEFAULT 0, " +
+                    COLUMN_DESCRIPTION_PACKED + " BLOB, " +
+                    COLUMN_CONTENT_PACKED + " BLOB" +
+                    ")";
+
+    private static final String ARTICLES_V6_COLUMNS =
+            COLUMN_ID + ", " + COLUMN_URL_KEY + ", " + COLUMN_URL + ", " + COLUMN_TITLE + ", " +
+                    COLUMN_DESCRIPTION + ", " + COLUMN_URL_TO_IMAGE + ", " + COLUMN_PUBLISHED_AT + ", " +
+                    COLUMN_CONTENT + ", " + COLUMN_AUTHOR + ", " + COLUMN_SOURCE_ID + ", " +
+                    COLUMN_SOURCE_NAME + ", " + COLUMN_IS_FAVORITE + ", " + COLUMN_TIMESTAMP + ", " +
+                    COLUMN_DESCRIPTION_PACKED + ", " + COLUMN_CONTENT_PACKED;
+
+    public static final String INDEX_ARTICLES_URL_KEY = "idx_articles_url_key";
+
+    // Version 8 layout: articles keeps only what list rows show plus the NULL-at-rest staging
+    // columns, so many more rows fit a page; bodies move to article_bodies, keyed by the same id
+    private static final String CREATE_ARTICLES_TABLE_V8 =
+            "CREATE TABLE " + TABLE_ARTICLES + "_v8 (" +
+                    COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_URL_KEY + " INTEGER NOT NULL, " +
+                    COLUMN_URL + " TEXT NOT NULL, " +
+                    COLUMN_TITLE + " TEXT, " +
+                    COLUMN_URL_TO_IMAGE + " TEXT, " +
+                    COLUMN_PUBLISHED_AT + " TEXT, " +
+                    COLUMN_AUTHOR + " TEXT, " +
+                    COLUMN_SOURCE_ID + " TEXT, " +
+                    COLUMN_SOURCE_NAME + " TEXT, " +
+                    COLUMN_IS_FAVORITE + " INTEGER DEFAULT 0, " +
+                    COLUMN_TIMESTAMP + " INTEGER DEFAULT 0, " +
+                    COLUMN_CONTENT_HASH + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_DESCRIPTION_PACKED + " BLOB, " +
+                    COLUMN_DESCRIPTION + " TEXT, " +
+                    COLUMN_CONTENT + " TEXT" +
+                    ")";
+
+    private static final String ARTICLES_V8_COLUMNS =
+            COLUMN_ID + ", " + COLUMN_URL_KEY + ", " + COLUMN_URL + ", " + COLUMN_TITLE + ", " +
+                    COLUMN_URL_TO_IMAGE + ", " + COLUMN_PUBLISHED_AT + ", " + COLUMN_AUTHOR + ", " +
+                    COLUMN_SOURCE_ID + ", " + COLUMN_SOURCE_NAME + ", " + COLUMN_IS_FAVORITE + ", " +
+                    COLUMN_TIMESTAMP + ", " + COLUMN_CONTENT_HASH + ", " + COLUMN_DESCRIPTION_PACKED + ", " +
+                    COLUMN_DESCRIPTION + ", " + COLUMN_CONTENT;
+
+    // Compressed article bodies, only for articles that have one. article_id is the rowid, so
+    // the detail join and the cascading delete are both primary-key lookups
+    private static final String CREATE_ARTICLE_BODIES_TABLE =
+            "CREATE TABLE " + TABLE_ARTICLE_BODIES + " (" +
+                    COLUMN_ARTICLE_ID + " INTEGER PRIMARY KEY REFERENCES " + TABLE_ARTICLES +
+                    "(" + COLUMN_ID + ") ON DELETE CASCADE, " +
+                    COLUMN_CONTENT_PACKED + " BLOB NOT NULL" +
+                    ")";
+
+    private static final String[] ARTICLES_FTS_TRIGGERS = {
+            "articles_fts_bd", "articles_fts_bu", "articles_fts_ai", "articles_fts_au"
+    };
+
     private static NewsDatabaseHelper sInstance;
 
+    // Shared connection, opened once and never closed per DAO call
+    private volatile SQLiteDatabase database;
+
     private NewsDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+
+        // WAL lets readers run on pooled connections while a write transaction is open
+        setWriteAheadLoggingEnabled(true);
         Log.d(TAG, "NewsDatabaseHelper constructor called");
     }
 
@@ -57,32 +212,393 @@ public class NewsDatabaseHelper extends SQLiteOpenHelper {
         return sInstance;
     }
 
+    // Tests start each case on a new database file; the app keeps one instance for the process
+    static synchronized void closeInstance() {
+        if (sInstance != null) {
+            sInstance.close();
+            sInstance = null;
+        }
+    }
+
+    public SQLiteDatabase getDatabase() {
+        SQLiteDatabase db = database;
+        if (db == null || !db.isOpen()) {
+            synchronized (this) {
+                db = database;
+                if (db == null || !db.isOpen()) {
+                    db = getWritableDatabase();
+                    database = db;
+                    Log.d(TAG, "Shared database connection opened");
+                }
+            }
+        }
+        return db;
+    }
+
     @Override
-    public void onCreate(SQLiteDatabase db) {
-        Log.d(TAG, "Creating database tables");
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+
         try {
-            db.execSQL(CREATE_ARTICLES_TABLE);
-            Log.d(TAG, "Articles table created successfully");
+            // Migrations rebuild tables that others reference, and DROP TABLE with foreign keys on
+            // would cascade into article_categories, so pending upgrades run with them off
+            if (db.getVersion() == DATABASE_VERSION) {
+                db.setForeignKeyConstraintsEnabled(true);
+            }
+            // Only takes effect before the first table exists; older files are converted by
+            // enableIncrementalVacuum()
+            applyPragma(db, "auto_vacuum", "INCREMENTAL");
+            applyPragma(db, "synchronous", "NORMAL");
+            applyConnectionTuning(db);
+            Log.d(TAG, "Connection configured - WAL: " + db.isWriteAheadLoggingEnabled());
         } catch (Exception e) {
-            Log.e(TAG, "Error creating tables", e);
+            Log.e(TAG, "Error configuring database connection", e);
         }
     }
 
+    // cache_size and mmap_size belong to a connection, not to the file, and onConfigure only runs
+    // on the primary one. WAL readers get their own pooled connections, so from API 30 the pool
+    // replays the pragmas on every connection it opens. Older releases have no such hook: there
+    // only the writer is tuned and readers keep SQLite's 2 MB cache with mmap off
+    private static void applyConnectionTuning(SQLiteDatabase db) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            db.execPerConnectionSQL("PRAGMA cache_size=" + (-PAGE_CACHE_KIB), null);
+            db.execPerConnectionSQL("PRAGMA mmap_size=" + MMAP_SIZE_BYTES, null);
+        } else {
+            applyPragma(db, "cache_size", String.valueOf(-PAGE_CACHE_KIB));
+            applyPragma(db, "mmap_size", String.valueOf(MMAP_SIZE_BYTES));
+        }
+    }
+
+    // Some pragmas return a row, which execSQL rejects - step them through a cursor instead
+    private static void applyPragma(SQLiteDatabase db, String name, String value) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name + "=" + value, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Fresh installs build the version 1 table and replay every migration, so new and
+    // upgraded databases always end up with the same schema
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        Log.d(TAG, "Creating database tables");
+        db.execSQL(CREATE_ARTICLES_TABLE);
+        Log.d(TAG, "Articles table created successfully");
+
+        migrate(db, 1, DATABASE_VERSION);
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
 
-        if (oldVersion != newVersion) {
-            try {
-                // Drop existing tables
-                db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLES);
-                Log.d(TAG, "Old tables dropped");
-
-                // Recreate tables
-                onCreate(db);
-                Log.d(TAG, "Tables recreated successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Error upgrading database", e);
+        // No fallback to dropping the tables: that would lose the user's favorites. A step that
+        // throws rolls the whole upgrade transaction back, leaving the file on its old version
+        migrate(db, oldVersion, newVersion);
+        Log.d(TAG, "Database upgraded in place");
+    }
+
+    // Applies each version step in order; SQLiteOpenHelper runs this inside one transaction
+    private void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        for (int version = fromVersion + 1; version <= toVersion; version++) {
+            Log.d(TAG, "Migrating schema to version " + version);
+            switch (version) {
+                case 2:
+                    createSearchIndex(db);
+                    break;
+                case 3:
+                    createArticleIndexes(db);
+                    break;
+                case 4:
+                    createCategoryTable(db);
+                    break;
+                case 5:
+                    compressArticleText(db);
+                    break;
+                case 6:
+                    keyArticlesByUrl(db);
+                    break;
+                case 7:
+                    addContentHash(db);
+                    break;
+                case 8:
+                    splitArticleBodies(db);
+                    break;
+                case 9:
+                    rekeyArticles(db);
+                    break;
+                default:
+                    throw new IllegalStateException("No migration to database version " + version);
+            }
+        }
+    }
+
+    // Version 2: full-text search index
+    private void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL(CREATE_ARTICLES_FTS_TABLE);
+        for (String trigger : CREATE_ARTICLES_FTS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+
+        // Index whatever is already in the content table
+        db.execSQL("INSERT INTO " + TABLE_ARTICLES_FTS + "(" + TABLE_ARTICLES_FTS + ") VALUES('rebuild')");
+        Log.d(TAG, "Full-text search index created");
+    }
+
+    // Version 3: secondary indexes for the feed sort and the favorites filter
+    private void createArticleIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLES_TIMESTAMP +
+                " ON " + TABLE_ARTICLES + " (" + COLUMN_TIMESTAMP + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLES_FAVORITE_TIMESTAMP +
+                " ON " + TABLE_ARTICLES + " (" + COLUMN_IS_FAVORITE + ", " + COLUMN_TIMESTAMP + ")");
+        db.execSQL("ANALYZE " + TABLE_ARTICLES);
+        Log.d(TAG, "Article indexes created");
+    }
+
+    // Version 4: article/category provenance. Rows cached before this stay uncategorized
+    // until the next refresh of their category re-links them
+    private void createCategoryTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_ARTICLE_CATEGORIES_TABLE);
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ARTICLE_CATEGORIES_ARTICLE +
+                " ON " + TABLE_ARTICLE_CATEGORIES + " (" + COLUMN_ARTICLE_ID + ")");
+        Log.d(TAG, "Article categories table created");
+    }
+
+    // Version 5: description and content move into compressed BLOB columns.
+    // The FTS index already holds exactly this text, so only its triggers go - it is not rebuilt.
+    // 'rebuild' must not be used from here on, it would read the now-empty plain columns
+    private void compressArticleText(SQLiteDatabase db) {
+        for (String trigger : ARTICLES_FTS_TRIGGERS) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+        }
+
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN " + COLUMN_DESCRIPTION_PACKED + " BLOB");
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN " + COLUMN_CONTENT_PACKED + " BLOB");
+
+        SQLiteStatement pack = db.compileStatement(
+                "UPDATE " + TABLE_ARTICLES + " SET " +
+                        COLUMN_DESCRIPTION_PACKED + " = ?, " + COLUMN_CONTENT_PACKED + " = ?, " +
+                        COLUMN_DESCRIPTION + " = NULL, " + COLUMN_CONTENT + " = NULL" +
+                        " WHERE " + COLUMN_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_CONTENT +
+                " FROM " + TABLE_ARTICLES, null);
+        int rows = 0;
+
+        try {
+            while (cursor.moveToNext()) {
+                bindBlobOrNull(pack, 1, CompressedText.pack(cursor.getString(1)));
+                bindBlobOrNull(pack, 2, CompressedText.pack(cursor.getString(2)));
+                pack.bindLong(3, cursor.getLong(0));
+                pack.executeUpdateDelete();
+                rows++;
+            }
+        } finally {
+            cursor.close();
+            pack.close();
+        }
+
+        // Freed text pages are handed back by the retention pass's incremental vacuum
+        Log.d(TAG, "Compressed text of " + rows + " articles");
+    }
+
+    // Version 6: identity by UrlKey. Rows whose URLs canonicalize to the same key are merged
+    // first - the favorite (else the newest) survives and inherits the others' categories -
+    // then the table is rebuilt without the UNIQUE url index
+    private void keyArticlesByUrl(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN " + COLUMN_URL_KEY + " INTEGER");
+
+        Map<Long, long[]> survivors = new HashMap<>();
+        List<long[]> merges = new ArrayList<>();
+        SQLiteStatement setKey = db.compileStatement("UPDATE " + TABLE_ARTICLES +
+                " SET " + COLUMN_URL_KEY + " = ? WHERE " + COLUMN_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_URL + ", " +
+                COLUMN_IS_FAVORITE + ", " + COLUMN_TIMESTAMP +
+                " FROM " + TABLE_ARTICLES + " WHERE " + COLUMN_URL + " IS NOT NULL", null);
+
+        try {
+            while (cursor.moveToNext()) {
+                // {id, isFavorite, timestamp}
+                long[] row = {cursor.getLong(0), cursor.getLong(2), cursor.getLong(3)};
+                long key = UrlKey.of(cursor.getString(1));
+                setKey.bindLong(1, key);
+                setKey.bindLong(2, row[0]);
+                setKey.executeUpdateDelete();
+
+                long[] kept = survivors.get(key);
+                if (kept == null) {
+                    survivors.put(key, row);
+                } else if (row[1] > kept[1] || (row[1] == kept[1] && row[2] > kept[2])) {
+                    merges.add(new long[]{row[0], kept[0]});
+                    survivors.put(key, row);
+                } else {
+                    merges.add(new long[]{kept[0], row[0]});
+                }
+            }
+        } finally {
+            cursor.close();
+            setKey.close();
+        }
+
+        // {survivor, duplicate}; a survivor may itself be merged later, so follow the chain
+        Map<Long, Long> mergedInto = new HashMap<>();
+        for (long[] merge : merges) {
+            mergedInto.put(merge[1], merge[0]);
+        }
+        for (long[] merge : merges) {
+            long survivor = merge[0];
+            while (mergedInto.containsKey(survivor)) {
+                survivor = mergedInto.get(survivor);
+            }
+            String[] args = {String.valueOf(survivor), String.valueOf(merge[1])};
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_ARTICLE_CATEGORIES +
+                    " (" + COLUMN_ARTICLE_ID + ", " + COLUMN_CATEGORY + ")" +
+                    " SELECT ?, " + COLUMN_CATEGORY + " FROM " + TABLE_ARTICLE_CATEGORIES +
+                    " WHERE " + COLUMN_ARTICLE_ID + " = ?", args);
+            db.execSQL("DELETE FROM " + TABLE_ARTICLE_CATEGORIES +
+                    " WHERE " + COLUMN_ARTICLE_ID + " = ?", new Object[]{merge[1]});
+            ArticleSearchIndex.removeMatchingInline(db, COLUMN_ID + " = ?", new String[]{String.valueOf(merge[1])});
+            db.execSQL("DELETE FROM " + TABLE_ARTICLES + " WHERE " + COLUMN_ID + " = ?", new Object[]{merge[1]});
+        }
+
+        // url was never NOT NULL; such rows can be neither opened nor keyed
+        db.execSQL("DELETE FROM " + TABLE_ARTICLE_CATEGORIES + " WHERE " + COLUMN_ARTICLE_ID +
+                " IN (SELECT " + COLUMN_ID + " FROM " + TABLE_ARTICLES + " WHERE " + COLUMN_URL + " IS NULL)");
+        ArticleSearchIndex.removeMatchingInline(db, COLUMN_URL + " IS NULL", null);
+
+        // Same ids, so the FTS docids and category links stay valid across the rebuild
+        db.execSQL(CREATE_ARTICLES_TABLE_V6);
+        db.execSQL("INSERT INTO " + TABLE_ARTICLES + "_v6 (" + ARTICLES_V6_COLUMNS + ")" +
+                " SELECT " + ARTICLES_V6_COLUMNS + " FROM " + TABLE_ARTICLES +
+                " WHERE " + COLUMN_URL + " IS NOT NULL");
+        db.execSQL("DROP TABLE " + TABLE_ARTICLES);
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + "_v6 RENAME TO " + TABLE_ARTICLES);
+
+        db.execSQL("CREATE UNIQUE INDEX " + INDEX_ARTICLES_URL_KEY +
+                " ON " + TABLE_ARTICLES + " (" + COLUMN_URL_KEY + ")");
+        createArticleIndexes(db);
+        Log.d(TAG, "Articles keyed by URL hash, merged " + merges.size() + " duplicates");
+    }
+
+    // Version 7: content hash for change detection. Existing rows keep 0, which matches no
+    // article, so each is rewritten once by its next refresh and skipped from then on
+    private void addContentHash(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + " ADD COLUMN " + COLUMN_CONTENT_HASH +
+                " INTEGER NOT NULL DEFAULT 0");
+        Log.d(TAG, "Content hash column added");
+    }
+
+    // Version 8: vertical split. Bodies are copied out, then articles is rebuilt without them -
+    // DROP COLUMN needs SQLite 3.35. Same ids, so FTS docids and category links stay valid
+    private void splitArticleBodies(SQLiteDatabase db) {
+        db.execSQL(CREATE_ARTICLE_BODIES_TABLE);
+        db.execSQL("INSERT INTO " + TABLE_ARTICLE_BODIES + " (" + COLUMN_ARTICLE_ID + ", " + COLUMN_CONTENT_PACKED + ")" +
+                " SELECT " + COLUMN_ID + ", " + COLUMN_CONTENT_PACKED + " FROM " + TABLE_ARTICLES +
+                " WHERE " + COLUMN_CONTENT_PACKED + " IS NOT NULL");
+
+        db.execSQL(CREATE_ARTICLES_TABLE_V8);
+        db.execSQL("INSERT INTO " + TABLE_ARTICLES + "_v8 (" + ARTICLES_V8_COLUMNS + ")" +
+                " SELECT " + ARTICLES_V8_COLUMNS + " FROM " + TABLE_ARTICLES);
+        db.execSQL("DROP TABLE " + TABLE_ARTICLES);
+        db.execSQL("ALTER TABLE " + TABLE_ARTICLES + "_v8 RENAME TO " + TABLE_ARTICLES);
+
+        db.execSQL("CREATE UNIQUE INDEX " + INDEX_ARTICLES_URL_KEY +
+                " ON " + TABLE_ARTICLES + " (" + COLUMN_URL_KEY + ")");
+        createArticleIndexes(db);
+        Log.d(TAG, "Article bodies moved to " + TABLE_ARTICLE_BODIES);
+    }
+
+    // Version 9: UrlKey stops dropping generic parameters such as ref and ocid, so keys are
+    // recomputed. The new canonical form only ever keeps more of a URL than the old one, so rows
+    // that had distinct keys still do. Rows merged by version 6 stay merged
+    private void rekeyArticles(SQLiteDatabase db) {
+        int rows = 0;
+        SQLiteStatement setKey = db.compileStatement("UPDATE " + TABLE_ARTICLES +
+                " SET " + COLUMN_URL_KEY + " = ? WHERE " + COLUMN_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_URL + ", " + COLUMN_URL_KEY +
+                " FROM " + TABLE_ARTICLES, null);
+
+        try {
+            while (cursor.moveToNext()) {
+                long key = UrlKey.of(cursor.getString(1));
+                if (key != cursor.getLong(2)) {
+                    setKey.bindLong(1, key);
+                    setKey.bindLong(2, cursor.getLong(0));
+                    setKey.executeUpdateDelete();
+                    rows++;
+                }
+            }
+        } finally {
+            cursor.close();
+            setKey.close();
+        }
+        Log.d(TAG, "Recomputed the URL key of " + rows + " articles");
+    }
+
+    static void bindBlobOrNull(SQLiteStatement statement, int index, byte[] value) {
+        if (value != null) {
+            statement.bindBlob(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    // STORAGE - page accounting and vacuum for the retention policy
+
+    // Bytes of pages actually holding data, i.e. what the file would shrink to after a vacuum
+    public long getUsedBytes() {
+        SQLiteDatabase db = getDatabase();
+        long pageCount = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null);
+        long freePages = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        return (pageCount - freePages) * db.getPageSize();
+    }
+
+    public long getFileBytes() {
+        SQLiteDatabase db = getDatabase();
+        return DatabaseUtils.longForQuery(db, "PRAGMA page_count", null) * db.getPageSize();
+    }
+
+    // Databases created before auto_vacuum was set need one full VACUUM to switch modes.
+    // VACUUM cannot run inside a transaction, so call this from a background thread only
+    public boolean enableIncrementalVacuum() {
+        SQLiteDatabase db = getDatabase();
+        try {
+            if (DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) == AUTO_VACUUM_INCREMENTAL) {
+                return true;
+            }
+
+            applyPragma(db, "auto_vacuum", "INCREMENTAL");
+            db.execSQL("VACUUM");
+            Log.d(TAG, "Converted database to incremental auto-vacuum");
+            return true;
+        } catch (Exception e) {
+            // Usually SQLITE_BUSY from a concurrent reader - try again on the next run
+            Log.e(TAG, "Error enabling incremental vacuum", e);
+            return false;
+        }
+    }
+
+    // Returns free pages to the filesystem and truncates the WAL so the file really shrinks
+    public void incrementalVacuum() {
+        SQLiteDatabase db = getDatabase();
+        Cursor cursor = null;
+        try {
+            // incremental_vacuum frees one page per result row, so the cursor has to be drained
+            cursor = db.rawQuery("PRAGMA incremental_vacuum", null);
+            while (cursor.moveToNext()) {
+                // keep stepping
+            }
+            cursor.close();
+            cursor = null;
+
+            applyPragma(db, "wal_checkpoint", "TRUNCATE");
+        } catch (Exception e) {
+            Log.e(TAG, "Error running incremental vacuum", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
             }
         }
     }
@@ -90,16 +606,11 @@ public class NewsDatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onOpen(SQLiteDatabase db) {
         super.onOpen(db);
-        Log.d(TAG, "Database opened");
 
+        // Schema is current now; turn on the foreign keys onConfigure held back for the upgrade
         if (!db.isReadOnly()) {
-            try {
-                // Enable foreign key constraints
-                db.execSQL("PRAGMA foreign_keys=ON;");
-                Log.d(TAG, "Foreign keys enabled");
-            } catch (Exception e) {
-                Log.e(TAG, "Error enabling foreign keys", e);
-            }
+            db.setForeignKeyConstraintsEnabled(true);
         }
+        Log.d(TAG, "Database opened");
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+
+// Keyset position in (timestamp DESC, id DESC) order - a page holds rows strictly after this key
+public class PageKey {
+    public static final PageKey FIRST = new PageKey(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final long timestamp;
+    private final int id;
+
+    public PageKey(long timestamp, int id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    // Key for the page that follows the given (last loaded) article
+    public static PageKey after(Article article) {
+        return new PageKey(article.getTimestamp(), article.getId());
+    }
+
+    public long getTimestamp() { return timestamp; }
+
+    public int getId() { return id; }
+
+    @Override
+    public String toString() {
+        return "PageKey{" +
+                "timestamp=" + timestamp +
+                ", id=" + id +
+                '}';
+    }
+}
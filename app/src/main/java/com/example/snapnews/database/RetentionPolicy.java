@@ -0,0 +1,34 @@
+package com.example.snapnews.database;
+
+import java.util.concurrent.TimeUnit;
+
+// Limits for the non-favorite article cache; favorites never count against them and are never evicted
+public class RetentionPolicy {
+    public static final RetentionPolicy DEFAULT = new RetentionPolicy(
+            2000,
+            TimeUnit.DAYS.toMillis(14),
+            24L * 1024 * 1024,
+            100
+    );
+
+    private final int maxRows;
+    private final long maxAgeMillis;
+    private final long maxBytes;
+    private final int batchSize;
+
+    public RetentionPolicy(int maxRows, long maxAgeMillis, long maxBytes, int batchSize) {
+        this.maxRows = maxRows;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBytes = maxBytes;
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxRows() { return maxRows; }
+
+    public long getMaxAgeMillis() { return maxAgeMillis; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    // Rows deleted per statement, small so foreground writes can interleave between batches
+    public int getBatchSize() { return batchSize; }
+}
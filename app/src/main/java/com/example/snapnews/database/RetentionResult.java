@@ -0,0 +1,28 @@
+package com.example.snapnews.database;
+
+public class RetentionResult {
+    private final int rowsDeleted;
+    private final long bytesReclaimed;
+    private final long durationMillis;
+
+    public RetentionResult(int rowsDeleted, long bytesReclaimed, long durationMillis) {
+        this.rowsDeleted = rowsDeleted;
+        this.bytesReclaimed = bytesReclaimed;
+        this.durationMillis = durationMillis;
+    }
+
+    public int getRowsDeleted() { return rowsDeleted; }
+
+    public long getBytesReclaimed() { return bytesReclaimed; }
+
+    public long getDurationMillis() { return durationMillis; }
+
+    @Override
+    public String toString() {
+        return "RetentionResult{" +
+                "rowsDeleted=" + rowsDeleted +
+                ", bytesReclaimed=" + bytesReclaimed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+// Bloom filter over the urlKeys in the articles table, so ArticleUpsert can tell most new articles
+// apart without a lookup. "No" is always right and the article goes straight to INSERT; "maybe"
+// costs the usual lookup. Built from the unique urlKey index inside the first write transaction
+// and fed by every insert after that. Deleted keys stay set - they only make "maybe" a little
+// likelier - and the filter is rebuilt from the table once it holds more keys than it was sized for.
+// Writers hold the database write lock while they use it; the monitor only guards publication.
+final class StoredKeyFilter {
+    private static final String TAG = "StoredKeyFilter";
+
+    // 16 bits and 4 probes per key: about 0.25% false positives at capacity
+    private static final int BITS_PER_KEY = 16;
+    private static final int PROBES = 4;
+    private static final int MIN_BITS = 1 << 16;
+
+    private static final StoredKeyFilter instance = new StoredKeyFilter();
+
+    private long[] words;
+    private int capacity;
+    private int keyCount;
+
+    // The app shares getInstance(); tests build their own
+    StoredKeyFilter() {}
+
+    static StoredKeyFilter getInstance() {
+        return instance;
+    }
+
+    // Call inside a write transaction, before mightContain or add
+    synchronized void ensureLoaded(SQLiteDatabase db) {
+        if (words != null && keyCount <= capacity) {
+            return;
+        }
+
+        Cursor cursor = db.rawQuery("SELECT " + NewsDatabaseHelper.COLUMN_URL_KEY +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES, null);
+        try {
+            int bits = MIN_BITS;
+            while (bits / BITS_PER_KEY < cursor.getCount() * 2) {
+                bits <<= 1;
+            }
+            words = new long[bits / 64];
+            capacity = bits / BITS_PER_KEY;
+            keyCount = 0;
+            while (cursor.moveToNext()) {
+                add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        Log.d(TAG, "Built for " + keyCount + " keys, capacity " + capacity);
+    }
+
+    synchronized boolean mightContain(long urlKey) {
+        int mask = words.length * 64 - 1;
+        // Two halves of the already well-mixed key give the double-hashing probe sequence
+        int h1 = (int) urlKey;
+        int h2 = (int) (urlKey >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized void add(long urlKey) {
+        int mask = words.length * 64 - 1;
+        int h1 = (int) urlKey;
+        int h2 = (int) (urlKey >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            words[bit >>> 6] |= 1L << bit;
+        }
+        keyCount++;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.snapnews.database;
+
+import java.util.Locale;
+
+// Article identity: a canonical form of the URL, hashed to 64 bits and stored in urlKey.
+// Canonicalization folds http into https, lower-cases the host, drops default ports,
+// fragments, trailing slashes and tracking parameters, so the same story fetched with
+// different decorations maps to one row. Only parameters that are tracking on every site are
+// dropped: names like ref or id can select a different article on some hosts. The raw url column is kept for opening the article.
+// At a few thousand rows the chance of two different URLs sharing a key is around 1e-13.
+public final class UrlKey {
+    // Plus every utm_* parameter
+    private static final String[] TRACKING_PARAMS = {"fbclid", "gclid"};
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private UrlKey() {}
+
+    public static long of(String url) {
+        return hash(canonicalize(url));
+    }
+
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return "";
+        }
+
+        String rest = url.trim();
+
+        // Fragment never reaches the server
+        int hashIndex = rest.indexOf('#');
+        if (hashIndex >= 0) {
+            rest = rest.substring(0, hashIndex);
+        }
+
+        int schemeEnd = rest.indexOf("://");
+        if (schemeEnd < 0) {
+            return rest;
+        }
+        String scheme = rest.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        rest = rest.substring(schemeEnd + 3);
+
+        String query = null;
+        int queryIndex = rest.indexOf('?');
+        if (queryIndex >= 0) {
+            query = rest.substring(queryIndex + 1);
+            rest = rest.substring(0, queryIndex);
+        }
+
+        int pathIndex = rest.indexOf('/');
+        String authority = pathIndex >= 0 ? rest.substring(0, pathIndex) : rest;
+        String path = pathIndex >= 0 ? rest.substring(pathIndex) : "/";
+
+        authority = authority.toLowerCase(Locale.ROOT);
+        if (authority.endsWith(":80") || authority.endsWith(":443")) {
+            authority = authority.substring(0, authority.lastIndexOf(':'));
+        }
+
+        while (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        StringBuilder canonical = new StringBuilder(url.length());
+        canonical.append("http".equals(scheme) ? "https" : scheme)
+                .append("://")
+                .append(authority)
+                .append(path);
+
+        String filteredQuery = filterQuery(query);
+        if (!filteredQuery.isEmpty()) {
+            canonical.append('?').append(filteredQuery);
+        }
+        return canonical.toString();
+    }
+
+    // Keeps parameters in their original order, minus utm_*, fbclid and gclid
+    private static String filterQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder filtered = new StringBuilder(query.length());
+        for (String param : query.split("&")) {
+            if (param.isEmpty() || isTrackingParam(param)) {
+                continue;
+            }
+            if (filtered.length() > 0) {
+                filtered.append('&');
+            }
+            filtered.append(param);
+        }
+        return filtered.toString();
+    }
+
+    private static boolean isTrackingParam(String param) {
+        int equalsIndex = param.indexOf('=');
+        String name = (equalsIndex >= 0 ? param.substring(0, equalsIndex) : param).toLowerCase(Locale.ROOT);
+        if (name.startsWith("utm_")) {
+            return true;
+        }
+        for (String tracking : TRACKING_PARAMS) {
+            if (tracking.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // FNV-1a over the UTF-16 code units, then the MurmurHash3 finalizer so that the low bits
+    // are well mixed for hash tables keyed on the result
+    static long hash(String canonical) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < canonical.length(); i++) {
+            char c = canonical.charAt(i);
+            hash ^= c & 0xFF;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,8 +1,6 @@
 package com.example.snapnews.fragment;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -12,24 +10,33 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.snapnews.adapter.NewsAdapter;
+import com.example.snapnews.adapter.PagedScrollListener;
+import com.example.snapnews.database.ArticleChange;
 import com.example.snapnews.database.ArticleDao;
-import com.example.snapnews.database.NewsDatabaseHelper;
+import com.example.snapnews.database.PageKey;
 import com.example.snapnews.databinding.FragmentFavoritesBinding;
 import com.example.snapnews.models.Article;
+import com.example.snapnews.repository.ArticleRepository;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class FavoritesFragment extends Fragment {
     private static final String TAG = "FavoritesFragment";
     private FragmentFavoritesBinding binding;
     private NewsAdapter newsAdapter;
     private List<Article> favoriteArticles = new ArrayList<>();
-    private ArticleDao articleDao;
-    private NewsDatabaseHelper dbHelper;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private ArticleRepository repository;
+
+    // Favorites are read one keyset page at a time as the user scrolls
+    private static final int PAGE_SIZE = 20;
+    private PageKey nextPageKey;
+    private boolean hasMorePages = false;
+    private boolean isLoadingPage = false;
+    // Bumped on every full reload so pages from an older load are dropped
+    private int loadGeneration = 0;
+
+    // Favorites made or removed on any screen are applied row by row instead of reloading the list
+    private final ArticleDao.OnArticlesChangedListener changeListener = this::onArticlesChanged;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -43,17 +50,13 @@ public class FavoritesFragment extends Fragment {
 
         initializeComponents();
         setupRecyclerView();
+        ArticleRepository.addOnArticlesChangedListener(changeListener);
         loadFavorites();
     }
 
     private void initializeComponents() {
-        dbHelper = NewsDatabaseHelper.getInstance(requireContext());
-        articleDao = new ArticleDao(dbHelper);
-
-        executorService = Executors.newFixedThreadPool(1);
-        mainHandler = new Handler(Looper.getMainLooper());
-
-        Log.d(TAG, "Components initialized with SQLite database");
+        repository = ArticleRepository.getInstance(requireContext());
+        Log.d(TAG, "Components initialized with ArticleRepository");
     }
 
     private void setupRecyclerView() {
@@ -63,8 +66,6 @@ public class FavoritesFragment extends Fragment {
             }
         });
 
-        newsAdapter.initializeDatabase(dbHelper);
-
         newsAdapter.setOnItemActionListener(new NewsAdapter.OnItemActionListener() {
             @Override
             public void onShareClick(Article article) {
@@ -90,7 +91,10 @@ public class FavoritesFragment extends Fragment {
             }
         });
 
-        binding.recyclerViewFavorites.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.recyclerViewFavorites.setLayoutManager(layoutManager);
+        binding.recyclerViewFavorites.addOnScrollListener(
+                new PagedScrollListener(layoutManager, this::loadNextPage));
         binding.recyclerViewFavorites.setAdapter(newsAdapter);
 
         Log.d(TAG, "RecyclerView setup completed with database sync");
@@ -98,19 +102,83 @@ public class FavoritesFragment extends Fragment {
 
     private void handleFavoriteRemove(Article article) {
         if (!article.isFavorite()) {
-            // Article was unfavorited, remove from list
-            favoriteArticles.remove(article);
-            newsAdapter.notifyDataSetChanged();
+            // Article was unfavorited, remove from list without waiting for the write
+            int position = favoriteArticles.indexOf(article);
+            if (position >= 0) {
+                removeFavoriteAt(position);
+            }
+        }
+    }
 
-            // Check if list is now empty
-            if (favoriteArticles.isEmpty()) {
-                showEmptyState();
+    private void onArticlesChanged(List<ArticleChange> changes) {
+        if (!isAdded() || binding == null || newsAdapter == null) {
+            return;
+        }
+
+        for (ArticleChange change : changes) {
+            if (change.getKind() != ArticleChange.Kind.FAVORITE) {
+                continue;
             }
 
-            Log.d(TAG, "Article removed from favorites: " + article.getTitle());
+            int position = indexOfChange(change);
+            if (!change.isFavorite()) {
+                if (position >= 0) {
+                    removeFavoriteAt(position);
+                }
+            } else if (position < 0 && change.getArticle() != null && !isLoadingPage) {
+                insertFavorite(change.getArticle(), change.getId());
+            }
         }
     }
 
+    private int indexOfChange(ArticleChange change) {
+        for (int i = 0; i < favoriteArticles.size(); i++) {
+            if (change.matches(favoriteArticles.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeFavoriteAt(int position) {
+        Article removed = favoriteArticles.remove(position);
+        newsAdapter.notifyItemRemoved(position);
+
+        // Check if list is now empty
+        if (favoriteArticles.isEmpty()) {
+            showEmptyState();
+        }
+
+        Log.d(TAG, "Article removed from favorites: " + removed.getTitle());
+    }
+
+    // Slots the article into (timestamp DESC, id DESC) order. Past the last loaded page it is left
+    // for paging to bring in, so it never shows up twice
+    private void insertFavorite(Article article, int id) {
+        article.setId(id);
+        article.setFavorite(true);
+
+        int position = 0;
+        while (position < favoriteArticles.size()) {
+            Article other = favoriteArticles.get(position);
+            if (other.getTimestamp() < article.getTimestamp()
+                    || (other.getTimestamp() == article.getTimestamp() && other.getId() < id)) {
+                break;
+            }
+            position++;
+        }
+        if (position == favoriteArticles.size() && hasMorePages) {
+            return;
+        }
+
+        favoriteArticles.add(position, article);
+        newsAdapter.notifyItemInserted(position);
+        if (favoriteArticles.size() == 1) {
+            showContent();
+        }
+        Log.d(TAG, "Article added to favorites: " + article.getTitle());
+    }
+
     private void shareArticle(Article article) {
         try {
             android.content.Intent shareIntent = new android.content.Intent(android.content.Intent.ACTION_SEND);
@@ -142,66 +210,87 @@ public class FavoritesFragment extends Fragment {
         }
     }
 
-    public void refreshFavorites() {
-        Log.d(TAG, "Refresh favorites called from MainActivity");
-        if (isAdded() && getContext() != null) {
-            loadFavorites();
+    private void loadFavorites() {
+        // Check if fragment is still valid
+        if (!isAdded() || getContext() == null) {
+            Log.w(TAG, "Fragment not ready, skipping favorites load");
+            return;
         }
+
+        showLoading();
+        final int generation = ++loadGeneration;
+        isLoadingPage = true;
+
+        Log.d(TAG, "Loading first page of favorite articles");
+
+        repository.getFavorites(PageKey.FIRST, PAGE_SIZE).whenComplete((favorites, error) -> {
+            // Check if fragment is still valid before updating UI
+            if (!isAdded() || getContext() == null || generation != loadGeneration) {
+                Log.w(TAG, "Fragment not attached or reloaded, skipping favorites UI update");
+                return;
+            }
+
+            hideLoading();
+            isLoadingPage = false;
+
+            if (error != null) {
+                Log.e(TAG, "Error loading favorite articles", error);
+                showEmptyState();
+                return;
+            }
+
+            favoriteArticles.clear();
+            if (!favorites.isEmpty()) {
+                Log.d(TAG, "Loaded " + favorites.size() + " favorite articles");
+                favoriteArticles.addAll(favorites);
+                onPageLoaded(favorites);
+                newsAdapter.notifyDataSetChanged();
+                showContent();
+            } else {
+                Log.d(TAG, "No favorite articles found");
+                hasMorePages = false;
+                newsAdapter.notifyDataSetChanged();
+                showEmptyState();
+            }
+        });
     }
 
-    private void loadFavorites() {
-        // Check if fragment is still valid and executor is available
-        if (!isAdded() || getContext() == null || executorService == null || executorService.isShutdown()) {
-            Log.w(TAG, "Fragment not ready or executor unavailable, skipping favorites load");
+    // Called by the scroll listener as the user nears the end of the loaded favorites
+    private void loadNextPage() {
+        if (!hasMorePages || isLoadingPage || nextPageKey == null || !isAdded()) {
             return;
         }
 
-        showLoading();
+        isLoadingPage = true;
+        final int generation = loadGeneration;
 
-        executorService.execute(() -> {
-            Log.d(TAG, "Loading favorite articles from SQLite database");
-
-            try {
-                List<Article> favorites = articleDao.getFavoriteArticles();
-
-                // Check if fragment is still valid before updating UI
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        // Double check if fragment is still valid
-                        if (!isAdded() || getContext() == null) {
-                            Log.w(TAG, "Fragment not attached, skipping favorites UI update");
-                            return;
-                        }
-
-                        hideLoading();
-
-                        favoriteArticles.clear();
-                        if (favorites != null && !favorites.isEmpty()) {
-                            Log.d(TAG, "Loaded " + favorites.size() + " favorite articles from SQLite");
-                            favoriteArticles.addAll(favorites);
-                            newsAdapter.notifyDataSetChanged();
-                            showContent();
-                        } else {
-                            Log.d(TAG, "No favorite articles found in SQLite database");
-                            showEmptyState();
-                        }
-                    });
-                }
+        repository.getFavorites(nextPageKey, PAGE_SIZE).whenComplete((page, error) -> {
+            if (!isAdded() || newsAdapter == null || generation != loadGeneration) {
+                return;
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading favorite articles from SQLite", e);
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (isAdded() && getContext() != null) {
-                            hideLoading();
-                            showEmptyState();
-                        }
-                    });
-                }
+            isLoadingPage = false;
+            if (error != null) {
+                Log.e(TAG, "Error loading next favorites page", error);
+                return;
             }
+
+            int insertPosition = favoriteArticles.size();
+            favoriteArticles.addAll(page);
+            onPageLoaded(page);
+            newsAdapter.notifyItemRangeInserted(insertPosition, page.size());
+            Log.d(TAG, "Appended page of " + page.size() + " favorite articles");
         });
     }
 
+    private void onPageLoaded(List<Article> page) {
+        hasMorePages = page.size() == PAGE_SIZE;
+        if (!page.isEmpty()) {
+            // Key comes from the page itself so removing rows from the list doesn't shift it
+            nextPageKey = PageKey.after(page.get(page.size() - 1));
+        }
+    }
+
     private void showLoading() {
         Log.d(TAG, "Showing loading state");
         if (binding != null && isAdded()) {
@@ -234,20 +323,10 @@ public class FavoritesFragment extends Fragment {
         }
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        Log.d(TAG, "Fragment resumed - refreshing favorites from SQLite");
-        loadFavorites();
-    }
-
     @Override
     public void onDestroyView() {
         Log.d(TAG, "onDestroyView called");
-
-        if (newsAdapter != null) {
-            newsAdapter.cleanup();
-        }
+        ArticleRepository.removeOnArticlesChangedListener(changeListener);
 
         super.onDestroyView();
         binding = null;
@@ -256,17 +335,6 @@ public class FavoritesFragment extends Fragment {
     @Override
     public void onDestroy() {
         Log.d(TAG, "onDestroy called");
-
-        if (newsAdapter != null) {
-            newsAdapter.cleanup();
-        }
-
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            Log.d(TAG, "ExecutorService shutdown");
-        }
-
         super.onDestroy();
-        Log.d(TAG, "FavoritesFragment destroyed - SQLite connections will be closed automatically");
     }
 }
\ No newline at end of file
@@ -5,8 +5,6 @@ import android.content.Intent;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -17,26 +15,20 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
-import com.example.snapnews.activity.MainActivity;
-import com.example.snapnews.network.RetrofitClient;
 import com.example.snapnews.R;
 import com.example.snapnews.adapter.FilterChipAdapter;
 import com.example.snapnews.adapter.NewsAdapter;
-import com.example.snapnews.database.ArticleDao;
-import com.example.snapnews.database.NewsDatabaseHelper;
+import com.example.snapnews.adapter.PagedScrollListener;
+import com.example.snapnews.database.PageKey;
 import com.example.snapnews.databinding.FragmentHomeBinding;
 import com.example.snapnews.models.Article;
 import com.example.snapnews.models.FilterChip;
-import com.example.snapnews.models.NewsResponse;
-import com.example.snapnews.network.NewsApiService;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.snapnews.repository.ArticleRepository;
+import com.example.snapnews.repository.NewsApiException;
 import java.util.ArrayList;
 import java.util.List;
-import com.example.snapnews.utils.ApiKeyManager;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 public class HomeFragment extends Fragment {
     private static final String TAG = "HomeFragment";
@@ -45,16 +37,24 @@ public class HomeFragment extends Fragment {
     private FilterChipAdapter filterChipAdapter;
     private List<Article> articles = new ArrayList<>();
     private List<FilterChip> filterChips = new ArrayList<>();
-    private NewsApiService newsApiService;
 
-    private ArticleDao articleDao;
-    private NewsDatabaseHelper dbHelper;
-
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private ArticleRepository repository;
     private FilterChip currentFilter;
 
-    private Call<NewsResponse> currentCall;
+    // This screen's view of a headlines load - cancelling it leaves the shared request running
+    private CompletableFuture<List<Article>> currentRequest;
+    // Bumped whenever a headlines load is started or cancelled, so its late batches are dropped
+    private int headlinesGeneration = 0;
+    // Whether the running load has put its first streamed batch on screen yet
+    private boolean showingStreamedHeadlines = false;
+
+    // Offline feed paging - cached articles are read one keyset page at a time
+    private static final int CACHE_PAGE_SIZE = 20;
+    private PageKey nextPageKey;
+    private boolean hasMoreCachedPages = false;
+    private boolean isLoadingCachedPage = false;
+    // Bumped whenever the list stops showing the cached feed so late pages are dropped
+    private int cacheGeneration = 0;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -74,16 +74,8 @@ public class HomeFragment extends Fragment {
     }
 
     private void initializeComponents() {
-        newsApiService = RetrofitClient.getNewsApiService();
-
-        // Initialize NewsDatabaseHelper
-        dbHelper = NewsDatabaseHelper.getInstance(requireContext());
-        articleDao = new ArticleDao(dbHelper);
-
-        // Initialize threading components
-        executorService = Executors.newFixedThreadPool(2);
-        mainHandler = new Handler(Looper.getMainLooper());
-        Log.d(TAG, "Components initialized with NewsDatabaseHelper");
+        repository = ArticleRepository.getInstance(requireContext());
+        Log.d(TAG, "Components initialized with ArticleRepository");
     }
 
     private void setupFilterChips() {
@@ -123,8 +115,6 @@ public class HomeFragment extends Fragment {
             }
         });
 
-        newsAdapter.initializeDatabase(dbHelper);
-
         newsAdapter.setOnItemActionListener(new NewsAdapter.OnItemActionListener() {
             @Override
             public void onShareClick(Article article) {
@@ -149,7 +139,10 @@ public class HomeFragment extends Fragment {
             }
         });
 
-        binding.recyclerViewNews.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager newsLayoutManager = new LinearLayoutManager(getContext());
+        binding.recyclerViewNews.setLayoutManager(newsLayoutManager);
+        binding.recyclerViewNews.addOnScrollListener(
+                new PagedScrollListener(newsLayoutManager, this::loadNextCachedPage));
         binding.recyclerViewNews.setAdapter(newsAdapter);
 
         Log.d(TAG, "RecyclerViews setup completed with database sync");
@@ -159,10 +152,7 @@ public class HomeFragment extends Fragment {
         Log.d(TAG, "Favorite changed for article: " + article.getTitle() +
                 " -> " + article.isFavorite());
 
-        // Notify MainActivity about favorite change (optional)
-        if (getActivity() != null && getActivity() instanceof MainActivity) {
-            ((MainActivity) getActivity()).onFavoriteChanged(article);
-        }
+        // Other screens pick the change up from the DAO once the write commits
     }
 
     private void shareArticle(Article article) {
@@ -198,7 +188,7 @@ public class HomeFragment extends Fragment {
     private void setupSwipeRefresh() {
         binding.swipeRefreshLayout.setOnRefreshListener(() -> {
             Log.d(TAG, "Swipe refresh triggered - forcing API call");
-            loadNewsFromApi();
+            loadNewsFromApi(true);
         });
 
         binding.swipeRefreshLayout.setColorSchemeResources(
@@ -207,59 +197,6 @@ public class HomeFragment extends Fragment {
         );
     }
 
-    private void loadFavoriteStatusForArticles() {
-        if (executorService == null || executorService.isShutdown() || !isAdded()) {
-            Log.w(TAG, "Cannot load favorite status - fragment not ready");
-            return;
-        }
-
-        Log.d(TAG, "Loading favorite status for " + articles.size() + " articles");
-
-        executorService.execute(() -> {
-            try {
-                // Load favorite status untuk semua articles dari database
-                int updatedCount = 0;
-                for (Article article : articles) {
-                    if (article.getUrl() != null) {
-                        Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-                        if (existingArticle != null) {
-                            boolean oldStatus = article.isFavorite();
-                            article.setFavorite(existingArticle.isFavorite());
-                            article.setId(existingArticle.getId());
-
-                            if (oldStatus != article.isFavorite()) {
-                                updatedCount++;
-                                Log.d(TAG, "Updated favorite status for: " + article.getTitle() +
-                                        " -> " + article.isFavorite());
-                            }
-                        }
-                    }
-                }
-
-                // Update UI di main thread
-                if (isAdded() && mainHandler != null) {
-                    final int finalUpdatedCount = updatedCount;
-                    mainHandler.post(() -> {
-                        if (isAdded() && newsAdapter != null) {
-                            newsAdapter.notifyDataSetChanged();
-                            Log.d(TAG, "Favorite status loaded - " + finalUpdatedCount + " articles updated");
-                        }
-                    });
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading favorite status", e);
-            }
-        });
-    }
-
-    private void refreshAllFavoriteStatuses() {
-        if (newsAdapter != null) {
-            Log.d(TAG, "Refreshing all favorite statuses via NewsAdapter");
-            newsAdapter.refreshFavoriteStatuses();
-        }
-    }
-
     private void onFilterChipClicked(FilterChip filterChip, int position) {
         Log.d(TAG, "=== FILTER CHANGE TRIGGERED ===");
         Log.d(TAG, "Old filter: " + (currentFilter != null ? currentFilter.getName() : "null"));
@@ -268,16 +205,24 @@ public class HomeFragment extends Fragment {
 
         currentFilter = filterChip;
 
-        // Cancel current network call if any
-        cancelCurrentCall();
+        // Stop waiting for the previous filter's headlines
+        cancelCurrentRequest();
 
         // Clear existing articles to show change immediately
+        stopCachedPaging();
         articles.clear();
         newsAdapter.notifyDataSetChanged();
 
-        // Force API call for new filter
-        Log.d(TAG, "FORCING API CALL for filter: " + filterChip.getName());
-        loadNewsFromApi();
+        // Offline, switch straight to the cached articles of this category
+        if (!isNetworkAvailable()) {
+            Log.d(TAG, "Offline - loading cached articles for filter: " + filterChip.getName());
+            loadNewsFromDatabase();
+            return;
+        }
+
+        // Headlines fetched moments ago for this filter come back from memory
+        Log.d(TAG, "Loading headlines for filter: " + filterChip.getName());
+        loadNewsFromApi(false);
     }
 
     private void loadNews() {
@@ -288,14 +233,14 @@ public class HomeFragment extends Fragment {
         Log.d(TAG, "Network check result: " + networkAvailable);
 
         if (networkAvailable) {
-            loadNewsFromApi();
+            loadNewsFromApi(false);
         } else {
             Log.w(TAG, "No network available, loading from NewsDatabaseHelper");
             loadNewsFromDatabase();
         }
     }
 
-    private void loadNewsFromApi() {
+    private void loadNewsFromApi(boolean forceRefresh) {
         // Check if fragment is still valid
         if (!isAdded() || getContext() == null) {
             Log.w(TAG, "Fragment not attached, skipping API call");
@@ -304,212 +249,186 @@ public class HomeFragment extends Fragment {
 
         showLoading();
 
-        String category = currentFilter.getCategory();
-        String country = currentFilter.getCountry();
+        final FilterChip filter = currentFilter;
+        String category = filter.getCategory();
+        String country = filter.getCountry();
 
         Log.d(TAG, "=== API CALL DETAILS ===");
-        Log.d(TAG, "Filter: " + currentFilter.getName());
+        Log.d(TAG, "Filter: " + filter.getName());
         Log.d(TAG, "Category: " + category);
         Log.d(TAG, "Country: " + country);
 
-        // Cancel previous call
-        cancelCurrentCall();
-
-        currentCall = newsApiService.getTopHeadlines(
-                country,
-                category,
-                20,
-                1,
-                ApiKeyManager.getNewsApiKey()
-        );
-
-        String url = currentCall.request().url().toString();
-        Log.d(TAG, "Full API URL: " + url);
-
-        currentCall.enqueue(new Callback<NewsResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<NewsResponse> call, @NonNull Response<NewsResponse> response) {
-                Log.d(TAG, "=== API RESPONSE ===");
-                Log.d(TAG, "Response code: " + response.code());
-                Log.d(TAG, "Response successful: " + response.isSuccessful());
-
-                // Check if fragment is still valid
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring response");
-                    return;
-                }
-
-                hideLoading();
-
-                if (response.isSuccessful() && response.body() != null) {
-                    NewsResponse newsResponse = response.body();
-                    Log.d(TAG, "Response status: " + newsResponse.getStatus());
-                    Log.d(TAG, "Total results: " + newsResponse.getTotalResults());
-
-                    if ("ok".equals(newsResponse.getStatus()) && newsResponse.getArticles() != null) {
-                        int articleCount = newsResponse.getArticles().size();
-                        Log.d(TAG, "Articles received: " + articleCount);
-
-                        // Clear and add new articles
-                        articles.clear();
-                        articles.addAll(newsResponse.getArticles());
-
-                        Log.d(TAG, "Articles added to list. Current list size: " + articles.size());
-
-                        // Save to NewsDatabaseHelper first
-                        saveArticlesToDatabase(newsResponse.getArticles());
-
-                        // IMPROVED: Load favorite statuses after saving
-                        loadFavoriteStatusForArticles();
-
-                        // Notify adapter
-                        newsAdapter.notifyDataSetChanged();
-                        Log.d(TAG, "Adapter notified");
+        cancelCurrentRequest();
+
+        final int generation = ++headlinesGeneration;
+        showingStreamedHeadlines = false;
+        CompletableFuture<List<Article>> request = repository.getHeadlines(country, category, forceRefresh,
+                batch -> showHeadlinesBatch(generation, batch));
+        currentRequest = request;
+        request.whenComplete((headlines, error) -> {
+            if (error instanceof CancellationException) {
+                // Superseded by another filter or refresh
+                return;
+            }
+            if (currentRequest == request) {
+                currentRequest = null;
+            }
 
-                        showContent();
+            // Check if fragment is still valid
+            if (!isAdded() || getContext() == null) {
+                Log.w(TAG, "Fragment not attached, ignoring headlines");
+                return;
+            }
 
-                        String message = "✅ " + currentFilter.getName() + ": " + articleCount + " articles loaded";
-                        Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-                        Log.d(TAG, message);
+            hideLoading();
 
-                    } else {
-                        String errorMsg = "API returned error - Status: " + newsResponse.getStatus();
-                        if (newsResponse.getMessage() != null) {
-                            errorMsg += ", Message: " + newsResponse.getMessage();
-                        }
-                        Log.e(TAG, errorMsg);
-                        handleApiError(newsResponse.getMessage());
-                    }
+            if (error != null) {
+                Throwable cause = ArticleRepository.causeOf(error);
+                if (cause instanceof NewsApiException) {
+                    handleApiError(cause.getMessage() != null
+                            ? cause.getMessage() : "Failed to load " + filter.getName() + " news");
                 } else {
-                    String errorMsg = "Response not successful - Code: " + response.code();
-                    Log.e(TAG, errorMsg);
-
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            Log.e(TAG, "Error body: " + errorBody);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-
-                    handleApiError("Failed to load " + currentFilter.getName() + " news");
+                    Log.e(TAG, "=== API CALL FAILED ===", cause);
+                    handleNetworkError();
                 }
-
-                // Clear current call reference
-                currentCall = null;
+                return;
             }
 
-            @Override
-            public void onFailure(@NonNull Call<NewsResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "=== API CALL FAILED ===", t);
+            Log.d(TAG, "Articles received: " + headlines.size());
 
-                // Check if fragment is still valid
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring failure");
-                    return;
-                }
+            // Replace the list - it no longer shows the cached feed
+            stopCachedPaging();
+            articles.clear();
+            articles.addAll(headlines);
+            newsAdapter.notifyDataSetChanged();
 
-                hideLoading();
-                handleNetworkError();
+            showContent();
 
-                // Clear current call reference
-                currentCall = null;
-            }
+            String message = "✅ " + filter.getName() + ": " + headlines.size() + " articles loaded";
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+            Log.d(TAG, message);
         });
     }
 
-    private void cancelCurrentCall() {
-        if (currentCall != null && !currentCall.isCanceled()) {
-            currentCall.cancel();
-            currentCall = null;
-            Log.d(TAG, "Previous API call canceled");
+    // The first batch replaces whatever was showing, so the screen fills while the rest arrives
+    private void showHeadlinesBatch(int generation, List<Article> batch) {
+        if (generation != headlinesGeneration || !isAdded() || getContext() == null) {
+            return;
+        }
+
+        if (!showingStreamedHeadlines) {
+            showingStreamedHeadlines = true;
+            stopCachedPaging();
+            articles.clear();
+            newsAdapter.notifyDataSetChanged();
+            hideLoading();
+            showContent();
+        }
+        int start = articles.size();
+        articles.addAll(batch);
+        newsAdapter.notifyItemRangeInserted(start, batch.size());
+    }
+
+    private void cancelCurrentRequest() {
+        headlinesGeneration++;
+        if (currentRequest != null) {
+            currentRequest.cancel(false);
+            currentRequest = null;
+            Log.d(TAG, "Previous headlines request canceled");
         }
     }
 
     private void loadNewsFromDatabase() {
-        // Check if fragment is still valid and executor is available
-        if (!isAdded() || getContext() == null || executorService == null || executorService.isShutdown()) {
-            Log.w(TAG, "Fragment not ready or executor unavailable, skipping database load");
+        // Check if fragment is still valid
+        if (!isAdded() || getContext() == null) {
+            Log.w(TAG, "Fragment not ready, skipping database load");
             return;
         }
 
         showLoading();
+        stopCachedPaging();
+        isLoadingCachedPage = true;
+        final int generation = cacheGeneration;
+        final FilterChip filter = currentFilter;
+
+        Log.d(TAG, "Loading first cached page for category: " + filter.getCategory());
+
+        repository.getCachedArticles(filter.getCategory(), PageKey.FIRST, CACHE_PAGE_SIZE)
+                .whenComplete((cachedArticles, error) -> {
+                    // Check if fragment is still valid before updating UI
+                    if (!isAdded() || getContext() == null || generation != cacheGeneration) {
+                        Log.w(TAG, "Fragment not attached or feed changed, skipping UI update");
+                        return;
+                    }
 
-        executorService.execute(() -> {
-            Log.d(TAG, "Loading news from NewsDatabaseHelper");
-
-            try {
-                List<Article> cachedArticles = articleDao.getAllArticles();
-
-                // Check if fragment is still valid before updating UI
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        // Double check if fragment is still valid
-                        if (!isAdded() || getContext() == null) {
-                            Log.w(TAG, "Fragment not attached, skipping UI update");
-                            return;
-                        }
-
-                        hideLoading();
-
-                        if (cachedArticles != null && !cachedArticles.isEmpty()) {
-                            Log.d(TAG, "Loaded " + cachedArticles.size() + " articles from NewsDatabaseHelper");
-                            articles.clear();
-                            articles.addAll(cachedArticles);
-                            newsAdapter.notifyDataSetChanged();
-
-                            // ADDED: Refresh favorite statuses after loading from database
-                            refreshAllFavoriteStatuses();
-
-                            showContent();
-
-                            String message = "📱 Offline: showing cached " + currentFilter.getName() + " news";
-                            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-                        } else {
-                            Log.w(TAG, "No cached articles found in NewsDatabaseHelper");
-                            showError("No cached news available", "Connect to internet and pull down to refresh");
-                        }
-                    });
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading from NewsDatabaseHelper", e);
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (isAdded() && getContext() != null) {
-                            hideLoading();
-                            showError("Database Error", "Error loading cached news");
-                        }
-                    });
-                }
-            }
-        });
+                    hideLoading();
+                    isLoadingCachedPage = false;
+
+                    if (error != null) {
+                        Log.e(TAG, "Error loading cached articles", error);
+                        showError("Database Error", "Error loading cached news");
+                        return;
+                    }
+
+                    if (!cachedArticles.isEmpty()) {
+                        Log.d(TAG, "Loaded " + cachedArticles.size() + " cached articles");
+                        articles.clear();
+                        articles.addAll(cachedArticles);
+                        onCachedPageLoaded(cachedArticles);
+                        newsAdapter.notifyDataSetChanged();
+
+                        showContent();
+
+                        String message = "📱 Offline: showing cached " + filter.getName() + " news";
+                        Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                    } else {
+                        Log.w(TAG, "No cached articles found");
+                        showError("No cached news available", "Connect to internet and pull down to refresh");
+                    }
+                });
     }
 
-    private void saveArticlesToDatabase(List<Article> articles) {
-        if (executorService == null || executorService.isShutdown() || !isAdded()) {
-            Log.w(TAG, "Executor unavailable or fragment not attached, skipping database save");
+    // Called by the scroll listener as the user nears the end of the cached feed
+    private void loadNextCachedPage() {
+        if (!hasMoreCachedPages || isLoadingCachedPage || nextPageKey == null || !isAdded()) {
             return;
         }
 
-        executorService.execute(() -> {
-            try {
-                Log.d(TAG, "Saving " + articles.size() + " articles to NewsDatabaseHelper");
+        isLoadingCachedPage = true;
+        final int generation = cacheGeneration;
 
-                // Set timestamp for each article
-                for (Article article : articles) {
-                    if (article.getTimestamp() == 0) {
-                        article.setTimestamp(System.currentTimeMillis());
+        repository.getCachedArticles(currentFilter.getCategory(), nextPageKey, CACHE_PAGE_SIZE)
+                .whenComplete((page, error) -> {
+                    if (!isAdded() || newsAdapter == null || generation != cacheGeneration) {
+                        return;
                     }
-                }
 
-                articleDao.insertArticles(articles);
-                Log.d(TAG, "Articles saved successfully to NewsDatabaseHelper");
+                    isLoadingCachedPage = false;
+                    if (error != null) {
+                        Log.e(TAG, "Error loading next cached page", error);
+                        return;
+                    }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error saving articles to NewsDatabaseHelper", e);
-            }
-        });
+                    int insertPosition = articles.size();
+                    articles.addAll(page);
+                    onCachedPageLoaded(page);
+                    newsAdapter.notifyItemRangeInserted(insertPosition, page.size());
+                    Log.d(TAG, "Appended cached page of " + page.size() + " articles");
+                });
+    }
+
+    private void onCachedPageLoaded(List<Article> page) {
+        hasMoreCachedPages = page.size() == CACHE_PAGE_SIZE;
+        if (!page.isEmpty()) {
+            nextPageKey = PageKey.after(page.get(page.size() - 1));
+        }
+    }
+
+    private void stopCachedPaging() {
+        cacheGeneration++;
+        nextPageKey = null;
+        hasMoreCachedPages = false;
+        isLoadingCachedPage = false;
     }
 
     private void showLoading() {
@@ -597,22 +516,12 @@ public class HomeFragment extends Fragment {
         }
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        Log.d(TAG, "Fragment resumed - refreshing favorite status");
-
-        if (articles != null && !articles.isEmpty()) {
-            refreshAllFavoriteStatuses();
-        }
-    }
-
     @Override
     public void onDestroyView() {
         Log.d(TAG, "onDestroyView called");
 
-        // Cancel any ongoing network calls
-        cancelCurrentCall();
+        // Stop waiting for headlines - the request itself stays shared with other screens
+        cancelCurrentRequest();
 
         super.onDestroyView();
         binding = null;
@@ -622,19 +531,9 @@ public class HomeFragment extends Fragment {
     public void onDestroy() {
         Log.d(TAG, "onDestroy called");
 
-        // Cancel any ongoing network calls
-        cancelCurrentCall();
-
-        if (newsAdapter != null) {
-            newsAdapter.cleanup();
-        }
-
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            Log.d(TAG, "ExecutorService shutdown");
-        }
+        cancelCurrentRequest();
 
         super.onDestroy();
-        Log.d(TAG, "HomeFragment destroyed - NewsDatabaseHelper connections will be closed automatically");
+        Log.d(TAG, "HomeFragment destroyed");
     }
 }
\ No newline at end of file
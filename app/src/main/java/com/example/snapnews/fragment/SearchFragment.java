@@ -21,22 +21,16 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.snapnews.R;
 import com.example.snapnews.adapter.FilterChipAdapter;
 import com.example.snapnews.adapter.NewsAdapter;
-import com.example.snapnews.database.ArticleDao;
-import com.example.snapnews.database.NewsDatabaseHelper;
+import com.example.snapnews.database.PageKey;
 import com.example.snapnews.databinding.FragmentSearchBinding;
 import com.example.snapnews.models.Article;
 import com.example.snapnews.models.FilterChip;
-import com.example.snapnews.models.NewsResponse;
-import com.example.snapnews.network.RetrofitClient;
-import com.example.snapnews.network.NewsApiService;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.snapnews.repository.ArticleRepository;
+import com.example.snapnews.repository.NewsApiException;
 import java.util.ArrayList;
 import java.util.List;
-import com.example.snapnews.utils.ApiKeyManager;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 public class SearchFragment extends Fragment {
     private static final String TAG = "SearchFragment";
@@ -45,11 +39,7 @@ public class SearchFragment extends Fragment {
     private FilterChipAdapter categoryChipAdapter;
     private List<Article> searchResults = new ArrayList<>();
     private List<FilterChip> categoryFilters = new ArrayList<>();
-    private NewsApiService newsApiService;
-    private ArticleDao articleDao;
-    private NewsDatabaseHelper dbHelper;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private ArticleRepository repository;
     private Handler searchHandler;
     private Runnable searchRunnable;
 
@@ -58,12 +48,16 @@ public class SearchFragment extends Fragment {
     private int selectedCategoryPosition = -1;
     private boolean isRestoringState = false;
 
-    private Call<NewsResponse> currentCall;
+    // This screen's view of the running load - cancelling it leaves the shared request running
+    private CompletableFuture<List<Article>> currentRequest;
 
     private static final String KEY_SEARCH_QUERY = "search_query";
     private static final String KEY_SELECTED_CATEGORY_POSITION = "selected_category_position";
     private static final String KEY_HAS_RESULTS = "has_results";
 
+    // Offline results are not paged here, so cap them like the FTS search does
+    private static final int OFFLINE_RESULT_LIMIT = 100;
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentSearchBinding.inflate(inflater, container, false);
@@ -136,17 +130,10 @@ public class SearchFragment extends Fragment {
     }
 
     private void initializeComponents() {
-        newsApiService = RetrofitClient.getNewsApiService();
-
-        // Initialize SQLite Database Helper
-        dbHelper = NewsDatabaseHelper.getInstance(requireContext());
-        articleDao = new ArticleDao(dbHelper);
-
-        executorService = Executors.newFixedThreadPool(2);
-        mainHandler = new Handler(Looper.getMainLooper());
+        repository = ArticleRepository.getInstance(requireContext());
         searchHandler = new Handler(Looper.getMainLooper());
 
-        Log.d(TAG, "Components initialized with SQLite database");
+        Log.d(TAG, "Components initialized with ArticleRepository");
     }
 
     private void setupRecyclerViews() {
@@ -156,8 +143,6 @@ public class SearchFragment extends Fragment {
             }
         });
 
-        newsAdapter.initializeDatabase(dbHelper);
-
         newsAdapter.setOnItemActionListener(new NewsAdapter.OnItemActionListener() {
             @Override
             public void onShareClick(Article article) {
@@ -279,8 +264,8 @@ public class SearchFragment extends Fragment {
         // Update NewsAdapter with current category for badge display
         newsAdapter.setCurrentCategory(currentCategory);
 
-        // Cancel current call
-        cancelCurrentCall();
+        // Stop waiting for the previous category's results
+        cancelCurrentRequest();
 
         // Auto-refresh with current query or filter-based search
         String query = binding.editTextSearch.getText().toString().trim();
@@ -374,95 +359,63 @@ public class SearchFragment extends Fragment {
         showLoading();
         Log.d(TAG, "Loading filtered news online");
 
-        // Cancel previous call
-        cancelCurrentCall();
+        cancelCurrentRequest();
 
-        // Determine parameters for filtered news
-        String category = null;
+        // Same request as the Home chip for this category, so either screen may already have it
+        final String category = getSelectedCategory();
         String country = "us"; // Default country
 
-        if (currentCategory != null && currentCategory.getCategory() != null) {
-            category = currentCategory.getCategory();
-        }
-
-        // Use top-headlines for filtered news
-        currentCall = newsApiService.getTopHeadlines(
-                country,
-                category,
-                30, // More articles for better variety
-                1,
-                ApiKeyManager.getNewsApiKey()
-        );
+        CompletableFuture<List<Article>> request = repository.getHeadlines(country, category, false);
+        currentRequest = request;
+        request.whenComplete((articles, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (currentRequest == request) {
+                currentRequest = null;
+            }
 
-        currentCall.enqueue(new Callback<NewsResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<NewsResponse> call, @NonNull Response<NewsResponse> response) {
-                Log.d(TAG, "Filtered news API response received");
+            if (!isAdded() || getContext() == null) {
+                Log.w(TAG, "Fragment not attached, ignoring filtered news response");
+                return;
+            }
 
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring filtered news response");
-                    return;
-                }
+            hideLoading();
 
-                hideLoading();
-
-                if (response.isSuccessful() && response.body() != null) {
-                    NewsResponse newsResponse = response.body();
-
-                    if ("ok".equals(newsResponse.getStatus()) && newsResponse.getArticles() != null) {
-                        List<Article> articles = newsResponse.getArticles();
-
-                        Log.d(TAG, "Filtered news found " + articles.size() + " articles");
-
-                        searchResults.clear();
-                        searchResults.addAll(articles);
-                        newsAdapter.notifyDataSetChanged();
-
-                        // ADDED: Load favorite statuses after loading articles
-                        loadFavoriteStatusForArticles();
-
-                        if (searchResults.isEmpty()) {
-                            showEmptyState("No articles found", "Try different category or check back later");
-                        } else {
-                            showResults();
-                            String message = "📰 Showing " + articles.size() + " articles";
-                            if (currentCategory != null && currentCategory.getCategory() != null) {
-                                message += " in " + currentCategory.getName();
-                            }
-                            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        Log.e(TAG, "Filtered news API error: " + newsResponse.getMessage());
-                        showError("News Error", newsResponse.getMessage());
-                    }
+            if (error != null) {
+                Throwable cause = ArticleRepository.causeOf(error);
+                if (cause instanceof NewsApiException) {
+                    Log.e(TAG, "Filtered news API error: " + cause.getMessage());
+                    showError("News Error", cause.getMessage() != null ? cause.getMessage() : "Failed to load news");
                 } else {
-                    Log.e(TAG, "Filtered news API response not successful: " + response.code());
-                    showError("Network Error", "Failed to load news");
+                    Log.e(TAG, "Filtered news API call failed", cause);
+                    showError("Network Error", "Please check your internet connection");
+                    loadFilteredNewsOffline();
                 }
-
-                currentCall = null;
+                return;
             }
 
-            @Override
-            public void onFailure(@NonNull Call<NewsResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "Filtered news API call failed", t);
+            Log.d(TAG, "Filtered news found " + articles.size() + " articles");
 
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring filtered news failure");
-                    return;
-                }
+            searchResults.clear();
+            searchResults.addAll(articles);
+            newsAdapter.notifyDataSetChanged();
 
-                hideLoading();
-                showError("Network Error", "Please check your internet connection");
-                loadFilteredNewsOffline();
-
-                currentCall = null;
+            if (searchResults.isEmpty()) {
+                showEmptyState("No articles found", "Try different category or check back later");
+            } else {
+                showResults();
+                String message = "📰 Showing " + articles.size() + " articles";
+                if (currentCategory != null && currentCategory.getCategory() != null) {
+                    message += " in " + currentCategory.getName();
+                }
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     private void loadFilteredNewsOffline() {
-        if (!isAdded() || getContext() == null || executorService == null || executorService.isShutdown()) {
+        if (!isAdded() || getContext() == null) {
             Log.w(TAG, "Fragment not ready for offline filtered news load");
             return;
         }
@@ -470,52 +423,9 @@ public class SearchFragment extends Fragment {
         showLoading();
         Log.d(TAG, "Loading filtered news offline");
 
-        executorService.execute(() -> {
-            try {
-                List<Article> cachedArticles = articleDao.getAllArticles();
-                List<Article> filteredResults = filterResultsByCategory(cachedArticles);
-
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (!isAdded() || getContext() == null) {
-                            Log.w(TAG, "Fragment not attached, skipping offline filtered news UI update");
-                            return;
-                        }
-
-                        hideLoading();
-                        searchResults.clear();
-
-                        if (filteredResults != null && !filteredResults.isEmpty()) {
-                            Log.d(TAG, "Found " + filteredResults.size() + " cached articles with category filter");
-                            searchResults.addAll(filteredResults);
-                            newsAdapter.notifyDataSetChanged();
-
-                            // ADDED: Load favorite statuses for offline results
-                            refreshAllFavoriteStatuses();
-
-                            showResults();
-
-                            String message = "📱 Offline: " + filteredResults.size() + " cached articles";
-                            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-                        } else {
-                            Log.d(TAG, "No cached articles found with current category");
-                            showEmptyState("No cached articles", "Connect to internet for latest news");
-                        }
-                    });
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading filtered news offline", e);
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (isAdded() && getContext() != null) {
-                            hideLoading();
-                            showError("Database Error", "Error loading cached news");
-                        }
-                    });
-                }
-            }
-        });
+        showCachedResults(repository.getCachedArticles(getSelectedCategory(), PageKey.FIRST, OFFLINE_RESULT_LIMIT),
+                () -> showEmptyState("No cached articles", "Connect to internet for latest news"),
+                "Error loading cached news", true);
     }
 
     private void searchOnlineWithFilters(String query) {
@@ -527,8 +437,7 @@ public class SearchFragment extends Fragment {
         showLoading();
         Log.d(TAG, "Searching online with category filter for: " + query);
 
-        // Cancel previous call
-        cancelCurrentCall();
+        cancelCurrentRequest();
 
         // Build search query with category if needed
         String searchQuery = query;
@@ -536,146 +445,131 @@ public class SearchFragment extends Fragment {
             searchQuery += " " + currentCategory.getCategory();
         }
 
-        currentCall = newsApiService.searchNews(
-                searchQuery,
-                "publishedAt",
-                50,
-                1,
-                ApiKeyManager.getNewsApiKey()
-        );
-
-        currentCall.enqueue(new Callback<NewsResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<NewsResponse> call, @NonNull Response<NewsResponse> response) {
-                Log.d(TAG, "Search with category filter API response received for query: " + query);
-
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring search with filters response");
-                    return;
-                }
-
-                hideLoading();
-
-                if (response.isSuccessful() && response.body() != null) {
-                    NewsResponse newsResponse = response.body();
-
-                    if ("ok".equals(newsResponse.getStatus()) && newsResponse.getArticles() != null) {
-                        List<Article> filteredResults = filterResultsByCategory(newsResponse.getArticles());
-
-                        Log.d(TAG, "Search with category filter found " + filteredResults.size() + " articles");
+        CompletableFuture<List<Article>> request = repository.searchNews(searchQuery);
+        currentRequest = request;
+        request.whenComplete((articles, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (currentRequest == request) {
+                currentRequest = null;
+            }
 
-                        searchResults.clear();
-                        searchResults.addAll(filteredResults);
-                        newsAdapter.notifyDataSetChanged();
+            if (!isAdded() || getContext() == null) {
+                Log.w(TAG, "Fragment not attached, ignoring search with filters response");
+                return;
+            }
 
-                        // ADDED: Load favorite statuses after loading search results
-                        loadFavoriteStatusForArticles();
+            hideLoading();
 
-                        if (searchResults.isEmpty()) {
-                            showEmptyState("No results found", "Try different keywords or category");
-                        } else {
-                            showResults();
-                            String message = "🔍 Found " + filteredResults.size() + " results for '" + query + "'";
-                            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        Log.e(TAG, "Search with category filter API error: " + newsResponse.getMessage());
-                        showError("Search Error", newsResponse.getMessage());
-                    }
+            if (error != null) {
+                Throwable cause = ArticleRepository.causeOf(error);
+                if (cause instanceof NewsApiException) {
+                    Log.e(TAG, "Search with category filter API error: " + cause.getMessage());
+                    showError("Search Error", cause.getMessage() != null ? cause.getMessage() : "Failed to search news");
                 } else {
-                    Log.e(TAG, "Search with category filter API response not successful: " + response.code());
-                    showError("Search Error", "Failed to search news");
+                    Log.e(TAG, "Search with category filter API call failed", cause);
+                    showError("Network Error", "Please check your internet connection");
+                    searchOfflineWithFilters(query);
                 }
-
-                currentCall = null;
+                return;
             }
 
-            @Override
-            public void onFailure(@NonNull Call<NewsResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "Search with category filter API call failed", t);
+            List<Article> filteredResults = filterResultsByCategory(articles);
+            Log.d(TAG, "Search with category filter found " + filteredResults.size() + " articles");
 
-                if (!isAdded() || getContext() == null) {
-                    Log.w(TAG, "Fragment not attached, ignoring search with filters failure");
-                    return;
-                }
-
-                hideLoading();
-                showError("Network Error", "Please check your internet connection");
-                searchOfflineWithFilters(query);
+            searchResults.clear();
+            searchResults.addAll(filteredResults);
+            newsAdapter.notifyDataSetChanged();
 
-                currentCall = null;
+            if (searchResults.isEmpty()) {
+                showEmptyState("No results found", "Try different keywords or category");
+            } else {
+                showResults();
+                String message = "🔍 Found " + filteredResults.size() + " results for '" + query + "'";
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     private void searchOfflineWithFilters(String query) {
-        if (!isAdded() || getContext() == null || executorService == null || executorService.isShutdown()) {
+        if (!isAdded() || getContext() == null) {
             Log.w(TAG, "Fragment not ready for offline search with filters");
             return;
         }
 
         showLoading();
         Log.d(TAG, "Searching offline with category filter for: " + query);
+        final String category = getSelectedCategory();
+
+        CompletableFuture<List<Article>> results = query.isEmpty()
+                ? repository.getCachedArticles(category, PageKey.FIRST, OFFLINE_RESULT_LIMIT)
+                : repository.searchCached(query, category, OFFLINE_RESULT_LIMIT);
+        showCachedResults(results,
+                () -> showEmptyState("No offline results", "Connect to internet for more results"),
+                "Error searching cached news", false);
+    }
+
+    // Cached rows already carry their stored favorite flags
+    private void showCachedResults(CompletableFuture<List<Article>> results, Runnable onEmpty,
+                                   String errorMessage, boolean announceCount) {
+        cancelCurrentRequest();
+        currentRequest = results;
+        results.whenComplete((cachedResults, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (currentRequest == results) {
+                currentRequest = null;
+            }
 
-        executorService.execute(() -> {
-            try {
-                List<Article> results;
-                if (query.isEmpty()) {
-                    results = articleDao.getAllArticles();
-                } else {
-                    results = articleDao.searchArticles(query);
-                }
-
-                List<Article> filteredResults = filterResultsByCategory(results);
-
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (!isAdded() || getContext() == null) {
-                            Log.w(TAG, "Fragment not attached, skipping offline search with filters UI update");
-                            return;
-                        }
+            if (!isAdded() || getContext() == null) {
+                Log.w(TAG, "Fragment not attached, skipping offline results UI update");
+                return;
+            }
 
-                        hideLoading();
-                        searchResults.clear();
+            hideLoading();
 
-                        if (filteredResults != null && !filteredResults.isEmpty()) {
-                            Log.d(TAG, "Found " + filteredResults.size() + " cached articles with search and category filter");
-                            searchResults.addAll(filteredResults);
-                            newsAdapter.notifyDataSetChanged();
+            if (error != null) {
+                Log.e(TAG, errorMessage, error);
+                showError("Database Error", errorMessage);
+                return;
+            }
 
-                            // ADDED: Load favorite statuses for offline search results
-                            refreshAllFavoriteStatuses();
+            searchResults.clear();
+            if (cachedResults.isEmpty()) {
+                Log.d(TAG, "No cached results found with current filters");
+                newsAdapter.notifyDataSetChanged();
+                onEmpty.run();
+                return;
+            }
 
-                            showResults();
-                        } else {
-                            Log.d(TAG, "No cached results found with search and category filter");
-                            showEmptyState("No offline results", "Connect to internet for more results");
-                        }
-                    });
-                }
+            Log.d(TAG, "Found " + cachedResults.size() + " cached articles with current filters");
+            searchResults.addAll(cachedResults);
+            newsAdapter.notifyDataSetChanged();
+            showResults();
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error searching offline with category filter", e);
-                if (isAdded() && getContext() != null && mainHandler != null) {
-                    mainHandler.post(() -> {
-                        if (isAdded() && getContext() != null) {
-                            hideLoading();
-                            showError("Database Error", "Error searching cached news");
-                        }
-                    });
-                }
+            if (announceCount) {
+                String message = "📱 Offline: " + cachedResults.size() + " cached articles";
+                Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
-    private void cancelCurrentCall() {
-        if (currentCall != null && !currentCall.isCanceled()) {
-            currentCall.cancel();
-            currentCall = null;
-            Log.d(TAG, "Previous API call canceled");
+    private void cancelCurrentRequest() {
+        if (currentRequest != null) {
+            currentRequest.cancel(false);
+            currentRequest = null;
+            Log.d(TAG, "Previous request canceled");
         }
     }
 
+    private String getSelectedCategory() {
+        return currentCategory != null ? currentCategory.getCategory() : null;
+    }
+
+    // Online /everything results carry no category, so they are still matched by text.
+    // Cached articles are filtered through the category table instead
     private List<Article> filterResultsByCategory(List<Article> articles) {
         if (currentCategory == null || currentCategory.getCategory() == null) {
             return articles; // Return all if no category filter
@@ -779,10 +673,7 @@ public class SearchFragment extends Fragment {
         Log.d(TAG, "Favorite changed for article: " + article.getTitle() +
                 " -> " + article.isFavorite());
 
-        // Notify MainActivity about favorite change
-        if (getActivity() != null && getActivity() instanceof com.example.snapnews.activity.MainActivity) {
-            ((com.example.snapnews.activity.MainActivity) getActivity()).onFavoriteChanged(article);
-        }
+        // Other screens pick the change up from the DAO once the write commits
     }
 
     private void shareArticle(Article article) {
@@ -815,76 +706,19 @@ public class SearchFragment extends Fragment {
         }
     }
 
-    private void loadFavoriteStatusForArticles() {
-        if (executorService == null || executorService.isShutdown() || !isAdded()) {
-            Log.w(TAG, "Cannot load favorite status - fragment not ready");
-            return;
-        }
-
-        Log.d(TAG, "Loading favorite status for " + searchResults.size() + " articles in SearchFragment");
-
-        executorService.execute(() -> {
-            try {
-                // Load favorite status untuk semua articles dari database
-                int updatedCount = 0;
-                for (Article article : searchResults) {
-                    if (article.getUrl() != null) {
-                        Article existingArticle = articleDao.getArticleByUrl(article.getUrl());
-                        if (existingArticle != null) {
-                            boolean oldStatus = article.isFavorite();
-                            article.setFavorite(existingArticle.isFavorite());
-                            article.setId(existingArticle.getId());
-
-                            if (oldStatus != article.isFavorite()) {
-                                updatedCount++;
-                                Log.d(TAG, "Updated favorite status in SearchFragment for: " + article.getTitle() +
-                                        " -> " + article.isFavorite());
-                            }
-                        }
-                    }
-                }
-
-                // Update UI di main thread
-                if (isAdded() && mainHandler != null) {
-                    final int finalUpdatedCount = updatedCount;
-                    mainHandler.post(() -> {
-                        if (isAdded() && newsAdapter != null) {
-                            newsAdapter.notifyDataSetChanged();
-                            Log.d(TAG, "SearchFragment favorite status loaded - " + finalUpdatedCount + " articles updated");
-                        }
-                    });
-                }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading favorite status in SearchFragment", e);
-            }
-        });
-    }
-
-    private void refreshAllFavoriteStatuses() {
-        if (newsAdapter != null) {
-            Log.d(TAG, "Refreshing all favorite statuses via NewsAdapter in SearchFragment");
-            newsAdapter.refreshFavoriteStatuses();
-        }
-    }
-
     @Override
     public void onResume() {
         super.onResume();
         Log.d(TAG, "SearchFragment resumed - Current state: Query='" + currentQuery + "', Category=" +
                 (currentCategory != null ? currentCategory.getName() : "null") + ", Results=" + searchResults.size());
-
-        if (searchResults != null && !searchResults.isEmpty()) {
-            refreshAllFavoriteStatuses();
-        }
     }
 
     @Override
     public void onDestroyView() {
         Log.d(TAG, "onDestroyView called - State will be preserved");
 
-        // Cancel any ongoing search calls
-        cancelCurrentCall();
+        // Stop waiting for results - the request itself stays shared with other screens
+        cancelCurrentRequest();
 
         // Remove any pending search callbacks
         if (searchHandler != null && searchRunnable != null) {
@@ -899,20 +733,13 @@ public class SearchFragment extends Fragment {
     public void onDestroy() {
         Log.d(TAG, "onDestroy called");
 
-        // Cancel any ongoing search calls
-        cancelCurrentCall();
+        cancelCurrentRequest();
 
         // Remove any pending search callbacks
         if (searchHandler != null && searchRunnable != null) {
             searchHandler.removeCallbacks(searchRunnable);
         }
 
-        // Shutdown executor service
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            Log.d(TAG, "ExecutorService shutdown");
-        }
-
         super.onDestroy();
         Log.d(TAG, "SearchFragment destroyed - State preserved for next creation");
     }
@@ -1,5 +1,6 @@
 package com.example.snapnews.models;
 
+import com.example.snapnews.utils.CompressedText;
 import com.google.gson.annotations.SerializedName;
 
 public class Article {
@@ -32,6 +33,14 @@ public class Article {
     private boolean isFavorite = false;
     private long timestamp = System.currentTimeMillis();
 
+    // Set only on offline search results: matched text with highlight markers around each hit
+    private transient String matchSnippet;
+
+    // Rows read from the database carry these columns still compressed; they are inflated on
+    // first access, so list rows never pay for a body nobody opens
+    private transient volatile byte[] packedDescription;
+    private transient volatile byte[] packedContent;
+
     // Constructors
     public Article() {}
 
@@ -54,8 +63,18 @@ public class Article {
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        byte[] packed = packedDescription;
+        if (packed != null) {
+            description = CompressedText.unpack(packed);
+            packedDescription = null;
+        }
+        return description;
+    }
+    public void setDescription(String description) {
+        this.description = description;
+        this.packedDescription = null;
+    }
 
     public String getUrl() { return url; }
     public void setUrl(String url) { this.url = url; }
@@ -66,8 +85,18 @@ public class Article {
     public String getPublishedAt() { return publishedAt; }
     public void setPublishedAt(String publishedAt) { this.publishedAt = publishedAt; }
 
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public String getContent() {
+        byte[] packed = packedContent;
+        if (packed != null) {
+            content = CompressedText.unpack(packed);
+            packedContent = null;
+        }
+        return content;
+    }
+    public void setContent(String content) {
+        this.content = content;
+        this.packedContent = null;
+    }
 
     public String getAuthor() { return author; }
     public void setAuthor(String author) { this.author = author; }
@@ -81,6 +110,22 @@ public class Article {
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
 
+    // Compressed form as stored, or null once inflated (or when never loaded compressed)
+    public byte[] getPackedDescription() { return packedDescription; }
+    public void setPackedDescription(byte[] packedDescription) {
+        this.description = null;
+        this.packedDescription = packedDescription;
+    }
+
+    public byte[] getPackedContent() { return packedContent; }
+    public void setPackedContent(byte[] packedContent) {
+        this.content = null;
+        this.packedContent = packedContent;
+    }
+
+    public String getMatchSnippet() { return matchSnippet; }
+    public void setMatchSnippet(String matchSnippet) { this.matchSnippet = matchSnippet; }
+
     @Override
     public String toString() {
         return "Article{" +
@@ -18,6 +18,13 @@ public class NewsResponse {
 
     public NewsResponse() {}
 
+    public NewsResponse(String status, int totalResults, List<Article> articles, String message) {
+        this.status = status;
+        this.totalResults = totalResults;
+        this.articles = articles;
+        this.message = message;
+    }
+
     public String getStatus() { return status; }
 
     public int getTotalResults() { return totalResults; }
@@ -0,0 +1,84 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+// One NewsAPI article, read field by field with no reflection. Only the fields the app stores
+// are decoded; anything else NewsAPI sends is skipped unread. Authors are pooled, since a page
+// often carries several pieces by the same byline.
+final class ArticleTypeAdapter extends TypeAdapter<Article> {
+    private final TypeAdapter<Source> sourceAdapter;
+    private final StringPool pool;
+
+    ArticleTypeAdapter(TypeAdapter<Source> sourceAdapter, StringPool pool) {
+        this.sourceAdapter = sourceAdapter;
+        this.pool = pool;
+    }
+
+    @Override
+    public Article read(JsonReader in) throws IOException {
+        String title = null;
+        String description = null;
+        String url = null;
+        String urlToImage = null;
+        String publishedAt = null;
+        String content = null;
+        String author = null;
+        Source source = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "title":
+                    title = NewsJson.nextStringOrNull(in);
+                    break;
+                case "description":
+                    description = NewsJson.nextStringOrNull(in);
+                    break;
+                case "url":
+                    url = NewsJson.nextStringOrNull(in);
+                    break;
+                case "urlToImage":
+                    urlToImage = NewsJson.nextStringOrNull(in);
+                    break;
+                case "publishedAt":
+                    publishedAt = NewsJson.nextStringOrNull(in);
+                    break;
+                case "content":
+                    content = NewsJson.nextStringOrNull(in);
+                    break;
+                case "author":
+                    author = pool.intern(NewsJson.nextStringOrNull(in));
+                    break;
+                case "source":
+                    source = sourceAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new Article(title, description, url, urlToImage, publishedAt, content, author, source);
+    }
+
+    @Override
+    public void write(JsonWriter out, Article article) throws IOException {
+        out.beginObject();
+        out.name("source");
+        sourceAdapter.write(out, article.getSource());
+        out.name("author").value(article.getAuthor());
+        out.name("title").value(article.getTitle());
+        out.name("description").value(article.getDescription());
+        out.name("url").value(article.getUrl());
+        out.name("urlToImage").value(article.getUrlToImage());
+        out.name("publishedAt").value(article.getPublishedAt());
+        out.name("content").value(article.getContent());
+        out.endObject();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.snapnews.network;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import java.io.IOException;
+
+// Network interceptor: stamps the endpoint's HttpCachePolicy onto successful NewsAPI responses
+// before OkHttp's cache sees them, so they are stored with our max-age instead of the server's.
+// Errors and rate-limit responses keep their own headers and are not cached by us.
+final class CacheHeadersInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        HttpCachePolicy policy = HttpCachePolicy.forUrl(chain.request().url());
+        if (policy == null || response.code() != 200) {
+            return response;
+        }
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "public, max-age=" + policy.maxAgeSeconds)
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.snapnews.network;
+
+import okhttp3.logging.HttpLoggingInterceptor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Opt-in record of full HTTP exchanges for debugging, kept in memory instead of logcat.
+// Off by default: the logging interceptor then sits at Level.NONE and hands every request
+// straight on without touching it. Once on, the newest lines up to MAX_CHARS are kept and
+// exported with NetworkStats until cleared. The apiKey query parameter is masked before a line
+// is stored.
+public final class HttpBodyLog {
+    private static final int MAX_CHARS = 256 * 1024;
+    private static final Pattern API_KEY = Pattern.compile("apiKey=[^&\\s]*");
+
+    private static final ArrayDeque<String> lines = new ArrayDeque<>();
+    private static int chars;
+
+    private static final HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor(HttpBodyLog::append);
+
+    private HttpBodyLog() {}
+
+    static HttpLoggingInterceptor interceptor() {
+        return interceptor;
+    }
+
+    public static boolean isEnabled() {
+        return interceptor.getLevel() != HttpLoggingInterceptor.Level.NONE;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        interceptor.setLevel(enabled ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE);
+    }
+
+    public static synchronized List<String> snapshot() {
+        return new ArrayList<>(lines);
+    }
+
+    public static synchronized void clear() {
+        lines.clear();
+        chars = 0;
+    }
+
+    private static synchronized void append(String message) {
+        String line = API_KEY.matcher(message).replaceAll("apiKey=***");
+        lines.addLast(line);
+        chars += line.length();
+        while (chars > MAX_CHARS && lines.size() > 1) {
+            chars -= lines.removeFirst().length();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.snapnews.network;
+
+import okhttp3.HttpUrl;
+import java.util.List;
+
+// How long each NewsAPI endpoint's responses stay fresh in the disk cache, and how much longer a
+// stale copy may still be shown while a background request revalidates it. NewsAPI sends no
+// usable caching headers of its own, so CacheHeadersInterceptor writes these onto its responses.
+// The query string, apiKey included, is part of the cache key; a new key starts a cold cache.
+final class HttpCachePolicy {
+    // Headlines move quickly; search results for the same query hardly change within minutes
+    private static final HttpCachePolicy TOP_HEADLINES = new HttpCachePolicy(5 * 60, 60 * 60);
+    private static final HttpCachePolicy EVERYTHING = new HttpCachePolicy(15 * 60, 6 * 60 * 60);
+
+    final int maxAgeSeconds;
+    final int staleSeconds;
+
+    private HttpCachePolicy(int maxAgeSeconds, int staleSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.staleSeconds = staleSeconds;
+    }
+
+    // Null for endpoints that are never cached
+    static HttpCachePolicy forUrl(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        switch (segments.get(segments.size() - 1)) {
+            case "top-headlines":
+                return TOP_HEADLINES;
+            case "everything":
+                return EVERYTHING;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.snapnews.network;
+
+import android.os.SystemClock;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+// Times the phases of one OkHttp call into its endpoint's NetworkStats. One instance per call,
+// and OkHttp delivers a call's events one at a time, so plain fields are enough.
+// Time to first byte runs from the request headers going out to the response headers arriving;
+// a call that retries or follows a redirect records each attempt.
+final class NetworkEventListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = call -> NetworkStats.isEnabled()
+            ? new NetworkEventListener(NetworkStats.endpointFor(call.request().url()))
+            : EventListener.NONE;
+
+    private final NetworkStats.Endpoint endpoint;
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long bodyStart;
+
+    private NetworkEventListener(NetworkStats.Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = now();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        endpoint.dns.record(now() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = now();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = now();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        endpoint.tls.record(now() - secureConnectStart);
+    }
+
+    // Includes the TLS handshake, which is also recorded on its own
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        endpoint.connect.record(now() - connectStart);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = now();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        endpoint.firstByte.record(now() - requestStart);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = now();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        endpoint.body.record(now() - bodyStart);
+        endpoint.recordBodyBytes(byteCount);
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        endpoint.cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        endpoint.conditionalHits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        endpoint.cacheMisses.incrementAndGet();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        endpoint.total.record(now() - callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        endpoint.total.record(now() - callStart);
+        endpoint.failures.incrementAndGet();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.snapnews.network;
+
+import android.content.Context;
+import android.util.JsonWriter;
+import android.util.Log;
+import com.example.snapnews.BuildConfig;
+import okhttp3.HttpUrl;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per-endpoint timings for every NewsAPI call, fed by NetworkEventListener: a histogram for each
+// phase of a call (DNS, connect, TLS, time to first byte, body read, whole call), payload sizes,
+// and how often the HTTP cache answered. Same power-of-two microsecond buckets as DaoStats.
+// Recording is atomics only; while disabled no listener is even created for a call.
+// Off by default in release builds.
+public final class NetworkStats {
+    private static final String TAG = "NetworkStats";
+
+    public static final String DUMP_FILE_NAME = "network-stats.json";
+
+    // Bucket i counts phases that took [2^i, 2^(i+1)) microseconds; the last one is open-ended (~33s+)
+    private static final int BUCKET_COUNT = 26;
+
+    static final Endpoint TOP_HEADLINES = new Endpoint("top-headlines");
+    static final Endpoint EVERYTHING = new Endpoint("everything");
+    static final Endpoint OTHER = new Endpoint("other");
+    private static final Endpoint[] ENDPOINTS = {TOP_HEADLINES, EVERYTHING, OTHER};
+
+    private static volatile boolean enabled = BuildConfig.DEBUG;
+
+    private NetworkStats() {}
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setEnabled(boolean enabled) {
+        NetworkStats.enabled = enabled;
+    }
+
+    static Endpoint endpointFor(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        switch (segments.get(segments.size() - 1)) {
+            case "top-headlines":
+                return TOP_HEADLINES;
+            case "everything":
+                return EVERYTHING;
+            default:
+                return OTHER;
+        }
+    }
+
+    // Calls that finished, successfully or not, across all endpoints
+    public static long getCallCount() {
+        long calls = 0;
+        for (Endpoint endpoint : ENDPOINTS) {
+            calls += endpoint.total.count.get();
+        }
+        return calls;
+    }
+
+    // Calls answered from the HTTP cache without a network round trip
+    public static long getCacheHitCount() {
+        long hits = 0;
+        for (Endpoint endpoint : ENDPOINTS) {
+            hits += endpoint.cacheHits.get();
+        }
+        return hits;
+    }
+
+    public static void reset() {
+        for (Endpoint endpoint : ENDPOINTS) {
+            endpoint.reset();
+        }
+    }
+
+    // Writes the current numbers, and the HTTP body log if one was recorded, to
+    // files/network-stats.json and returns the file. Call off the main thread
+    public static File dumpToFile(Context context) throws IOException {
+        File file = new File(context.getApplicationContext().getFilesDir(), DUMP_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writeJson(writer);
+        }
+        Log.d(TAG, "Stats written to " + file);
+        return file;
+    }
+
+    public static void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("enabled").value(enabled);
+        json.name("bucketUpperBoundsMicros");
+        json.beginArray();
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            json.value(1L << (i + 1));
+        }
+        json.endArray();
+
+        json.name("endpoints");
+        json.beginObject();
+        for (Endpoint endpoint : ENDPOINTS) {
+            if (endpoint.total.count.get() > 0) {
+                json.name(endpoint.name);
+                endpoint.writeJson(json);
+            }
+        }
+        json.endObject();
+
+        json.name("httpLog");
+        json.beginArray();
+        for (String line : HttpBodyLog.snapshot()) {
+            json.value(line);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    // One NewsAPI endpoint. Counters are independent atomics, so a dump taken mid-call may be off by one
+    static final class Endpoint {
+        final String name;
+        final Histogram dns = new Histogram();
+        final Histogram connect = new Histogram();
+        final Histogram tls = new Histogram();
+        final Histogram firstByte = new Histogram();
+        final Histogram body = new Histogram();
+        final Histogram total = new Histogram();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong conditionalHits = new AtomicLong();
+        final AtomicLong cacheMisses = new AtomicLong();
+        final AtomicLong bodyBytes = new AtomicLong();
+        final AtomicLong maxBodyBytes = new AtomicLong();
+
+        private Endpoint(String name) {
+            this.name = name;
+        }
+
+        void recordBodyBytes(long bytes) {
+            bodyBytes.addAndGet(bytes);
+            updateMax(maxBodyBytes, bytes);
+        }
+
+        void reset() {
+            dns.reset();
+            connect.reset();
+            tls.reset();
+            firstByte.reset();
+            body.reset();
+            total.reset();
+            failures.set(0);
+            cacheHits.set(0);
+            conditionalHits.set(0);
+            cacheMisses.set(0);
+            bodyBytes.set(0);
+            maxBodyBytes.set(0);
+        }
+
+        void writeJson(JsonWriter json) throws IOException {
+            json.beginObject();
+            json.name("calls").value(total.count.get());
+            json.name("failures").value(failures.get());
+            json.name("cacheHits").value(cacheHits.get());
+            json.name("conditionalCacheHits").value(conditionalHits.get());
+            json.name("cacheMisses").value(cacheMisses.get());
+            json.name("bodyBytes").value(bodyBytes.get());
+            json.name("maxBodyBytes").value(maxBodyBytes.get());
+            writePhase(json, "call", total);
+            writePhase(json, "dns", dns);
+            writePhase(json, "connect", connect);
+            writePhase(json, "tls", tls);
+            writePhase(json, "timeToFirstByte", firstByte);
+            writePhase(json, "bodyRead", body);
+            json.endObject();
+        }
+
+        private static void writePhase(JsonWriter json, String phase, Histogram histogram) throws IOException {
+            // Pooled connections skip DNS, connect and TLS, so those phases may never have run
+            if (histogram.count.get() > 0) {
+                json.name(phase);
+                histogram.writeJson(json);
+            }
+        }
+    }
+
+    static final class Histogram {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            updateMax(maxNanos, nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        void writeJson(JsonWriter json) throws IOException {
+            long calls = count.get();
+            long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+            }
+
+            json.beginObject();
+            json.name("count").value(calls);
+            json.name("meanMicros").value(TimeUnit.NANOSECONDS.toMicros(totalNanos.get()) / calls);
+            json.name("p50Micros").value(percentileMicros(counts, 0.50));
+            json.name("p90Micros").value(percentileMicros(counts, 0.90));
+            json.name("p99Micros").value(percentileMicros(counts, 0.99));
+            json.name("maxMicros").value(TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+            json.name("histogram");
+            json.beginArray();
+            for (long bucketCount : counts) {
+                json.value(bucketCount);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        // Upper bound of the bucket holding the percentile, so estimates err on the slow side
+        private static long percentileMicros(long[] counts, double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return 1L << (i + 1);
+                }
+            }
+            return 0;
+        }
+    }
+}
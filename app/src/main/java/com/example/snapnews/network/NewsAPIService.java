@@ -1,19 +1,36 @@
 package com.example.snapnews.network;
 
 import com.example.snapnews.models.NewsResponse;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface NewsApiService {
 
+    // cacheControl "no-cache" skips the HTTP cache and refreshes it; null lets the cache answer
     @GET("top-headlines")
     Call<NewsResponse> getTopHeadlines(
             @Query("country") String country,
             @Query("category") String category,
             @Query("pageSize") int pageSize,
             @Query("page") int page,
-            @Query("apiKey") String apiKey
+            @Query("apiKey") String apiKey,
+            @Header("Cache-Control") String cacheControl
+    );
+
+    // Same request, with the body left unread for NewsResponseReader to decode as it arrives
+    @Streaming
+    @GET("top-headlines")
+    Call<ResponseBody> streamTopHeadlines(
+            @Query("country") String country,
+            @Query("category") String category,
+            @Query("pageSize") int pageSize,
+            @Query("page") int page,
+            @Query("apiKey") String apiKey,
+            @Header("Cache-Control") String cacheControl
     );
 
     @GET("everything")
@@ -0,0 +1,51 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.example.snapnews.models.Source;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+
+// The Gson that decodes NewsAPI: hand-written adapters for NewsResponse, Article and Source, so
+// no model is ever reflected over and nothing is built lazily on the first response.
+// All three share one StringPool
+final class NewsJson {
+
+    private NewsJson() {}
+
+    static Gson create() {
+        StringPool pool = new StringPool();
+        TypeAdapter<Source> sourceAdapter = new SourceTypeAdapter(pool).nullSafe();
+        TypeAdapter<Article> articleAdapter = new ArticleTypeAdapter(sourceAdapter, pool).nullSafe();
+        TypeAdapter<NewsResponse> responseAdapter = new NewsResponseTypeAdapter(articleAdapter).nullSafe();
+
+        return new GsonBuilder()
+                .registerTypeAdapter(Source.class, sourceAdapter)
+                .registerTypeAdapter(Article.class, articleAdapter)
+                .registerTypeAdapter(NewsResponse.class, responseAdapter)
+                .create();
+    }
+
+    static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    // totalResults: null reads as 0 and a count past int range is capped rather than failing
+    // the whole response
+    static int nextCountOrZero(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        long count = in.nextLong();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, count));
+    }
+}
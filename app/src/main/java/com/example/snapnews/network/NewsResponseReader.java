@@ -0,0 +1,96 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Decodes a NewsAPI response straight off the wire with a JsonReader and hands its articles out
+// in batches as they are decoded, instead of after the last byte like the Retrofit converter.
+// The first batch is small so a screen can fill its first rows while the rest is still arriving.
+// Each article goes through the Gson's own Article adapter, so both paths decode alike.
+public final class NewsResponseReader {
+
+    // Called on the reading thread, with a list the listener may keep
+    public interface BatchListener {
+        void onBatch(List<Article> batch);
+    }
+
+    private final TypeAdapter<Article> articleAdapter;
+
+    public NewsResponseReader(Gson gson) {
+        this.articleAdapter = gson.getAdapter(Article.class);
+    }
+
+    // Returns the whole response; its articles are the ones already passed to listener, in order.
+    // Does not close in
+    public NewsResponse read(Reader in, int firstBatchSize, int batchSize, BatchListener listener)
+            throws IOException {
+        String status = null;
+        String message = null;
+        int totalResults = 0;
+        List<Article> articles = new ArrayList<>();
+
+        JsonReader json = new JsonReader(in);
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "status":
+                    status = NewsJson.nextStringOrNull(json);
+                    break;
+                case "message":
+                    message = NewsJson.nextStringOrNull(json);
+                    break;
+                case "totalResults":
+                    totalResults = NewsJson.nextCountOrZero(json);
+                    break;
+                case "articles":
+                    if (json.peek() == JsonToken.NULL) {
+                        json.nextNull();
+                        articles = null;
+                    } else {
+                        readArticles(json, articles, firstBatchSize, batchSize, listener);
+                    }
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+
+        return new NewsResponse(status, totalResults, articles, message);
+    }
+
+    private void readArticles(JsonReader json, List<Article> articles, int firstBatchSize, int batchSize,
+                              BatchListener listener) throws IOException {
+        int target = firstBatchSize;
+        List<Article> batch = new ArrayList<>(target);
+
+        json.beginArray();
+        while (json.hasNext()) {
+            Article article = articleAdapter.read(json);
+            if (article == null) {
+                continue;
+            }
+            articles.add(article);
+            batch.add(article);
+            if (batch.size() == target) {
+                listener.onBatch(batch);
+                target = batchSize;
+                batch = new ArrayList<>(target);
+            }
+        }
+        json.endArray();
+
+        if (!batch.isEmpty()) {
+            listener.onBatch(batch);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// The envelope of every NewsAPI response: status, totalResults and articles, or status and
+// message for an error. The error "code" and any other field are skipped.
+final class NewsResponseTypeAdapter extends TypeAdapter<NewsResponse> {
+    private final TypeAdapter<Article> articleAdapter;
+
+    NewsResponseTypeAdapter(TypeAdapter<Article> articleAdapter) {
+        this.articleAdapter = articleAdapter;
+    }
+
+    @Override
+    public NewsResponse read(JsonReader in) throws IOException {
+        String status = null;
+        String message = null;
+        int totalResults = 0;
+        List<Article> articles = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "status":
+                    status = NewsJson.nextStringOrNull(in);
+                    break;
+                case "message":
+                    message = NewsJson.nextStringOrNull(in);
+                    break;
+                case "totalResults":
+                    totalResults = NewsJson.nextCountOrZero(in);
+                    break;
+                case "articles":
+                    articles = readArticles(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return new NewsResponse(status, totalResults, articles, message);
+    }
+
+    private List<Article> readArticles(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<Article> articles = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            Article article = articleAdapter.read(in);
+            if (article != null) {
+                articles.add(article);
+            }
+        }
+        in.endArray();
+        return articles;
+    }
+
+    @Override
+    public void write(JsonWriter out, NewsResponse response) throws IOException {
+        out.beginObject();
+        out.name("status").value(response.getStatus());
+        out.name("totalResults").value(response.getTotalResults());
+        if (response.getMessage() != null) {
+            out.name("message").value(response.getMessage());
+        }
+        if (response.getArticles() != null) {
+            out.name("articles");
+            out.beginArray();
+            for (Article article : response.getArticles()) {
+                articleAdapter.write(out, article);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+}
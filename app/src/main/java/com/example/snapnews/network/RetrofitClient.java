@@ -1,36 +1,58 @@
 package com.example.snapnews.network;
 
+import android.content.Context;
+import com.google.gson.Gson;
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 public class RetrofitClient {
     private static final String BASE_URL = "https://newsapi.org/v2/";
+    // NewsAPI pages are a few tens of KB; this holds hundreds of them before OkHttp evicts
+    private static final long HTTP_CACHE_BYTES = 10L * 1024 * 1024;
+    private static final String HTTP_CACHE_DIR = "http";
     private static Retrofit retrofit = null;
+    // One instance for the converter and NewsResponseReader, so both reuse the same type adapters
+    private static final Gson gson = NewsJson.create();
 
-    public static Retrofit getClient() {
-        if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+    public static Gson getGson() {
+        return gson;
+    }
 
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .build();
+    public static synchronized Retrofit getClient(Context context) {
+        if (retrofit == null) {
+            OkHttpClient client = buildHttpClient(
+                    new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR));
 
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
                     .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(gson))
                     .build();
         }
         return retrofit;
     }
 
-    public static NewsApiService getNewsApiService() {
-        return getClient().create(NewsApiService.class);
+    // The app's OkHttp stack over a disk cache in cacheDir; tests point it at their own server
+    static OkHttpClient buildHttpClient(File cacheDir) {
+        StaleWhileRevalidateInterceptor staleWhileRevalidate = new StaleWhileRevalidateInterceptor();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir, HTTP_CACHE_BYTES))
+                .addInterceptor(staleWhileRevalidate)
+                .addInterceptor(HttpBodyLog.interceptor())
+                .addNetworkInterceptor(new CacheHeadersInterceptor())
+                .eventListenerFactory(NetworkEventListener.FACTORY)
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+        staleWhileRevalidate.attach(client);
+        return client;
+    }
+
+    public static NewsApiService getNewsApiService(Context context) {
+        return getClient(context).create(NewsApiService.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Source;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+// NewsAPI's {"id", "name"} source object. Both are pooled: a page names the same few outlets
+// over and over.
+final class SourceTypeAdapter extends TypeAdapter<Source> {
+    private final StringPool pool;
+
+    SourceTypeAdapter(StringPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Source read(JsonReader in) throws IOException {
+        String id = null;
+        String name = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = pool.intern(NewsJson.nextStringOrNull(in));
+                    break;
+                case "name":
+                    name = pool.intern(NewsJson.nextStringOrNull(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return new Source(id, name);
+    }
+
+    @Override
+    public void write(JsonWriter out, Source source) throws IOException {
+        out.beginObject();
+        out.name("id").value(source.getId());
+        out.name("name").value(source.getName());
+        out.endObject();
+    }
+}
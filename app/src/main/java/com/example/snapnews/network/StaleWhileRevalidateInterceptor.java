@@ -0,0 +1,113 @@
+package com.example.snapnews.network;
+
+import android.util.Log;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Application interceptor: answers cacheable GETs from the disk cache first. A fresh copy is
+// returned as is; a copy past its max-age but inside the policy's stale window is returned too,
+// and a background request refreshes the cache for next time. Only a miss, or a copy older than
+// the stale window, waits for the network.
+// Requests that carry their own Cache-Control (a forced refresh, or our own revalidation) are
+// passed straight through.
+final class StaleWhileRevalidateInterceptor implements Interceptor {
+    private static final String TAG = "StaleWhileRevalidate";
+
+    // OkHttp marks a cached response served past its freshness with this warning code
+    private static final String STALE_WARNING = "110";
+
+    // URLs with a revalidation in flight, so a burst of stale hits sends one request
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private volatile OkHttpClient client;
+
+    // The client this interceptor belongs to; revalidations run on its dispatcher and cache
+    void attach(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpCachePolicy policy = HttpCachePolicy.forUrl(request.url());
+        if (policy == null || !"GET".equals(request.method())
+                || request.header("Cache-Control") != null) {
+            return chain.proceed(request);
+        }
+
+        Request cacheOnly = request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(policy.staleSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build();
+        Response cached = chain.proceed(cacheOnly);
+
+        // onlyIfCached answers 504 when there is nothing usable to serve
+        if (cached.code() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+            cached.close();
+            return chain.proceed(request);
+        }
+
+        if (isStale(cached)) {
+            Log.d(TAG, "Stale hit, revalidating " + request.url().encodedPath());
+            revalidate(request);
+        } else {
+            Log.d(TAG, "Fresh hit for " + request.url().encodedPath());
+        }
+        return cached;
+    }
+
+    private static boolean isStale(Response response) {
+        for (String warning : response.headers("Warning")) {
+            if (warning.startsWith(STALE_WARNING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void revalidate(Request request) {
+        OkHttpClient client = this.client;
+        String url = request.url().toString();
+        if (client == null || !revalidating.add(url)) {
+            return;
+        }
+
+        Request network = request.newBuilder()
+                .cacheControl(CacheControl.FORCE_NETWORK)
+                .build();
+        client.newCall(network).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                // The cache entry is only committed once the body has been read to the end
+                try (ResponseBody body = response.body()) {
+                    if (body != null) {
+                        body.bytes();
+                    }
+                    Log.d(TAG, "Revalidated " + request.url().encodedPath() + ": " + response.code());
+                } catch (IOException e) {
+                    Log.e(TAG, "Revalidation body failed for " + request.url().encodedPath(), e);
+                } finally {
+                    revalidating.remove(url);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                revalidating.remove(url);
+                Log.e(TAG, "Revalidation failed for " + request.url().encodedPath(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.snapnews.network;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Canonical copies of strings that repeat across a feed - source names and ids, authors - so
+// the articles a screen holds share one instance of each instead of one per article.
+// Unlike String.intern() it is bounded: past MAX_ENTRIES it starts over, which only costs
+// some sharing. Safe to use from several parsing threads at once.
+final class StringPool {
+    private static final int MAX_ENTRIES = 1024;
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (strings.size() >= MAX_ENTRIES) {
+            strings.clear();
+        }
+        pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+}
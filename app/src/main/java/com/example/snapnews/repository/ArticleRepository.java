@@ -0,0 +1,417 @@
+package com.example.snapnews.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.snapnews.database.ArticleDao;
+import com.example.snapnews.database.ArticleState;
+import com.example.snapnews.database.ArticleWriter;
+import com.example.snapnews.database.CacheRetentionManager;
+import com.example.snapnews.database.FavoriteSet;
+import com.example.snapnews.database.NewsDatabaseHelper;
+import com.example.snapnews.database.PageKey;
+import com.example.snapnews.database.UrlKey;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.example.snapnews.network.NewsApiService;
+import com.example.snapnews.network.NewsResponseReader;
+import com.example.snapnews.network.RetrofitClient;
+import com.example.snapnews.utils.ApiKeyManager;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// The one source of articles for every screen: NewsAPI, the SQLite cache and the last headlines
+// per filter in memory, behind a single API owned by the process rather than by a screen.
+// Every future completes on the main thread, with an unmodifiable list where it returns one.
+// A request made while an identical one is running joins it instead of starting another, so
+// Home and Search asking for the same category share one network call, one write and one parse;
+// the call is only cancelled once every screen waiting for it has cancelled (see SingleFlight).
+// Call from the main thread. Writes go through ArticleWriter; screens learn about them from
+// addOnArticlesChangedListener
+public class ArticleRepository {
+    private static final String TAG = "ArticleRepository";
+
+    // Home and Search both read top headlines, so they use one page size and share the request
+    private static final int HEADLINES_PAGE_SIZE = 30;
+    private static final int SEARCH_PAGE_SIZE = 50;
+    private static final String SEARCH_SORT_BY = "publishedAt";
+
+    // Headlines this recent are served from memory when a screen comes back, without a request
+    private static final long HEADLINES_FRESH_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    // Streamed headlines reach the screen in batches: about one screenful first, then larger steps
+    private static final int HEADLINES_FIRST_BATCH = 6;
+    private static final int HEADLINES_BATCH = 12;
+
+    // Database reads only - network calls run on OkHttp's dispatcher, streamed bodies are decoded
+    // on parseExecutor and writes go through ArticleWriter
+    private static final int READ_THREADS = 2;
+
+    private static ArticleRepository instance;
+
+    private final Context appContext;
+    private final NewsApiService newsApiService;
+    private final ArticleDao articleDao;
+    private final ArticleWriter articleWriter;
+    private final ExecutorService executorService;
+    private final ExecutorService parseExecutor;
+    private final NewsResponseReader newsResponseReader;
+    private final Executor mainExecutor;
+    private final FavoriteSet favorites = FavoriteSet.getInstance();
+
+    // Running loads by request key, so identical requests can join them
+    private final SingleFlight inFlight = new SingleFlight();
+    // Last fetched headlines by request key; main thread only
+    private final Map<String, HeadlinesSnapshot> headlines = new HashMap<>();
+    // The favorite set load, until it succeeds; main thread only
+    private CompletableFuture<Void> favoritesLoad;
+
+    private ArticleRepository(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.newsApiService = RetrofitClient.getNewsApiService(appContext);
+        this.articleDao = new ArticleDao(NewsDatabaseHelper.getInstance(appContext));
+        this.articleWriter = ArticleWriter.getInstance(appContext);
+        this.executorService = Executors.newFixedThreadPool(READ_THREADS);
+        this.parseExecutor = Executors.newSingleThreadExecutor();
+        this.newsResponseReader = new NewsResponseReader(RetrofitClient.getGson());
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.mainExecutor = mainHandler::post;
+
+        // Off the main thread while the first screen inflates
+        whenFavoritesLoaded();
+    }
+
+    public static synchronized ArticleRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ArticleRepository(context);
+        }
+        return instance;
+    }
+
+    // CHANGE EVENTS - THE DAO'S, RE-EXPORTED SO SCREENS ONLY DEPEND ON THE REPOSITORY
+    public static void addOnArticlesChangedListener(ArticleDao.OnArticlesChangedListener listener) {
+        ArticleDao.addOnArticlesChangedListener(listener);
+    }
+
+    public static void removeOnArticlesChangedListener(ArticleDao.OnArticlesChangedListener listener) {
+        ArticleDao.removeOnArticlesChangedListener(listener);
+    }
+
+    // TOP HEADLINES - MEMORY SNAPSHOT, ELSE NETWORK; STORED AND MERGED WITH SAVED FAVORITES
+    // Fails with NewsApiException when NewsAPI refused, or with the transport error.
+    // Cached for offline use under category (null for the unfiltered feed)
+    public CompletableFuture<List<Article>> getHeadlines(String country, String category, boolean forceRefresh) {
+        return getHeadlines(country, category, forceRefresh, null);
+    }
+
+    // As above; onBatch, when not null, also gets the articles on the main thread while the response
+    // is still being read - before they are stored, so without ids. The future's list replaces them.
+    // Only the caller that starts the request sees batches; one that joins it gets the full list.
+    // Forced and ordinary loads of the same feed are separate requests and never join each other
+    public CompletableFuture<List<Article>> getHeadlines(String country, String category, boolean forceRefresh,
+                                                         Consumer<List<Article>> onBatch) {
+        // What is sent is what the key says, so differently spelled filters share the call
+        final String normalizedCountry = normalizeParam(country);
+        final String normalizedCategory = normalizeParam(category);
+        final String key = "top-headlines?country=" + normalizedCountry + "&category=" + normalizedCategory +
+                "&pageSize=" + HEADLINES_PAGE_SIZE;
+
+        HeadlinesSnapshot snapshot = headlines.get(key);
+        if (!forceRefresh && snapshot != null && snapshot.isFresh()) {
+            Log.d(TAG, "Headlines for " + key + " served from memory");
+            return CompletableFuture.completedFuture(snapshot.articles);
+        }
+
+        // A forced refresh must not join a load the HTTP cache may answer, nor hand its batches to it
+        final String flightKey = forceRefresh ? key + "&fresh=1" : key;
+        return share(flightKey, flight -> {
+            CompletableFuture<List<Article>> fetched = new CompletableFuture<>();
+            // A pull-to-refresh goes to NewsAPI; otherwise the HTTP cache may answer
+            Call<ResponseBody> call = newsApiService.streamTopHeadlines(normalizedCountry, normalizedCategory,
+                    HEADLINES_PAGE_SIZE, 1, ApiKeyManager.getNewsApiKey(), forceRefresh ? "no-cache" : null);
+            flight.onCancel(call::cancel);
+            call.enqueue(new NewsStreamCallback(fetched, onBatch));
+
+            return onMainThread(fetched
+                    .thenCompose(articles -> saveAndMerge(articles, normalizedCategory))
+                    .thenApplyAsync(articles -> {
+                        headlines.put(key, new HeadlinesSnapshot(articles));
+                        return articles;
+                    }, mainExecutor));
+        });
+    }
+
+    // SEARCH NEWSAPI - RESULTS ARE NOT CACHED, BUT CARRY FAVORITE FLAGS FROM THE FAVORITE SET
+    public CompletableFuture<List<Article>> searchNews(String query) {
+        final String terms = normalizeQuery(query);
+        final String key = "everything?q=" + terms + "&sortBy=" + SEARCH_SORT_BY + "&pageSize=" + SEARCH_PAGE_SIZE;
+        return share(key, flight -> {
+            CompletableFuture<List<Article>> fetched = new CompletableFuture<>();
+            Call<NewsResponse> call = newsApiService.searchNews(terms, SEARCH_SORT_BY, SEARCH_PAGE_SIZE, 1,
+                    ApiKeyManager.getNewsApiKey());
+            flight.onCancel(call::cancel);
+            call.enqueue(new NewsCallback(fetched));
+
+            // A failed favorites read must not fail a good NewsAPI answer; the flags are then left as they came
+            CompletableFuture<Void> favoritesRead = whenFavoritesLoaded().handle((loaded, error) -> {
+                if (error != null) {
+                    Log.w(TAG, "Search results shown without favorite flags", error);
+                }
+                return null;
+            });
+            return onMainThread(fetched.thenCombine(favoritesRead, (articles, ignored) -> withFavorites(articles)));
+        });
+    }
+
+    // CACHED FEED PAGE - A null category means the unfiltered feed
+    public CompletableFuture<List<Article>> getCachedArticles(String category, PageKey after, int pageSize) {
+        return share("cached:" + category + ":" + after.getTimestamp() + ":" + after.getId() + ":" + pageSize,
+                () -> read(() -> articleDao.getArticlesByCategory(category, after, pageSize)));
+    }
+
+    // FAVORITES PAGE
+    public CompletableFuture<List<Article>> getFavorites(PageKey after, int pageSize) {
+        return share("favorites:" + after.getTimestamp() + ":" + after.getId() + ":" + pageSize,
+                () -> read(() -> articleDao.getFavoriteArticlesPage(after, pageSize)));
+    }
+
+    // OFFLINE SEARCH - FTS over the cache, restricted to category when it is not null
+    public CompletableFuture<List<Article>> searchCached(String query, String category, int limit) {
+        return share("fts:" + category + ":" + limit + ":" + query,
+                () -> read(() -> articleDao.searchArticles(query, category, limit)));
+    }
+
+    // ONE STORED ARTICLE - Completes with null when the URL was never cached
+    public CompletableFuture<Article> getArticle(String url) {
+        if (url == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return share("article:" + UrlKey.of(url), () -> onMainThread(
+                CompletableFuture.supplyAsync(() -> articleDao.getArticleByUrl(url), executorService)));
+    }
+
+    // FAVORITE CHECKS - IN MEMORY, NO DATABASE ROUND TRIP
+    // Only meaningful once isFavoritesLoaded(); until then the flag an Article was loaded with is the best answer
+    public boolean isFavoritesLoaded() {
+        return favorites.isLoaded();
+    }
+
+    public boolean isFavorite(String url) {
+        return favorites.contains(url);
+    }
+
+    // Already complete once the set is loaded, so dependent actions run straight away.
+    // Fails if the read failed; the next call starts it again
+    public CompletableFuture<Void> whenFavoritesLoaded() {
+        if (favorites.isLoaded()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (favoritesLoad == null || favoritesLoad.isCompletedExceptionally()) {
+            favoritesLoad = onMainThread(CompletableFuture.runAsync(() -> {
+                if (!articleDao.loadFavorites()) {
+                    throw new IllegalStateException("Favorites could not be loaded");
+                }
+            }, executorService));
+        }
+        return favoritesLoad.thenApply(Function.identity());
+    }
+
+    // FAVORITE TOGGLE - QUEUED ON ArticleWriter, COMPLETES WITH THE STORED STATE
+    public CompletableFuture<ArticleState> setFavorite(Article article, boolean isFavorite) {
+        return onMainThread(articleWriter.setFavorite(article, isFavorite));
+    }
+
+    // Unwraps the CompletionException dependent stages wrap errors in
+    public static Throwable causeOf(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    // Returns the running load for key, or starts one. Each caller gets its own future, so
+    // cancelling it detaches that caller without failing the others
+    private <T> CompletableFuture<T> share(String key, Supplier<CompletableFuture<T>> loader) {
+        return inFlight.join(key, flight -> loader.get());
+    }
+
+    // As above, for loads that can be stopped: loader registers on the flight how to cancel its
+    // work, which happens once every caller has cancelled
+    private <T> CompletableFuture<T> share(String key, Function<SingleFlight.Flight, CompletableFuture<T>> loader) {
+        return inFlight.join(key, loader);
+    }
+
+    // NewsAPI codes are lowercase; blank means the parameter is left out
+    private static String normalizeParam(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Case is kept - NewsAPI reads AND, OR and NOT in capitals as operators - but spacing is not
+    private static String normalizeQuery(String query) {
+        return query != null ? query.trim().replaceAll("\\s+", " ") : null;
+    }
+
+    private CompletableFuture<List<Article>> read(Supplier<List<Article>> query) {
+        return onMainThread(CompletableFuture.supplyAsync(
+                () -> Collections.unmodifiableList(query.get()), executorService));
+    }
+
+    // Errors skip the executor of *Async stages, so this is what moves failures to the main thread too
+    private <T> CompletableFuture<T> onMainThread(CompletableFuture<T> future) {
+        return future.whenCompleteAsync((result, error) -> {}, mainExecutor);
+    }
+
+    // Streamed batches may already be on screen, so stored ids and flags are merged on the main thread
+    private CompletableFuture<List<Article>> saveAndMerge(List<Article> articles, String category) {
+        return articleWriter.saveArticles(articles, category).handleAsync((states, error) -> {
+            if (error != null) {
+                // Still worth showing - only the offline copy is missing
+                Log.e(TAG, "Error saving " + articles.size() + " articles", error);
+                return Collections.unmodifiableList(new ArrayList<>(articles));
+            }
+
+            // Every refresh adds rows, so give the retention policy a chance to trim them
+            CacheRetentionManager.getInstance(appContext).scheduleIfDue();
+            return withStates(articles, states);
+        }, mainExecutor);
+    }
+
+    private static List<Article> withStates(List<Article> articles, Map<String, ArticleState> states) {
+        for (Article article : articles) {
+            ArticleState state = article.getUrl() != null ? states.get(article.getUrl()) : null;
+            if (state != null) {
+                article.setId(state.getId());
+                article.setFavorite(state.isFavorite());
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(articles));
+    }
+
+    // Until the set is loaded the flags each article came with are the best answer, so they are kept
+    private List<Article> withFavorites(List<Article> articles) {
+        if (favorites.isLoaded()) {
+            for (Article article : articles) {
+                article.setFavorite(favorites.contains(article.getUrl()));
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(articles));
+    }
+
+    private static class HeadlinesSnapshot {
+        final List<Article> articles;
+        final long fetchedAt = SystemClock.elapsedRealtime();
+
+        HeadlinesSnapshot(List<Article> articles) {
+            this.articles = articles;
+        }
+
+        boolean isFresh() {
+            return SystemClock.elapsedRealtime() - fetchedAt < HEADLINES_FRESH_MILLIS;
+        }
+    }
+
+    // Completes with the articles of an "ok" response, otherwise with the reason there are none
+    private static class NewsCallback implements Callback<NewsResponse> {
+        private final CompletableFuture<List<Article>> future;
+
+        NewsCallback(CompletableFuture<List<Article>> future) {
+            this.future = future;
+        }
+
+        @Override
+        public void onResponse(@NonNull Call<NewsResponse> call, @NonNull Response<NewsResponse> response) {
+            NewsResponse body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Log.e(TAG, "NewsAPI response not successful - Code: " + response.code());
+                future.completeExceptionally(NewsApiException.fromResponse(response, RetrofitClient.getGson()));
+                return;
+            }
+            if (!"ok".equals(body.getStatus()) || body.getArticles() == null) {
+                Log.e(TAG, "NewsAPI error - Status: " + body.getStatus() + ", Message: " + body.getMessage());
+                future.completeExceptionally(new NewsApiException(body.getMessage(), response.code()));
+                return;
+            }
+
+            Log.d(TAG, "NewsAPI returned " + body.getArticles().size() + " articles");
+            future.complete(body.getArticles());
+        }
+
+        @Override
+        public void onFailure(@NonNull Call<NewsResponse> call, @NonNull Throwable t) {
+            if (call.isCanceled()) {
+                Log.d(TAG, "NewsAPI call cancelled");
+            } else {
+                Log.e(TAG, "NewsAPI call failed", t);
+            }
+            future.completeExceptionally(t);
+        }
+    }
+
+    // Streaming counterpart of NewsCallback: headers arrive on the main thread, the body is
+    // decoded on parseExecutor by StreamedHeadlinesTask and each batch is posted back with
+    // favorite flags applied
+    private class NewsStreamCallback implements Callback<ResponseBody> {
+        private final CompletableFuture<List<Article>> future;
+        private final Consumer<List<Article>> onBatch;
+
+        NewsStreamCallback(CompletableFuture<List<Article>> future, Consumer<List<Article>> onBatch) {
+            this.future = future;
+            this.onBatch = onBatch;
+        }
+
+        @Override
+        public void onResponse(@NonNull Call<ResponseBody> call, @NonNull Response<ResponseBody> response) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                Log.e(TAG, "NewsAPI response not successful - Code: " + response.code());
+                future.completeExceptionally(NewsApiException.fromResponse(response, RetrofitClient.getGson()));
+                return;
+            }
+
+            parseExecutor.execute(new StreamedHeadlinesTask(newsResponseReader, body, response.code(),
+                    HEADLINES_FIRST_BATCH, HEADLINES_BATCH, this::postBatch, call::isCanceled, future));
+        }
+
+        @Override
+        public void onFailure(@NonNull Call<ResponseBody> call, @NonNull Throwable t) {
+            if (call.isCanceled()) {
+                Log.d(TAG, "NewsAPI call cancelled");
+            } else {
+                Log.e(TAG, "NewsAPI call failed", t);
+            }
+            future.completeExceptionally(t);
+        }
+
+        private void postBatch(List<Article> batch) {
+            if (onBatch == null || future.isDone()) {
+                return;
+            }
+            mainExecutor.execute(() -> onBatch.accept(withFavorites(batch)));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.snapnews.repository;
+
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.Gson;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+// NewsAPI answered, but not with articles - an error status, or an unsuccessful HTTP response.
+// Transport failures are reported with the IOException Retrofit gave instead
+public class NewsApiException extends Exception {
+    private final int httpCode;
+
+    public NewsApiException(String message, int httpCode) {
+        super(message);
+        this.httpCode = httpCode;
+    }
+
+    // 200 when NewsAPI returned an error status in the body
+    public int getHttpCode() { return httpCode; }
+
+    // Unsuccessful HTTP response. NewsAPI still sends {status, code, message}, and callers show
+    // and match on that message, e.g. to tell a missing or invalid API key from other failures.
+    // Retrofit has already buffered the error body, so this does no I/O
+    static NewsApiException fromResponse(Response<?> response, Gson gson) {
+        String message = null;
+        ResponseBody errorBody = response.errorBody();
+        if (errorBody != null) {
+            try {
+                NewsResponse error = gson.fromJson(errorBody.charStream(), NewsResponse.class);
+                message = error != null ? error.getMessage() : null;
+            } catch (RuntimeException e) {
+                // Not NewsAPI's JSON, such as a proxy's error page
+            } finally {
+                errorBody.close();
+            }
+        }
+        if (message == null || message.isEmpty()) {
+            message = "Request failed with HTTP " + response.code();
+        }
+        return new NewsApiException(message, response.code());
+    }
+}
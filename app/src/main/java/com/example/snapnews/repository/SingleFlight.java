@@ -0,0 +1,114 @@
+package com.example.snapnews.repository;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Concurrent requests for the same key share one load and its result. Each caller gets its own
+// future and holds one reference to the load; cancelling that future gives the reference up.
+// Only when the last caller has gone before the load finished is the load itself cancelled and
+// its onCancel hooks run - so one screen leaving never stops a call another screen still waits
+// for, and a call nobody waits for any more stops using bandwidth and quota. The next caller for
+// the key starts a new load.
+final class SingleFlight {
+    private static final String TAG = "SingleFlight";
+
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    // One running load, as seen by the code that starts it
+    static final class Flight {
+        private final String key;
+        private final List<Runnable> cancelHooks = new ArrayList<>();
+        private CompletableFuture<?> load;
+        private int callers;
+        private boolean cancelled;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        // Runs on the thread of the last caller to cancel, or right away if that already happened
+        void onCancel(Runnable hook) {
+            synchronized (this) {
+                if (!cancelled) {
+                    cancelHooks.add(hook);
+                    return;
+                }
+            }
+            hook.run();
+        }
+
+        private List<Runnable> cancel() {
+            synchronized (this) {
+                cancelled = true;
+                List<Runnable> hooks = new ArrayList<>(cancelHooks);
+                cancelHooks.clear();
+                return hooks;
+            }
+        }
+    }
+
+    // Returns a new caller future for the running load of key, starting one with loader if none is
+    // running. loader is called with the lock held, so it should only start work, not wait for it
+    <T> CompletableFuture<T> join(String key, Function<Flight, CompletableFuture<T>> loader) {
+        Flight flight;
+        CompletableFuture<T> load;
+        synchronized (flights) {
+            flight = flights.get(key);
+            if (flight == null) {
+                Flight started = new Flight(key);
+                started.load = loader.apply(started);
+                flights.put(key, started);
+                // Registered after put, so a load that already completed is still removed
+                started.load.whenComplete((result, error) -> {
+                    synchronized (flights) {
+                        flights.remove(key, started);
+                    }
+                });
+                flight = started;
+            } else {
+                Log.d(TAG, "Joined running request " + key + " (" + (flight.callers + 1) + " callers)");
+            }
+            flight.callers++;
+            @SuppressWarnings("unchecked")
+            CompletableFuture<T> running = (CompletableFuture<T>) flight.load;
+            load = running;
+        }
+
+        CompletableFuture<T> caller = new CompletableFuture<>();
+        load.whenComplete((result, error) -> {
+            if (error != null) {
+                caller.completeExceptionally(error);
+            } else {
+                caller.complete(result);
+            }
+        });
+
+        final Flight joined = flight;
+        caller.whenComplete((result, error) -> {
+            if (caller.isCancelled()) {
+                release(joined);
+            }
+        });
+        return caller;
+    }
+
+    private void release(Flight flight) {
+        synchronized (flights) {
+            if (--flight.callers > 0 || flight.load.isDone()) {
+                return;
+            }
+            flights.remove(flight.key, flight);
+        }
+
+        Log.d(TAG, "Last caller left " + flight.key + ", cancelling it");
+        for (Runnable hook : flight.cancel()) {
+            hook.run();
+        }
+        flight.load.cancel(false);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.snapnews.repository;
+
+import android.util.Log;
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.example.snapnews.network.NewsResponseReader;
+import okhttp3.ResponseBody;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+// Decodes one streamed top-headlines body on the parse thread and settles its future. Whatever
+// the body holds - cut off, malformed, a number where an object belongs - the future is completed
+// exactly once, so the SingleFlight entry waiting on it is always released
+final class StreamedHeadlinesTask implements Runnable {
+    private static final String TAG = "ArticleRepository";
+
+    private final NewsResponseReader reader;
+    private final ResponseBody body;
+    private final int httpCode;
+    private final int firstBatchSize;
+    private final int batchSize;
+    private final NewsResponseReader.BatchListener batches;
+    private final BooleanSupplier canceled;
+    private final CompletableFuture<List<Article>> future;
+
+    StreamedHeadlinesTask(NewsResponseReader reader, ResponseBody body, int httpCode,
+                          int firstBatchSize, int batchSize, NewsResponseReader.BatchListener batches,
+                          BooleanSupplier canceled, CompletableFuture<List<Article>> future) {
+        this.reader = reader;
+        this.body = body;
+        this.httpCode = httpCode;
+        this.firstBatchSize = firstBatchSize;
+        this.batchSize = batchSize;
+        this.batches = batches;
+        this.canceled = canceled;
+        this.future = future;
+    }
+
+    @Override
+    public void run() {
+        NewsResponse parsed;
+        try (ResponseBody streamed = body) {
+            parsed = reader.read(streamed.charStream(), firstBatchSize, batchSize, batches);
+        } catch (IOException | RuntimeException e) {
+            if (canceled.getAsBoolean()) {
+                Log.d(TAG, "NewsAPI response abandoned");
+            } else {
+                Log.e(TAG, "Error reading NewsAPI response", e);
+            }
+            future.completeExceptionally(e);
+            return;
+        }
+
+        if (!"ok".equals(parsed.getStatus()) || parsed.getArticles() == null) {
+            Log.e(TAG, "NewsAPI error - Status: " + parsed.getStatus() + ", Message: " + parsed.getMessage());
+            future.completeExceptionally(new NewsApiException(parsed.getMessage(), httpCode));
+            return;
+        }
+
+        Log.d(TAG, "NewsAPI streamed " + parsed.getArticles().size() + " articles");
+        future.complete(parsed.getArticles());
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.snapnews.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Codec for article text stored as BLOBs: one format byte, then either raw UTF-8 or
+// a varint of the UTF-8 length followed by raw deflate primed with a preset dictionary.
+// Output is deterministic, so equal text always packs to equal bytes.
+public final class CompressedText {
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_DEFLATE = 1;
+
+    // Shorter text rarely shrinks enough to pay for the extra header
+    private static final int MIN_DEFLATE_BYTES = 48;
+
+    // Phrases common in NewsAPI descriptions and truncated content. Deflate prefers short
+    // distances, so the most frequent strings sit at the end. Changing this breaks every
+    // stored FORMAT_DEFLATE blob - add a new format byte instead.
+    private static final byte[] DICTIONARY = (
+            "according to a statement on Monday Tuesday Wednesday Thursday Friday Saturday Sunday " +
+            "January February March April May June July August September October November December " +
+            "government president minister officials company companies market markets investors " +
+            "percent million billion billion dollars economy economic federal national international " +
+            "announced reported said told reporters would could should have been has been will be " +
+            "people year years week weeks first last after before during while where which " +
+            "United States U.S. China Russia Ukraine Europe European Israel Gaza White House " +
+            "technology science health sports entertainment business Apple Google Microsoft " +
+            "Reuters Associated Press CNN BBC News The New York Times The Washington Post " +
+            "this week this year last year on Sunday on Saturday on Friday on Thursday " +
+            "on Wednesday on Tuesday on Monday in a statement for the first time " +
+            "<ul><li></li></ul><p></p> &amp; &quot; &#39; " +
+            "that the with the from the of the in the to the and the for the on the at the " +
+            "is the was the it is it was he said she said they said the said. " +
+            "…  [+ chars] chars]"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private CompressedText() {}
+
+    public static byte[] pack(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= MIN_DEFLATE_BYTES) {
+            byte[] packed = deflate(raw);
+            if (packed != null) {
+                return packed;
+            }
+        }
+
+        byte[] plain = new byte[raw.length + 1];
+        plain[0] = FORMAT_PLAIN;
+        System.arraycopy(raw, 0, plain, 1, raw.length);
+        return plain;
+    }
+
+    public static String unpack(byte[] packed) {
+        if (packed == null || packed.length == 0) {
+            return null;
+        }
+
+        switch (packed[0]) {
+            case FORMAT_PLAIN:
+                return new String(packed, 1, packed.length - 1, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE:
+                return inflate(packed);
+            default:
+                throw new IllegalArgumentException("Unknown text format " + packed[0]);
+        }
+    }
+
+    // Returns null when the deflated form would not be smaller than the plain one
+    private static byte[] deflate(byte[] raw) {
+        byte[] buffer = new byte[raw.length];
+        buffer[0] = FORMAT_DEFLATE;
+        int offset = writeVarint(buffer, 1, raw.length);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(raw);
+            deflater.finish();
+            int length = deflater.deflate(buffer, offset, buffer.length - offset);
+            if (!deflater.finished()) {
+                return null;
+            }
+            return Arrays.copyOf(buffer, offset + length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] packed) {
+        int rawLength = 0;
+        int shift = 0;
+        int offset = 1;
+        byte b;
+        do {
+            b = packed[offset++];
+            rawLength |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(packed, offset, packed.length - offset);
+            int length = 0;
+            while (length < rawLength) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != rawLength) {
+                throw new IllegalArgumentException("Truncated text blob");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt text blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.snapnews.utils;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+
+public class SearchHighlighter {
+    // Markers written by the offline search snippet around every matched term
+    public static final char HIGHLIGHT_START = '\u0002';
+    public static final char HIGHLIGHT_END = '\u0003';
+
+    // Strips the markers and bolds the text between them
+    public static CharSequence highlight(String snippet) {
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        if (snippet == null) {
+            return builder;
+        }
+
+        int spanStart = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == HIGHLIGHT_START) {
+                spanStart = builder.length();
+            } else if (c == HIGHLIGHT_END) {
+                if (spanStart >= 0 && spanStart < builder.length()) {
+                    builder.setSpan(new StyleSpan(Typeface.BOLD), spanStart, builder.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                spanStart = -1;
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder;
+    }
+}
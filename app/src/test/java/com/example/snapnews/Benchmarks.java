@@ -0,0 +1,46 @@
+package com.example.snapnews;
+
+import org.junit.Assume;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Benchmarks live with the unit tests but only run with -Psnapnews.benchmarks=true, so the normal
+// test task stays fast. Results go to stdout; they compare variants, they do not assert speed
+public final class Benchmarks {
+    public static final String PROPERTY = "snapnews.benchmarks";
+
+    private Benchmarks() {}
+
+    public static void assumeEnabled() {
+        Assume.assumeTrue("benchmarks are off, pass -P" + PROPERTY + "=true", Boolean.getBoolean(PROPERTY));
+    }
+
+    // Per-run times in nanoseconds, sorted, after the given number of untimed warm-up runs
+    public static long[] time(int warmup, int runs, Runnable body) {
+        for (int i = 0; i < warmup; i++) {
+            body.run();
+        }
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            body.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    public static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    public static void report(String benchmark, String variant, long[] sorted) {
+        System.out.println(String.format(Locale.US, "[benchmark] %s / %s: median %.1f us, p95 %.1f us, n=%d",
+                benchmark, variant, percentile(sorted, 50) / 1000.0, percentile(sorted, 95) / 1000.0, sorted.length));
+    }
+
+    public static void report(String benchmark, String line) {
+        System.out.println("[benchmark] " + benchmark + ": " + line);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.BuildConfig;
+import com.example.snapnews.models.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleCacheTest {
+    private static final String URL = "https://example.com/cached";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL, "Cached", 1_000)));
+        DaoStats.setEnabled(true);
+        DaoStats.reset();
+    }
+
+    @After
+    public void tearDown() {
+        DaoStats.setEnabled(BuildConfig.DEBUG);
+        DaoStats.reset();
+    }
+
+    @Test
+    public void repeatedLookup_doesNotTouchTheDatabase() {
+        Article first = dao.getArticleByUrl(URL);
+        // Removed behind the cache's back: only a query could notice
+        helper.getDatabase().delete(NewsDatabaseHelper.TABLE_ARTICLES, null, null);
+        Article second = dao.getArticleByUrl(URL);
+
+        assertEquals(1, DaoStats.GET_BY_URL.count.get());
+        assertEquals(1, DaoStats.GET_BY_URL_CACHED.count.get());
+        assertNotNull(second);
+        assertEquals("Cached", second.getTitle());
+        assertEquals("Description of Cached", second.getDescription());
+        assertEquals(first.getId(), second.getId());
+        // Every hit is a fresh copy, so callers may mutate it
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void unknownUrl_isCachedAsNotStored() {
+        assertNull(dao.getArticleByUrl("https://example.com/missing"));
+        assertNull(dao.getArticleByUrl("https://example.com/missing"));
+
+        assertEquals(1, DaoStats.GET_BY_URL.count.get());
+        assertEquals(1, DaoStats.GET_BY_URL_CACHED.count.get());
+    }
+
+    @Test
+    public void write_invalidatesTheCachedRow() {
+        assertFalse(dao.getArticleByUrl(URL).isFavorite());
+
+        dao.updateFavoriteStatus(URL, true);
+
+        assertTrue(dao.getArticleByUrl(URL).isFavorite());
+        assertEquals(2, DaoStats.GET_BY_URL.count.get());
+    }
+
+    @Test
+    public void fillReadBeforeAWrite_isDropped() {
+        ArticleCache cache = ArticleCache.getInstance();
+        long urlKey = UrlKey.of(URL);
+
+        // A lookup that read the row, then lost the race with a writer before caching it
+        long readGeneration = cache.generation();
+        Article staleRow = TestDatabase.article(URL, "Cached", 1_000);
+        dao.updateFavoriteStatus(URL, true);
+        cache.put(urlKey, staleRow, readGeneration);
+
+        assertSame(ArticleCache.NOT_CACHED, cache.get(urlKey));
+        assertTrue(dao.getArticleByUrl(URL).isFavorite());
+        assertEquals(1, DaoStats.GET_BY_URL.count.get());
+    }
+
+    @Test
+    public void fillAtTheCurrentGeneration_isKept() {
+        ArticleCache cache = ArticleCache.getInstance();
+        long urlKey = UrlKey.of(URL);
+
+        cache.put(urlKey, TestDatabase.article(URL, "Filled", 1_000), cache.generation());
+
+        assertEquals("Filled", cache.get(urlKey).getTitle());
+    }
+}
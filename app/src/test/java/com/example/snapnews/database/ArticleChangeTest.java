@@ -0,0 +1,134 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static android.os.Looper.getMainLooper;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleChangeTest {
+    private static final String URL_A = "https://example.com/a";
+    private static final String URL_B = "https://example.com/b";
+
+    private final List<ArticleChange> published = new ArrayList<>();
+    private final ArticleDao.OnArticlesChangedListener listener = published::addAll;
+
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        dao = new ArticleDao(TestDatabase.open());
+        FavoriteSet.getInstance().abortLoad();
+        FavoriteSet.getInstance().finishLoad(new long[0]);
+        ArticleDao.addOnArticlesChangedListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        ArticleDao.removeOnArticlesChangedListener(listener);
+    }
+
+    private List<ArticleChange> drain() {
+        shadowOf(getMainLooper()).idle();
+        List<ArticleChange> changes = new ArrayList<>(published);
+        published.clear();
+        return changes;
+    }
+
+    @Test
+    public void insertArticles_publishesContentChanges() {
+        dao.insertArticles(Arrays.asList(
+                TestDatabase.article(URL_A, "A", 1_000), TestDatabase.article(URL_B, "B", 2_000)));
+
+        List<ArticleChange> changes = drain();
+        assertEquals(2, changes.size());
+        for (ArticleChange change : changes) {
+            assertEquals(ArticleChange.Kind.CONTENT, change.getKind());
+            assertNotNull(change.getArticle());
+        }
+    }
+
+    @Test
+    public void unchangedRefresh_publishesNothing() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 1_000)));
+        drain();
+
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 2_000)));
+
+        assertTrue(drain().isEmpty());
+    }
+
+    @Test
+    public void updateFavoriteStatus_publishesTheFlag() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 1_000)));
+        drain();
+
+        dao.updateFavoriteStatus(URL_A, true);
+
+        ArticleChange change = single(drain());
+        assertEquals(ArticleChange.Kind.FAVORITE, change.getKind());
+        assertTrue(change.isFavorite());
+        assertEquals(UrlKey.of(URL_A), change.getUrlKey());
+        assertTrue(FavoriteSet.getInstance().contains(UrlKey.of(URL_A)));
+    }
+
+    @Test
+    public void updateArticle_publishesTheFlag() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 1_000)));
+        drain();
+        Article article = TestDatabase.article(URL_A, "A", 1_000);
+        article.setFavorite(true);
+
+        dao.updateArticle(article);
+
+        ArticleChange change = single(drain());
+        assertEquals(ArticleChange.Kind.FAVORITE, change.getKind());
+        assertTrue(change.isFavorite());
+        assertSame(article, change.getArticle());
+    }
+
+    @Test
+    public void deletingAFavorite_publishesItAsNoLongerFavorite() {
+        Article article = TestDatabase.article(URL_A, "A", 1_000);
+        dao.insertArticles(Collections.singletonList(article));
+        dao.updateFavoriteStatus(URL_A, true);
+        int id = dao.getArticleByUrl(URL_A).getId();
+        drain();
+
+        dao.deleteArticle(article);
+
+        ArticleChange change = single(drain());
+        assertEquals(ArticleChange.Kind.FAVORITE, change.getKind());
+        assertFalse(change.isFavorite());
+        assertEquals(UrlKey.of(URL_A), change.getUrlKey());
+        assertEquals(id, change.getId());
+        assertFalse(FavoriteSet.getInstance().contains(UrlKey.of(URL_A)));
+    }
+
+    @Test
+    public void deletingANonFavorite_publishesNothing() {
+        Article article = TestDatabase.article(URL_A, "A", 1_000);
+        dao.insertArticles(Collections.singletonList(article));
+        drain();
+
+        dao.deleteArticle(article);
+
+        assertTrue(drain().isEmpty());
+    }
+
+    private static ArticleChange single(List<ArticleChange> changes) {
+        assertEquals(changes.toString(), 1, changes.size());
+        return changes.get(0);
+    }
+}
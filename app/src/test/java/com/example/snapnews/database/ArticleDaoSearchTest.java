@@ -0,0 +1,58 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.utils.SearchHighlighter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleDaoSearchTest {
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        dao = new ArticleDao(TestDatabase.open());
+        Article inBody = TestDatabase.article("https://example.com/body", "Markets close higher", 1_000);
+        inBody.setContent("Traders also watched the election closely.");
+        Article inTitle = TestDatabase.article("https://example.com/title", "Election results are in", 2_000);
+        dao.insertArticles(Arrays.asList(inBody, inTitle), "business");
+
+        List<Article> filler = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            filler.add(TestDatabase.article("https://example.com/filler/" + i, "Weather update " + i, i));
+        }
+        dao.insertArticles(filler, "general");
+    }
+
+    @Test
+    public void titleHit_ranksAboveBodyHit() {
+        List<Article> results = dao.searchArticles("elect");
+
+        assertEquals(2, results.size());
+        assertEquals("https://example.com/title", results.get(0).getUrl());
+        assertEquals("https://example.com/body", results.get(1).getUrl());
+        assertTrue(results.get(0).getMatchSnippet().contains(SearchHighlighter.HIGHLIGHT_START + "Election"));
+        assertTrue(results.get(1).getMatchSnippet().contains(SearchHighlighter.HIGHLIGHT_START + "election"));
+    }
+
+    @Test
+    public void everyTermMustMatch() {
+        assertEquals(1, dao.searchArticles("election results").size());
+        assertTrue(dao.searchArticles("election weather").isEmpty());
+    }
+
+    @Test
+    public void category_restrictsMatches() {
+        assertEquals(50, dao.searchArticles("weather", null, 100).size());
+        assertTrue(dao.searchArticles("weather", "business", 100).isEmpty());
+        assertEquals(10, dao.searchArticles("weather", "general", 10).size());
+    }
+}
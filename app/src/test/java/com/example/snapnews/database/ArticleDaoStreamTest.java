@@ -0,0 +1,172 @@
+package com.example.snapnews.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import com.example.snapnews.utils.CompressedText;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleDaoStreamTest {
+    private static final int ROWS = 100_000;
+    // Enough for the walk's control flow; only the heap test needs the full table
+    private static final int SMALL_ROWS = 10_000;
+    private static final String FILLER = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod " +
+            "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud. ";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+    }
+
+    // Straight into the tables: the walk only reads them, and 100k upserts would take minutes
+    private void fill(int rows) {
+        SQLiteDatabase db = helper.getDatabase();
+        SQLiteStatement article = db.compileStatement("INSERT INTO " + NewsDatabaseHelper.TABLE_ARTICLES + " (" +
+                NewsDatabaseHelper.COLUMN_ID + ", " + NewsDatabaseHelper.COLUMN_URL_KEY + ", " +
+                NewsDatabaseHelper.COLUMN_URL + ", " + NewsDatabaseHelper.COLUMN_TITLE + ", " +
+                NewsDatabaseHelper.COLUMN_DESCRIPTION_PACKED + ", " + NewsDatabaseHelper.COLUMN_TIMESTAMP +
+                ") VALUES (?, ?, ?, ?, ?, ?)");
+        SQLiteStatement body = db.compileStatement("INSERT INTO " + NewsDatabaseHelper.TABLE_ARTICLE_BODIES + " (" +
+                NewsDatabaseHelper.COLUMN_ARTICLE_ID + ", " + NewsDatabaseHelper.COLUMN_CONTENT_PACKED + ") VALUES (?, ?)");
+        db.beginTransaction();
+        try {
+            for (int id = 1; id <= rows; id++) {
+                String url = "https://example.com/story/" + id;
+                article.bindLong(1, id);
+                article.bindLong(2, UrlKey.of(url));
+                article.bindString(3, url);
+                article.bindString(4, id + " " + FILLER);
+                article.bindBlob(5, CompressedText.pack(FILLER + id));
+                article.bindLong(6, id);
+                article.executeInsert();
+                body.bindLong(1, id);
+                body.bindBlob(2, CompressedText.pack(FILLER + FILLER + FILLER + id));
+                body.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            article.close();
+            body.close();
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void hundredThousandRows_streamInIdOrderThroughOneViewWithBoundedHeap() {
+        fill(ROWS);
+        ArticleRowView[] view = new ArticleRowView[1];
+        AtomicInteger lastId = new AtomicInteger();
+        long[] heap = new long[2];
+
+        int delivered = dao.streamArticles(true, null, row -> {
+            if (view[0] == null) {
+                view[0] = row;
+            }
+            assertSame(view[0], row);
+            assertEquals(lastId.get() + 1, row.getId());
+            lastId.set(row.getId());
+            // Decode text the way a bulk job would; none of it is kept
+            assertTrue(row.getTitle().startsWith(row.getId() + " "));
+            assertTrue(row.getContent().endsWith(String.valueOf(row.getId())));
+
+            if (row.getId() == 10_000) {
+                heap[0] = usedHeapAfterGc();
+            } else if (row.getId() == ROWS) {
+                heap[1] = usedHeapAfterGc();
+            }
+            return true;
+        });
+
+        assertEquals(ROWS, delivered);
+        assertEquals(ROWS, lastId.get());
+        // Ninety thousand more rows with ~600 chars of text each would be tens of MB if retained
+        long growth = heap[1] - heap[0];
+        assertTrue("heap grew " + (growth >> 10) + " KiB over 90,000 rows", growth < 4L * 1024 * 1024);
+    }
+
+    @Test
+    public void smallWindows_stillVisitEveryRowOnce() {
+        fill(SMALL_ROWS);
+        AtomicInteger sum = new AtomicInteger();
+        int delivered = dao.streamArticles(false, 7, null, row -> {
+            sum.addAndGet(row.getId() % 1000);
+            assertNull(row.getContent());
+            return true;
+        });
+
+        assertEquals(SMALL_ROWS, delivered);
+        assertEquals(SMALL_ROWS / 1000 * (999 * 1000 / 2), sum.get());
+    }
+
+    @Test
+    public void consumerReturningFalse_stopsTheWalk() {
+        fill(SMALL_ROWS);
+        int delivered = dao.streamArticles(false, null, row -> row.getId() < 1_234);
+        assertEquals(1_234, delivered);
+    }
+
+    @Test
+    public void cancellation_stopsTheWalk() {
+        fill(SMALL_ROWS);
+        CancellationSignal signal = new CancellationSignal();
+        int delivered = dao.streamArticles(false, signal, row -> {
+            if (row.getId() == 5_000) {
+                signal.cancel();
+            }
+            return true;
+        });
+        assertTrue("delivered " + delivered, delivered >= 5_000 && delivered < SMALL_ROWS);
+    }
+
+    @Test
+    public void consumerFailure_isRethrownRatherThanAPartialCount() {
+        fill(SMALL_ROWS);
+        AtomicInteger seen = new AtomicInteger();
+        try {
+            dao.streamArticles(false, null, row -> {
+                if (seen.incrementAndGet() == 500) {
+                    throw new IllegalStateException("consumer failed");
+                }
+                return true;
+            });
+            fail("Expected the consumer's exception");
+        } catch (IllegalStateException e) {
+            assertEquals("consumer failed", e.getMessage());
+        }
+        assertEquals(500, seen.get());
+    }
+
+    @Test
+    public void queryFailure_isRethrown() {
+        fill(SMALL_ROWS);
+        // The walk's query no longer compiles
+        helper.getDatabase().execSQL("DROP TABLE " + NewsDatabaseHelper.TABLE_ARTICLES_FTS);
+        helper.getDatabase().execSQL("ALTER TABLE " + NewsDatabaseHelper.TABLE_ARTICLES + " RENAME TO gone");
+        try {
+            dao.streamArticles(false, null, row -> true);
+            fail("Expected the query to fail");
+        } catch (SQLiteException expected) {
+        }
+    }
+}
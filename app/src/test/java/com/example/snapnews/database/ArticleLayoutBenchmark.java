@@ -0,0 +1,101 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// List queries against articles, whose bodies live in article_bodies since version 8, and against
+// a copy of the same rows with the body stored inline as it was up to version 7
+@RunWith(RobolectricTestRunner.class)
+public class ArticleLayoutBenchmark {
+    private static final int ROWS = 2_000;
+    private static final String INLINE_TABLE = "articles_inline";
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    private void fill(int bodyChars) {
+        NewsDatabaseHelper helper = TestDatabase.open();
+        Random random = new Random(bodyChars);
+        List<Article> articles = new ArrayList<>(ROWS);
+        char[] body = new char[bodyChars];
+        for (int i = 0; i < ROWS; i++) {
+            for (int c = 0; c < body.length; c++) {
+                body[c] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+            }
+            Article article = TestDatabase.article("https://example.com/" + i, "Article " + i, i);
+            article.setContent(new String(body));
+            articles.add(article);
+        }
+        new ArticleDao(helper).insertArticles(articles);
+
+        db = helper.getDatabase();
+        db.execSQL("DROP TABLE IF EXISTS " + INLINE_TABLE);
+        db.execSQL("CREATE TABLE " + INLINE_TABLE + " AS SELECT a.*, b." + NewsDatabaseHelper.COLUMN_CONTENT_PACKED +
+                " FROM " + ArticleRowMapper.FULL_FROM + " ORDER BY a." + NewsDatabaseHelper.COLUMN_ID);
+        db.execSQL("CREATE INDEX " + INLINE_TABLE + "_timestamp ON " + INLINE_TABLE +
+                " (" + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC, " + NewsDatabaseHelper.COLUMN_ID + " DESC)");
+        db.execSQL("ANALYZE");
+    }
+
+    private int read(String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                mapper.map(cursor);
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void compare(String benchmark, String suffix, int rows) {
+        String[] tables = {NewsDatabaseHelper.TABLE_ARTICLES, INLINE_TABLE};
+        // Both tables warm before either is timed, so neither pays for JIT or the page cache
+        for (String table : tables) {
+            Benchmarks.time(50, 0, () -> read("SELECT " + ArticleRowMapper.LIST_PROJECTION + " FROM " + table + suffix));
+        }
+        for (String table : tables) {
+            String sql = "SELECT " + ArticleRowMapper.LIST_PROJECTION + " FROM " + table + suffix;
+            long[] nanos = Benchmarks.time(20, 300, () -> read(sql));
+            Benchmarks.report(benchmark, String.format(Locale.US, "%s: %.0f rows/s (median %.1f us)",
+                    table, rows * 1e9 / Benchmarks.percentile(nanos, 50), Benchmarks.percentile(nanos, 50) / 1000.0));
+        }
+    }
+
+    private void run(int bodyChars) {
+        fill(bodyChars);
+        String label = bodyChars + "-char bodies";
+        compare("feed page, " + label, " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC, " +
+                NewsDatabaseHelper.COLUMN_ID + " DESC LIMIT 20", 20);
+        compare("full list, " + label, "", ROWS);
+    }
+
+    @Test
+    public void listQueries_shortBodies() {
+        run(200);
+    }
+
+    @Test
+    public void listQueries_longBodies() {
+        run(2_000);
+    }
+}
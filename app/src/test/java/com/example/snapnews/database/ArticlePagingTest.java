@@ -0,0 +1,95 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticlePagingTest {
+    private static final int ROWS = 95;
+    private static final int PAGE_SIZE = 10;
+
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        dao = new ArticleDao(TestDatabase.open());
+        List<Article> articles = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            // Runs of three equal timestamps, so page boundaries fall inside ties
+            Article article = TestDatabase.article("https://example.com/" + i, "Story " + i, i / 3);
+            article.setFavorite(i % 2 == 0);
+            articles.add(article);
+        }
+        dao.insertArticles(articles, "business");
+    }
+
+    private interface Pager {
+        List<Article> page(PageKey after);
+    }
+
+    private static List<Article> walk(Pager pager) {
+        List<Article> all = new ArrayList<>();
+        PageKey after = PageKey.FIRST;
+        List<Article> page;
+        do {
+            page = pager.page(after);
+            assertTrue(page.size() <= PAGE_SIZE);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                after = PageKey.after(page.get(page.size() - 1));
+            }
+        } while (page.size() == PAGE_SIZE);
+        return all;
+    }
+
+    private static void assertNewestFirstWithoutRepeats(List<Article> articles) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < articles.size(); i++) {
+            Article article = articles.get(i);
+            assertTrue("repeated " + article.getId(), ids.add(article.getId()));
+            if (i > 0) {
+                Article previous = articles.get(i - 1);
+                assertTrue(previous.getTimestamp() > article.getTimestamp()
+                        || (previous.getTimestamp() == article.getTimestamp() && previous.getId() > article.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void feed_visitsEveryRowOnceAcrossTies() {
+        List<Article> all = walk(after -> dao.getArticlesPage(after, PAGE_SIZE));
+
+        assertEquals(ROWS, all.size());
+        assertNewestFirstWithoutRepeats(all);
+    }
+
+    @Test
+    public void favorites_visitOnlyFavoritesOnceAcrossTies() {
+        List<Article> all = walk(after -> dao.getFavoriteArticlesPage(after, PAGE_SIZE));
+
+        assertEquals((ROWS + 1) / 2, all.size());
+        assertNewestFirstWithoutRepeats(all);
+        for (Article article : all) {
+            assertTrue(article.isFavorite());
+        }
+    }
+
+    @Test
+    public void category_visitsEveryLinkedRowOnce() {
+        List<Article> all = walk(after -> dao.getArticlesByCategory("Business", after, PAGE_SIZE));
+
+        assertEquals(ROWS, all.size());
+        assertNewestFirstWithoutRepeats(all);
+        assertTrue(dao.getArticlesByCategory("sports", PageKey.FIRST, PAGE_SIZE).isEmpty());
+    }
+}
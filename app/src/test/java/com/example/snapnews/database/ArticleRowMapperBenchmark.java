@@ -0,0 +1,82 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.Article;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Rows per second and bytes allocated per row for a full-table read: a mapper resolved once per
+// cursor over the list projection, against the old way of resolving every column by name on every
+// row of a SELECT *
+@RunWith(RobolectricTestRunner.class)
+public class ArticleRowMapperBenchmark {
+    private static final int ROWS = 2_000;
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        NewsDatabaseHelper helper = TestDatabase.open();
+        List<Article> articles = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            articles.add(TestDatabase.article("https://example.com/" + i, "Article " + i, i));
+        }
+        new ArticleDao(helper).insertArticles(articles);
+        db = helper.getDatabase();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private int readAll(String sql, Function<Cursor, Function<Cursor, Article>> mapperFor) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            Function<Cursor, Article> mapper = mapperFor.apply(cursor);
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                mapper.apply(cursor);
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void run(String variant, String sql, Function<Cursor, Function<Cursor, Article>> mapperFor) {
+        long[] nanos = Benchmarks.time(20, 100, () -> readAll(sql, mapperFor));
+        long before = allocatedBytes();
+        readAll(sql, mapperFor);
+        long bytesPerRow = (allocatedBytes() - before) / ROWS;
+        Benchmarks.report("row mapping", String.format(Locale.US, "%s: %.0f rows/s, %d bytes/row",
+                variant, ROWS * 1e9 / Benchmarks.percentile(nanos, 50), bytesPerRow));
+    }
+
+    @Test
+    public void fullTableRead_perCursorVersusPerRowColumnLookup() {
+        String selectAll = "SELECT * FROM " + NewsDatabaseHelper.TABLE_ARTICLES;
+        String selectList = "SELECT " + ArticleRowMapper.LIST_PROJECTION + " FROM " + NewsDatabaseHelper.TABLE_ARTICLES;
+
+        run("SELECT *, columns looked up per row", selectAll,
+                cursor -> row -> new ArticleRowMapper(row).map(row));
+        run("SELECT *, columns looked up per cursor", selectAll,
+                cursor -> new ArticleRowMapper(cursor)::map);
+        run("list projection, columns looked up per cursor", selectList,
+                cursor -> new ArticleRowMapper(cursor)::map);
+    }
+}
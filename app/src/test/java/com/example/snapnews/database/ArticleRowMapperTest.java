@@ -0,0 +1,83 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleRowMapperTest {
+    private static final String URL = "https://example.com/mapped";
+
+    private NewsDatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        Article article = TestDatabase.article(URL, "Mapped", 1_000);
+        article.setFavorite(true);
+        new ArticleDao(helper).insertArticles(Collections.singletonList(article));
+    }
+
+    private Article mapOne(String sql) {
+        Cursor cursor = helper.getDatabase().rawQuery(sql, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return new ArticleRowMapper(cursor).map(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void listProjection_mapsEveryListColumnAndLeavesTheBodyOut() {
+        Article article = mapOne("SELECT " + ArticleRowMapper.LIST_PROJECTION +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES);
+
+        assertTrue(article.getId() > 0);
+        assertEquals("Mapped", article.getTitle());
+        assertEquals("Description of Mapped", article.getDescription());
+        assertEquals(URL, article.getUrl());
+        assertEquals("2024-01-01T00:00:00Z", article.getPublishedAt());
+        assertEquals("Author", article.getAuthor());
+        assertEquals("id", article.getSource().getId());
+        assertEquals("Source", article.getSource().getName());
+        assertTrue(article.isFavorite());
+        assertEquals(1_000, article.getTimestamp());
+        assertNull(article.getPackedContent());
+        assertNull(article.getContent());
+    }
+
+    @Test
+    public void fullProjection_alsoMapsTheBody() {
+        Article article = mapOne("SELECT " + ArticleRowMapper.FULL_PROJECTION +
+                " FROM " + ArticleRowMapper.FULL_FROM);
+
+        assertEquals("Mapped", article.getTitle());
+        assertNotNull(article.getPackedContent());
+        assertEquals("Body of Mapped", article.getContent());
+    }
+
+    @Test
+    public void narrowProjection_leavesMissingColumnsAtTheirDefaults() {
+        Article article = mapOne("SELECT " + NewsDatabaseHelper.COLUMN_ID + ", " + NewsDatabaseHelper.COLUMN_URL +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES);
+
+        assertEquals(URL, article.getUrl());
+        assertNull(article.getTitle());
+        assertNull(article.getDescription());
+        assertNull(article.getSource());
+        assertFalse(article.isFavorite());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectionWithoutUrl_isRejected() {
+        mapOne("SELECT " + NewsDatabaseHelper.COLUMN_ID + " FROM " + NewsDatabaseHelper.TABLE_ARTICLES);
+    }
+}
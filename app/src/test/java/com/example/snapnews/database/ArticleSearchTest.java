@@ -0,0 +1,147 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+import com.example.snapnews.utils.SearchHighlighter;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ArticleSearchTest {
+    private static final int COLUMNS = 5;
+    private static final int TITLE = 0;
+    private static final int CONTENT = 2;
+
+    // matchinfo 'pcnalx' for one phrase: hits[c] in this row, docsWithHit for the phrase,
+    // rows in the index, and this row's column lengths against an average of 10 tokens
+    private static byte[] matchinfo(int rows, int docsWithHit, int[] lengths, int[] hits) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (3 + 2 * COLUMNS + 3 * COLUMNS)).order(ByteOrder.nativeOrder());
+        buffer.putInt(1).putInt(COLUMNS).putInt(rows);
+        for (int c = 0; c < COLUMNS; c++) {
+            buffer.putInt(10);
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            buffer.putInt(lengths[c]);
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            buffer.putInt(hits[c]).putInt(hits[c] * docsWithHit).putInt(hits[c] > 0 ? docsWithHit : 0);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] hitIn(int column, int count, int docsWithHit, int length) {
+        int[] lengths = {10, 10, 10, 10, 10};
+        lengths[column] = length;
+        int[] hits = new int[COLUMNS];
+        hits[column] = count;
+        return matchinfo(1000, docsWithHit, lengths, hits);
+    }
+
+    @Test
+    public void buildMatchQuery_quotesEveryTokenAsAPrefix() {
+        assertEquals("\"climate*\" \"chan*\"", ArticleSearch.buildMatchQuery("Climate chan"));
+    }
+
+    @Test
+    public void buildMatchQuery_dropsFtsSyntax() {
+        assertEquals("\"a*\" \"or*\" \"b*\" \"near*\" \"c*\"",
+                ArticleSearch.buildMatchQuery("a OR \"b\" NEAR -c*"));
+        assertEquals("\"title*\" \"x*\"", ArticleSearch.buildMatchQuery("title:x"));
+    }
+
+    @Test
+    public void buildMatchQuery_keepsNonLatinTokens() {
+        assertEquals("\"été*\" \"東京*\" \"2024*\"", ArticleSearch.buildMatchQuery("Été, 東京 2024!"));
+    }
+
+    @Test
+    public void buildMatchQuery_isNullWithoutTokens() {
+        assertNull(ArticleSearch.buildMatchQuery(null));
+        assertNull(ArticleSearch.buildMatchQuery(""));
+        assertNull(ArticleSearch.buildMatchQuery("  \"* - : "));
+    }
+
+    @Test
+    public void queryTerms_areLowerCased() {
+        assertEquals(Arrays.asList("white", "house"), ArticleSearch.queryTerms("WHITE House"));
+        assertTrue(ArticleSearch.queryTerms(null).isEmpty());
+    }
+
+    @Test
+    public void bm25_isZeroForMissingOrEmptyMatchinfo() {
+        assertEquals(0, ArticleSearch.bm25(null), 0);
+        assertEquals(0, ArticleSearch.bm25(new byte[8]), 0);
+        assertEquals(0, ArticleSearch.bm25(matchinfo(1000, 10, new int[]{10, 10, 10, 10, 10}, new int[COLUMNS])), 0);
+    }
+
+    @Test
+    public void bm25_growsWithTermFrequencyButSaturates() {
+        double once = ArticleSearch.bm25(hitIn(CONTENT, 1, 10, 10));
+        double twice = ArticleSearch.bm25(hitIn(CONTENT, 2, 10, 10));
+        double often = ArticleSearch.bm25(hitIn(CONTENT, 50, 10, 10));
+
+        assertTrue(once > 0);
+        assertTrue(twice > once);
+        assertTrue(often > twice);
+        // k1 = 1.2 caps the tf factor at 2.2 times a single hit's
+        assertTrue(often < once * 2.2);
+    }
+
+    @Test
+    public void bm25_favoursRareTerms() {
+        assertTrue(ArticleSearch.bm25(hitIn(CONTENT, 1, 5, 10)) > ArticleSearch.bm25(hitIn(CONTENT, 1, 500, 10)));
+    }
+
+    @Test
+    public void bm25_favoursShortColumns() {
+        assertTrue(ArticleSearch.bm25(hitIn(CONTENT, 1, 10, 5)) > ArticleSearch.bm25(hitIn(CONTENT, 1, 10, 50)));
+    }
+
+    @Test
+    public void bm25_weightsTitleAboveContent() {
+        double title = ArticleSearch.bm25(hitIn(TITLE, 1, 10, 10));
+        double content = ArticleSearch.bm25(hitIn(CONTENT, 1, 10, 10));
+
+        assertEquals(4.0, title / content, 1e-9);
+    }
+
+    @Test
+    public void buildSnippet_highlightsHitsInTheBestColumn() {
+        Article article = new Article("Budget talks", "Leaders meet on the budget", "https://example.com/a",
+                null, null, null, "Budget Desk", new Source(null, "News"));
+
+        String snippet = ArticleSearch.buildSnippet(article, Collections.singletonList("budg"));
+
+        assertEquals(SearchHighlighter.HIGHLIGHT_START + "Budget" + SearchHighlighter.HIGHLIGHT_END + " talks", snippet);
+    }
+
+    @Test
+    public void buildSnippet_windowsLongTextAroundTheHits() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            content.append("word").append(i).append(' ');
+        }
+        content.append("election results");
+        Article article = new Article("Title", null, "https://example.com/a", null, null,
+                content.toString(), null, null);
+
+        String snippet = ArticleSearch.buildSnippet(article, Collections.singletonList("election"));
+
+        assertTrue(snippet, snippet.startsWith(ArticleSearch.SNIPPET_ELLIPSIS));
+        assertTrue(snippet, snippet.contains(SearchHighlighter.HIGHLIGHT_START + "election" +
+                SearchHighlighter.HIGHLIGHT_END));
+        assertFalse(snippet, snippet.contains("word0 "));
+    }
+
+    @Test
+    public void buildSnippet_isNullWithoutHits() {
+        Article article = new Article("Title", "Description", "https://example.com/a", null, null, null, null, null);
+
+        assertNull(ArticleSearch.buildSnippet(article, Collections.singletonList("missing")));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleStatesTest {
+    // More keys than one IN list may hold, with chunk boundaries falling inside the stored range
+    private static final int STORED = 1_200;
+    private static final int UNKNOWN = 300;
+
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        dao = new ArticleDao(TestDatabase.open());
+    }
+
+    private static String url(int i) {
+        return "https://example.com/states/" + i;
+    }
+
+    @Test
+    public void manyUrls_areLookedUpAcrossChunks() {
+        List<Article> articles = new ArrayList<>(STORED);
+        for (int i = 0; i < STORED; i++) {
+            articles.add(TestDatabase.article(url(i), "Article " + i, 1_000 + i));
+        }
+        dao.insertArticles(articles);
+        dao.updateFavoriteStatus(url(0), true);
+        dao.updateFavoriteStatus(url(STORED - 1), true);
+
+        List<String> urls = new ArrayList<>(STORED + UNKNOWN);
+        for (int i = 0; i < STORED + UNKNOWN; i++) {
+            urls.add(url(i));
+        }
+        Map<String, ArticleState> states = dao.getArticleStates(urls);
+
+        assertEquals(STORED, states.size());
+        for (int i = 0; i < STORED; i++) {
+            assertNotNull(url(i), states.get(url(i)));
+        }
+        for (int i = STORED; i < STORED + UNKNOWN; i++) {
+            assertFalse(url(i), states.containsKey(url(i)));
+        }
+        assertTrue(states.get(url(0)).isFavorite());
+        assertTrue(states.get(url(STORED - 1)).isFavorite());
+        assertFalse(states.get(url(STORED / 2)).isFavorite());
+    }
+
+    @Test
+    public void urlVariants_allMapToTheOneStoredRow() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(url(1), "Article", 1_000)));
+        dao.updateFavoriteStatus(url(1), true);
+        int id = dao.getArticleByUrl(url(1)).getId();
+
+        List<String> variants = Arrays.asList(
+                url(1),
+                url(1) + "?utm_source=feed",
+                url(1) + "?fbclid=abc",
+                "https://example.com:443/states/1?utm_medium=social&gclid=x");
+        Map<String, ArticleState> states = dao.getArticleStates(variants);
+
+        // Keyed by every string the caller passed, not just the canonical one
+        assertEquals(variants.size(), states.size());
+        for (String variant : variants) {
+            ArticleState state = states.get(variant);
+            assertNotNull(variant, state);
+            assertEquals(variant, id, state.getId());
+            assertTrue(variant, state.isFavorite());
+        }
+    }
+
+    @Test
+    public void duplicatesAndNulls_areIgnored() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(url(1), "Article", 1_000)));
+
+        Map<String, ArticleState> states = dao.getArticleStates(Arrays.asList(url(1), null, url(1), url(2)));
+
+        assertEquals(1, states.size());
+        assertTrue(states.containsKey(url(1)));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleUpsertTest {
+    private static final String URL_A = "https://example.com/a";
+    private static final String URL_B = "https://example.com/b";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+    }
+
+    private ArticleUpsert upsert(Article article) {
+        SQLiteDatabase db = helper.getDatabase();
+        db.beginTransaction();
+        ArticleUpsert upsert = new ArticleUpsert(db);
+        try {
+            upsert.execute(article);
+            db.setTransactionSuccessful();
+        } finally {
+            upsert.close();
+            db.endTransaction();
+            upsert.invalidateCache();
+        }
+        return upsert;
+    }
+
+    private long storedTimestamp(String url) {
+        Cursor cursor = helper.getDatabase().rawQuery("SELECT " + NewsDatabaseHelper.COLUMN_TIMESTAMP +
+                " FROM " + NewsDatabaseHelper.TABLE_ARTICLES + " WHERE " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?",
+                new String[]{String.valueOf(UrlKey.of(url))});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void unchangedArticle_movesOnlyTheTimestamp() {
+        Article first = TestDatabase.article(URL_A, "Title", 1_000);
+        assertEquals(1, upsert(first).getInsertedCount());
+
+        Article refetched = TestDatabase.article(URL_A, "Title", 5_000);
+        ArticleUpsert refresh = upsert(refetched);
+
+        assertEquals(1, refresh.getUnchangedCount());
+        assertEquals(0, refresh.getRowsWritten());
+        assertEquals(5_000, storedTimestamp(URL_A));
+        // Neither the stored article nor the fetched one is rewritten from the row
+        assertEquals(1_000, first.getTimestamp());
+        assertEquals(5_000, refetched.getTimestamp());
+        assertTrue(refresh.getChanges().isEmpty());
+    }
+
+    @Test
+    public void olderFetchOfUnchangedArticle_keepsTheStoredTimestamp() {
+        upsert(TestDatabase.article(URL_A, "Title", 5_000));
+        upsert(TestDatabase.article(URL_A, "Title", 1_000));
+
+        assertEquals(5_000, storedTimestamp(URL_A));
+    }
+
+    @Test
+    public void refreshedUnchangedArticle_movesToTheTopOfTheFeed() {
+        dao.insertArticles(Arrays.asList(
+                TestDatabase.article(URL_A, "A", 1_000),
+                TestDatabase.article(URL_B, "B", 2_000)));
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 3_000)));
+
+        List<Article> feed = dao.getArticlesPage(PageKey.FIRST, 10);
+        assertEquals(2, feed.size());
+        assertEquals(URL_A, feed.get(0).getUrl());
+        assertEquals(3_000, feed.get(0).getTimestamp());
+    }
+
+    @Test
+    public void refreshedUnchangedArticle_dropsItsCachedCopy() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 1_000)));
+        assertEquals(1_000, dao.getArticleByUrl(URL_A).getTimestamp());
+
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 3_000)));
+        assertEquals(3_000, dao.getArticleByUrl(URL_A).getTimestamp());
+    }
+
+    @Test
+    public void changedArticle_isRewritten() {
+        upsert(TestDatabase.article(URL_A, "Title", 1_000));
+        ArticleUpsert refresh = upsert(TestDatabase.article(URL_A, "New title", 2_000));
+
+        assertEquals(1, refresh.getUpdatedCount());
+        assertEquals(2_000, storedTimestamp(URL_A));
+        assertEquals("New title", dao.getArticleByUrl(URL_A).getTitle());
+    }
+
+    @Test
+    public void updateArticleFromAListRow_keepsTheStoredBody() {
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(URL_A, "A", 1_000)));
+        // What a feed page hands back: no body, flag flipped by the UI
+        Article listRow = TestDatabase.article(URL_A, "A", 1_000);
+        listRow.setContent(null);
+        listRow.setFavorite(true);
+
+        dao.updateArticle(listRow);
+
+        Article stored = dao.getArticleByUrl(URL_A);
+        assertTrue(stored.isFavorite());
+        assertEquals("Body of A", stored.getContent());
+    }
+
+    @Test
+    public void updateArticleOfAnUncachedArticle_insertsItFlagged() {
+        Article article = TestDatabase.article(URL_B, "B", 1_000);
+        article.setFavorite(true);
+
+        dao.updateArticle(article);
+
+        Article stored = dao.getArticleByUrl(URL_B);
+        assertTrue(stored.isFavorite());
+        assertEquals("Body of B", stored.getContent());
+    }
+}
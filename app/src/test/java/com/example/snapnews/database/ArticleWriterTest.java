@@ -0,0 +1,124 @@
+package com.example.snapnews.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleWriterTest {
+    private static final String URL = "https://example.com/toggled";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+    private ArticleWriter writer;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+        writer = new ArticleWriter(helper);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    // Keeps the writer inside a transaction that cannot start until release() is called, so
+    // everything queued meanwhile lands together in the next group
+    private Runnable holdWriter() throws InterruptedException {
+        SQLiteDatabase db = helper.getDatabase();
+        db.beginTransaction();
+        writer.saveArticles(Collections.singletonList(TestDatabase.article("https://example.com/blocker", "Blocker", 1)), null);
+        // Past the group window, so the blocker is taken alone and the writer waits on the connection
+        Thread.sleep(100);
+        return db::endTransaction;
+    }
+
+    @Test
+    public void togglesOfOneUrl_coalesceToTheFinalStateWithOneFuture() throws Exception {
+        Article article = TestDatabase.article(URL, "Toggled", 1_000);
+        Runnable release = holdWriter();
+
+        CompletableFuture<ArticleState> first = writer.setFavorite(article, true);
+        CompletableFuture<ArticleState> second = writer.setFavorite(article, false);
+        CompletableFuture<ArticleState> third = writer.setFavorite(article, true);
+        release.run();
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertTrue(await(third).isFavorite());
+        assertTrue(dao.getArticleByUrl(URL).isFavorite());
+    }
+
+    @Test
+    public void saveBetweenToggles_keepsTheTogglesApart() throws Exception {
+        Article article = TestDatabase.article(URL, "Toggled", 1_000);
+        Runnable release = holdWriter();
+
+        CompletableFuture<ArticleState> before = writer.setFavorite(article, true);
+        CompletableFuture<Map<String, ArticleState>> save = writer.saveArticles(
+                Collections.singletonList(TestDatabase.article(URL, "Toggled, updated", 2_000)), null);
+        CompletableFuture<ArticleState> after = writer.setFavorite(article, false);
+        release.run();
+
+        assertNotSame(before, after);
+        assertTrue(await(before).isFavorite());
+        // The save lands after the first toggle and keeps the flag it found
+        assertTrue(await(save).get(URL).isFavorite());
+        assertFalse(await(after).isFavorite());
+        Article stored = dao.getArticleByUrl(URL);
+        assertFalse(stored.isFavorite());
+        assertEquals("Toggled, updated", stored.getTitle());
+    }
+
+    @Test
+    public void badWriteInAGroup_failsOnlyItsOwnFuture() throws Exception {
+        Article bad = new Article("Bad", null, "https://example.com/bad", null, null, null, null, null) {
+            @Override
+            public String getTitle() {
+                throw new IllegalStateException("unreadable");
+            }
+        };
+        Runnable release = holdWriter();
+
+        CompletableFuture<Map<String, ArticleState>> good = writer.saveArticles(
+                Collections.singletonList(TestDatabase.article("https://example.com/good", "Good", 1_000)), null);
+        CompletableFuture<Map<String, ArticleState>> failing = writer.saveArticles(Collections.singletonList(bad), null);
+        CompletableFuture<ArticleState> toggle = writer.setFavorite(TestDatabase.article(URL, "Toggled", 1_000), true);
+        release.run();
+
+        assertNotNull(await(good).get("https://example.com/good"));
+        assertTrue(await(toggle).isFavorite());
+        try {
+            await(failing);
+            fail("the bad write should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertNotNull(dao.getArticleByUrl("https://example.com/good"));
+        assertNull(dao.getArticleByUrl("https://example.com/bad"));
+    }
+
+    @Test
+    public void articleWithoutTimestamp_isStoredWithTheWriteTimeButNotStamped() throws Exception {
+        Article article = TestDatabase.article(URL, "Untimed", 0);
+        long before = System.currentTimeMillis();
+
+        await(writer.saveArticles(Arrays.asList(article), null));
+
+        assertEquals(0, article.getTimestamp());
+        assertTrue(dao.getArticleByUrl(URL).getTimestamp() >= before);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.snapnews.database;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.BuildConfig;
+import com.example.snapnews.models.Article;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class CacheRetentionManagerTest {
+    private static final long MAX_AGE = TimeUnit.DAYS.toMillis(14);
+    private static final int BATCH_SIZE = 3;
+    private static final String FAVORITE_URL = "https://example.com/favorite";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+    private CacheRetentionManager manager;
+    private long now;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+        manager = new CacheRetentionManager(RuntimeEnvironment.getApplication(), helper);
+        now = System.currentTimeMillis();
+
+        // Older than every other row and well past the age cutoff
+        dao.insertArticles(Collections.singletonList(
+                TestDatabase.article(FAVORITE_URL, "Favorite", 1_000)), "science");
+        dao.updateFavoriteStatus(FAVORITE_URL, true);
+
+        DaoStats.setEnabled(true);
+        DaoStats.reset();
+    }
+
+    @After
+    public void tearDown() {
+        DaoStats.setEnabled(BuildConfig.DEBUG);
+        DaoStats.reset();
+    }
+
+    @Test
+    public void ageLimit_evictsOnlyExpiredArticlesInBatches() {
+        insert(article("old", 0, 2_000), article("old", 1, 3_000), article("old", 2, 4_000),
+                article("old", 3, 5_000), article("old", 4, 6_000), article("old", 5, 7_000),
+                article("old", 6, 8_000), article("fresh", 0, now - 1), article("fresh", 1, now));
+
+        RetentionResult result = manager.enforce(policy(1_000, Long.MAX_VALUE));
+
+        assertEquals(7, result.getRowsDeleted());
+        // 3 + 3 + 1: the short batch ends the step
+        assertEquals(3, DaoStats.DELETE_ARTICLES.count.get());
+        assertStored("fresh", 0, 1);
+        assertEvicted("old", 0, 1, 2, 3, 4, 5, 6);
+        assertFavoriteKept();
+    }
+
+    @Test
+    public void rowLimit_evictsTheOldestUntilWithinTheLimit() {
+        for (int i = 0; i < 7; i++) {
+            insert(article("fresh", i, now - 7 + i));
+        }
+
+        RetentionResult result = manager.enforce(policy(2, Long.MAX_VALUE));
+
+        assertEquals(5, result.getRowsDeleted());
+        // An empty age batch, then 3 + 2 for the five excess rows
+        assertEquals(3, DaoStats.DELETE_ARTICLES.count.get());
+        assertEvicted("fresh", 0, 1, 2, 3, 4);
+        assertStored("fresh", 5, 6);
+        assertFavoriteKept();
+    }
+
+    @Test
+    public void byteLimit_evictsTheOldestBatchUntilWithinTheLimit() {
+        Random random = new Random(42);
+        for (int i = 0; i < 6; i++) {
+            Article article = article("large", i, now - 6 + i);
+            article.setContent(largeBody(random));
+            insert(article);
+        }
+
+        // Just over the limit: one batch of the oldest bodies is enough to get under it
+        RetentionResult result = manager.enforce(policy(1_000, helper.getUsedBytes() - 1));
+
+        assertEquals(BATCH_SIZE, result.getRowsDeleted());
+        assertEvicted("large", 0, 1, 2);
+        assertStored("large", 3, 4, 5);
+        assertFavoriteKept();
+    }
+
+    @Test
+    public void everyLimitAtZero_leavesOnlyTheFavoriteWithItsBodyAndCategory() {
+        for (int i = 0; i < 5; i++) {
+            insert(article("old", i, 2_000 + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            insert(article("fresh", i, now - i));
+        }
+
+        RetentionResult result = manager.enforce(new RetentionPolicy(0, MAX_AGE, 0, BATCH_SIZE));
+
+        assertEquals(10, result.getRowsDeleted());
+        SQLiteDatabase db = helper.getDatabase();
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES));
+        // Evicted rows take their body and category links with them
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLE_BODIES));
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLE_CATEGORIES));
+        assertFavoriteKept();
+        assertEquals(1, dao.getArticlesByCategory("science", PageKey.FIRST, 10).size());
+    }
+
+    private static RetentionPolicy policy(int maxRows, long maxBytes) {
+        return new RetentionPolicy(maxRows, MAX_AGE, maxBytes, BATCH_SIZE);
+    }
+
+    private static Article article(String prefix, int index, long timestamp) {
+        return TestDatabase.article("https://example.com/" + prefix + "/" + index, prefix + " " + index, timestamp);
+    }
+
+    // Random words from a small vocabulary: a handful of index terms, but far too varied to compress away
+    private static String largeBody(Random random) {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 40_000) {
+            body.append("w").append(random.nextInt(64)).append(' ');
+        }
+        return body.toString();
+    }
+
+    private void insert(Article... articles) {
+        List<Article> list = new ArrayList<>();
+        Collections.addAll(list, articles);
+        dao.insertArticles(list, "science");
+    }
+
+    private void assertStored(String prefix, int... indexes) {
+        for (int index : indexes) {
+            String url = "https://example.com/" + prefix + "/" + index;
+            Article stored = dao.getArticleByUrl(url);
+            assertNotNull(url, stored);
+            assertNotNull(url, stored.getContent());
+        }
+    }
+
+    private void assertEvicted(String prefix, int... indexes) {
+        for (int index : indexes) {
+            String url = "https://example.com/" + prefix + "/" + index;
+            assertNull(url, dao.getArticleByUrl(url));
+        }
+    }
+
+    private void assertFavoriteKept() {
+        Article favorite = dao.getArticleByUrl(FAVORITE_URL);
+        assertNotNull(favorite);
+        assertTrue(favorite.isFavorite());
+        assertEquals("Body of Favorite", favorite.getContent());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+import com.example.snapnews.utils.CompressedText;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ContentHashTest {
+    private static Article article() {
+        return new Article("Title", "Description", "https://example.com/a", "https://example.com/a.jpg",
+                "2024-01-01T00:00:00Z", "Content", "Author", new Source("id", "Source"));
+    }
+
+    @Test
+    public void equalContent_hashesEqual() {
+        assertEquals(ContentHash.of(article()), ContentHash.of(article()));
+        assertNotEquals(ContentHash.UNKNOWN, ContentHash.of(article()));
+    }
+
+    @Test
+    public void fieldsARefreshDoesNotWrite_areLeftOut() {
+        Article other = article();
+        other.setUrl("https://example.com/a?utm_source=feed");
+        other.setId(99);
+        other.setFavorite(true);
+        other.setTimestamp(123);
+
+        assertEquals(ContentHash.of(article()), ContentHash.of(other));
+    }
+
+    @Test
+    public void everyRewritableField_changesTheHash() {
+        long base = ContentHash.of(article());
+        Article[] variants = new Article[8];
+        for (int i = 0; i < variants.length; i++) {
+            variants[i] = article();
+        }
+        variants[0].setTitle("Title!");
+        variants[1].setDescription("Description!");
+        variants[2].setUrlToImage("https://example.com/b.jpg");
+        variants[3].setPublishedAt("2024-01-01T00:00:01Z");
+        variants[4].setContent("Content!");
+        variants[5].setAuthor("Author!");
+        variants[6].setSource(new Source("id2", "Source"));
+        variants[7].setSource(new Source("id", "Source!"));
+
+        for (int i = 0; i < variants.length; i++) {
+            assertNotEquals(String.valueOf(i), base, ContentHash.of(variants[i]));
+        }
+    }
+
+    @Test
+    public void textMovedBetweenFields_changesTheHash() {
+        Article moved = article();
+        moved.setTitle("TitleDescription");
+        moved.setDescription("");
+
+        Article joined = article();
+        joined.setTitle("TitleD");
+        joined.setDescription("escription");
+
+        assertNotEquals(ContentHash.of(moved), ContentHash.of(joined));
+    }
+
+    @Test
+    public void nullAndEmptyText_hashDifferently() {
+        Article empty = article();
+        empty.setAuthor("");
+        Article missing = article();
+        missing.setAuthor(null);
+
+        assertNotEquals(ContentHash.of(empty), ContentHash.of(missing));
+    }
+
+    @Test
+    public void missingSource_hashesLikeASourceWithoutIdOrName() {
+        Article noSource = article();
+        noSource.setSource(null);
+        Article emptySource = article();
+        emptySource.setSource(new Source(null, null));
+
+        assertEquals(ContentHash.of(noSource), ContentHash.of(emptySource));
+    }
+
+    @Test
+    public void charactersBeyondLatin1_changeTheHash() {
+        Article latin = article();
+        latin.setTitle("A");
+        Article other = article();
+        other.setTitle("Ł");
+
+        assertNotEquals(ContentHash.of(latin), ContentHash.of(other));
+    }
+
+    @Test
+    public void packedText_hashesLikeThePlainTextWithoutInflatingTheArticle() {
+        Article packed = article();
+        packed.setPackedDescription(CompressedText.pack("Description"));
+        packed.setPackedContent(CompressedText.pack("Content"));
+
+        assertEquals(ContentHash.of(article()), ContentHash.of(packed));
+        assertNotNull(packed.getPackedDescription());
+        assertNotNull(packed.getPackedContent());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.BuildConfig;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class DaoStatsTest {
+    private static final String PRIVATE_URL = "https://example.com/private?token=needle";
+
+    @After
+    public void tearDown() {
+        DaoStats.setEnabled(BuildConfig.DEBUG);
+        DaoStats.setSlowQueryThresholdMillis(DaoStats.DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+        DaoStats.reset();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void disabled_startAndRecordAllocateNothing() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        DaoStats.setEnabled(false);
+        DaoStats.reset();
+        String sql = "SELECT 1";
+        for (int i = 0; i < 10_000; i++) {
+            DaoStats.GET_PAGE.record(DaoStats.start(), i, i, sql);
+        }
+
+        int calls = 200_000;
+        long before = allocatedBytes();
+        for (int i = 0; i < calls / 2; i++) {
+            DaoStats.GET_PAGE.record(DaoStats.start(), i, i, sql);
+            DaoStats.INSERT_ARTICLES.record(DaoStats.start(), i, 0);
+        }
+        long allocated = allocatedBytes() - before;
+
+        // The smallest object is 16 bytes; under a byte per call leaves room for the measurement
+        assertTrue("allocated " + allocated + " bytes in " + calls + " calls", allocated < calls);
+        assertEquals(0, DaoStats.GET_PAGE.count.get());
+    }
+
+    @Test
+    public void slowQueries_keepSqlAndPlanButNotBindArguments() throws Exception {
+        NewsDatabaseHelper helper = TestDatabase.open();
+        ArticleDao dao = new ArticleDao(helper);
+        dao.insertArticles(Collections.singletonList(TestDatabase.article(PRIVATE_URL, "Needle", 1_000)));
+        DaoStats.setEnabled(true);
+        DaoStats.setSlowQueryThresholdMillis(0);
+        DaoStats.reset();
+
+        assertNotNull(dao.getArticleByUrl(PRIVATE_URL));
+        dao.searchArticles("needle");
+        assertTrue(DaoStats.getSlowQueryCount() >= 2);
+
+        StringWriter json = new StringWriter();
+        DaoStats.writeJson(json, helper.getDatabase());
+        String dump = json.toString();
+        assertTrue(dump, dump.contains("\"sql\""));
+        assertTrue(dump, dump.contains("\"plan\""));
+        assertFalse(dump, dump.contains("needle"));
+        assertFalse(dump, dump.contains("\"args\""));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Feed page latency with the file opened and closed around every query, as ArticleDao used to,
+// against the shared WAL connection, idle and while a refresh keeps writing
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseConnectionBenchmark {
+    private static final int ROWS = 2_000;
+    private static final String PAGE_QUERY = "SELECT " + ArticleRowMapper.LIST_PROJECTION +
+            " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+            " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC, " + NewsDatabaseHelper.COLUMN_ID + " DESC" +
+            " LIMIT 20";
+
+    private NewsDatabaseHelper helper;
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        helper = TestDatabase.open();
+        dao = new ArticleDao(helper);
+        dao.insertArticles(articles(0, ROWS));
+    }
+
+    private static List<Article> articles(int from, int count) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            articles.add(TestDatabase.article("https://example.com/" + i, "Article " + i, i));
+        }
+        return articles;
+    }
+
+    private static int readPage(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery(PAGE_QUERY, null);
+        try {
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                mapper.map(cursor);
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void pageQuery_openPerCallVersusSharedConnection() throws Exception {
+        String path = helper.getDatabase().getPath();
+        long[] openPerCall = Benchmarks.time(50, 500, () -> {
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READWRITE);
+            try {
+                readPage(db);
+            } finally {
+                db.close();
+            }
+        });
+        Benchmarks.report("feed page", "open and close per query", openPerCall);
+
+        SQLiteDatabase shared = helper.getDatabase();
+        Benchmarks.report("feed page", "shared WAL connection",
+                Benchmarks.time(50, 500, () -> readPage(shared)));
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            int next = ROWS;
+            while (writing.get()) {
+                dao.insertArticles(articles(next, 50));
+                next += 50;
+            }
+        }, "refresh");
+        writer.start();
+        try {
+            Benchmarks.report("feed page", "shared WAL connection during refresh",
+                    Benchmarks.time(50, 500, () -> readPage(shared)));
+        } finally {
+            writing.set(false);
+            writer.join();
+        }
+    }
+}
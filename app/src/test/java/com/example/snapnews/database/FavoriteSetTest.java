@@ -0,0 +1,161 @@
+package com.example.snapnews.database;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FavoriteSetTest {
+    private final FavoriteSet set = FavoriteSet.getInstance();
+
+    @Before
+    public void setUp() {
+        set.abortLoad();
+        set.finishLoad(new long[0]);
+    }
+
+    private static ArticleChange change(long urlKey, boolean favorite) {
+        return new ArticleChange(ArticleChange.Kind.FAVORITE, urlKey, new ArticleState(1, favorite), null);
+    }
+
+    private void favorite(long urlKey, boolean favorite) {
+        set.apply(Collections.singletonList(change(urlKey, favorite)));
+    }
+
+    // Keys whose slot is the same in every table of up to 256 slots
+    private static long[] collidingKeys(int count, int slot) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = slot | ((long) (i + 1) << 40);
+        }
+        return keys;
+    }
+
+    @Test
+    public void load_replacesContents() {
+        favorite(42, true);
+        set.finishLoad(new long[]{1, 2, 3});
+
+        assertTrue(set.isLoaded());
+        assertEquals(3, set.size());
+        assertTrue(set.contains(2));
+        assertFalse(set.contains(42));
+    }
+
+    @Test
+    public void urls_areCheckedByUrlKey() {
+        favorite(UrlKey.of("https://example.com/a?utm_source=feed"), true);
+
+        assertTrue(set.contains("https://example.com/a"));
+        assertFalse(set.contains("https://example.com/b"));
+        assertFalse(set.contains((String) null));
+    }
+
+    @Test
+    public void addAndRemove_areIdempotent() {
+        favorite(7, true);
+        favorite(7, true);
+        assertEquals(1, set.size());
+
+        favorite(7, false);
+        favorite(7, false);
+        assertEquals(0, set.size());
+        assertFalse(set.contains(7));
+    }
+
+    @Test
+    public void zeroKey_isTrackedOnTheSide() {
+        favorite(0, true);
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+
+        set.removeAll(new long[]{0});
+        assertFalse(set.contains(0));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void growingPastInitialCapacity_keepsEveryKey() {
+        List<ArticleChange> changes = new ArrayList<>();
+        for (long key = 1; key <= 10_000; key++) {
+            changes.add(change(UrlKey.of("https://example.com/" + key), true));
+        }
+        set.apply(changes);
+
+        assertEquals(10_000, set.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertTrue(set.contains("https://example.com/" + key));
+        }
+        assertFalse(set.contains("https://example.com/10001"));
+
+        long[] odd = new long[5_000];
+        for (int i = 0; i < odd.length; i++) {
+            odd[i] = UrlKey.of("https://example.com/" + (2 * i + 1));
+        }
+        set.removeAll(odd);
+
+        assertEquals(5_000, set.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(String.valueOf(key), key % 2 == 0, set.contains("https://example.com/" + key));
+        }
+    }
+
+    @Test
+    public void removingFromACollisionRun_keepsTheRestReachable() {
+        long[] keys = collidingKeys(20, 5);
+        set.finishLoad(keys);
+
+        set.removeAll(new long[]{keys[0], keys[7], keys[19]});
+
+        assertEquals(17, set.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(String.valueOf(i), i != 0 && i != 7 && i != 19, set.contains(keys[i]));
+        }
+        favorite(keys[7], true);
+        assertTrue(set.contains(keys[7]));
+        assertEquals(18, set.size());
+    }
+
+    @Test
+    public void collisionRunWrappingPastTheEnd_survivesRemovals() {
+        long[] keys = collidingKeys(10, 63);
+        set.finishLoad(keys);
+
+        for (int i = 0; i < keys.length; i += 2) {
+            set.removeAll(new long[]{keys[i]});
+        }
+
+        assertEquals(5, set.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(String.valueOf(i), i % 2 == 1, set.contains(keys[i]));
+        }
+    }
+
+    @Test
+    public void writesDuringALoad_winOverWhatTheLoadRead() {
+        set.beginLoad();
+        favorite(1, true);
+        favorite(2, false);
+        set.finishLoad(new long[]{2, 3});
+
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(2));
+        assertTrue(set.contains(3));
+    }
+
+    @Test
+    public void abortedLoad_keepsTheCurrentContents() {
+        set.finishLoad(new long[]{4});
+        set.beginLoad();
+        favorite(5, true);
+        set.abortLoad();
+
+        assertTrue(set.contains(4));
+        assertTrue(set.contains(5));
+        assertEquals(2, set.size());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import com.example.snapnews.models.Article;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class NewsDatabaseHelperTest {
+    static String pragma(SQLiteDatabase db, String name) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void sharedConnection_isWal() {
+        SQLiteDatabase db = TestDatabase.open().getDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        assertEquals("wal", pragma(db, "journal_mode").toLowerCase());
+    }
+
+    // Concurrent readers spread over the WAL pool; every connection they land on must be tuned,
+    // not only the primary one onConfigure ran on
+    @Test
+    public void pooledReaders_getTheConfiguredCacheAndMmapSize() throws Exception {
+        SQLiteDatabase db = TestDatabase.open().getDatabase();
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 6; t++) {
+                results.add(readers.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        seen.add(pragma(db, "cache_size") + "/" + pragma(db, "mmap_size"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            readers.shutdown();
+        }
+
+        assertEquals(Set.of((-4 * 1024) + "/" + (32L * 1024 * 1024)), seen);
+    }
+
+    // A version 8 row keyed the old way, with ?ref= dropped, is found by its full URL after the upgrade
+    @Test
+    public void deletingAnArticle_removesItsBody() {
+        NewsDatabaseHelper helper = TestDatabase.open();
+        ArticleDao dao = new ArticleDao(helper);
+        Article article = TestDatabase.article("https://example.com/body", "Body", 1_000);
+        dao.insertArticles(Collections.singletonList(article));
+        SQLiteDatabase db = helper.getDatabase();
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLE_BODIES));
+
+        dao.deleteArticle(article);
+
+        assertEquals(0, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES));
+        assertEquals(0, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLE_BODIES));
+    }
+
+    // The articles table as the first release created it, frozen here so later edits to the
+    // helper cannot change what "version 1" means
+    private static final String CREATE_ARTICLES_V1 = "CREATE TABLE articles (" +
+            "id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, description TEXT, url TEXT UNIQUE, " +
+            "urlToImage TEXT, publishedAt TEXT, content TEXT, author TEXT, sourceId TEXT, sourceName TEXT, " +
+            "isFavorite INTEGER DEFAULT 0, timestamp INTEGER DEFAULT 0)";
+
+    // Replaces the helper's file with one at the given version, built by the given statements
+    private static File writeDatabase(int version, String... statements) {
+        NewsDatabaseHelper.closeInstance();
+        ArticleCache.getInstance().invalidateAll();
+        File file = RuntimeEnvironment.getApplication().getDatabasePath(
+                NewsDatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).getDatabaseName());
+        NewsDatabaseHelper.closeInstance();
+        SQLiteDatabase.deleteDatabase(file);
+        file.getParentFile().mkdirs();
+
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            for (String statement : statements) {
+                db.execSQL(statement);
+            }
+            db.setVersion(version);
+        } finally {
+            db.close();
+        }
+        return file;
+    }
+
+    private static String v1Row(String url, String title, String content, int favorite, long timestamp) {
+        return "INSERT INTO articles (title, description, url, content, author, sourceName, isFavorite, timestamp)" +
+                " VALUES ('" + title + "', 'Description of " + title + "', " +
+                (url != null ? "'" + url + "'" : "NULL") + ", '" + content + "', 'Author', 'Source', " +
+                favorite + ", " + timestamp + ")";
+    }
+
+    @Test
+    public void upgradeFromVersion1_keepsFavoritesAndMergesUrlVariants() {
+        String body = "The full text of the story, long enough that version 5 deflates it rather than " +
+                "storing it plain, according to a statement on Monday.";
+        writeDatabase(1, CREATE_ARTICLES_V1,
+                v1Row("https://example.com/story", "Story", body, 0, 3_000),
+                v1Row("https://example.com/story?utm_source=feed", "Story", body, 1, 1_000),
+                v1Row("https://example.com/other", "Other", "Short", 0, 2_000),
+                v1Row("https://example.com/kept", "Kept", "Kept body", 1, 500),
+                v1Row(null, "No url", "Lost", 1, 4_000));
+
+        NewsDatabaseHelper helper = NewsDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        SQLiteDatabase db = helper.getDatabase();
+        assertEquals(9, db.getVersion());
+        ArticleDao dao = new ArticleDao(helper);
+
+        // The favorite wins the merge over the newer plain variant
+        assertEquals(3, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES));
+        Article story = dao.getArticleByUrl("https://example.com/story");
+        assertNotNull(story);
+        assertTrue(story.isFavorite());
+        assertEquals(1_000, story.getTimestamp());
+        assertEquals("Description of Story", story.getDescription());
+        assertEquals(body, story.getContent());
+        assertTrue(dao.getArticleByUrl("https://example.com/kept").isFavorite());
+        assertFalse(dao.getArticleByUrl("https://example.com/other").isFavorite());
+        assertEquals(2, dao.getFavoriteCount());
+
+        // Text is compressed into the blob columns and the body split out
+        assertEquals(0, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES,
+                NewsDatabaseHelper.COLUMN_DESCRIPTION + " IS NOT NULL OR " + NewsDatabaseHelper.COLUMN_CONTENT + " IS NOT NULL"));
+        assertEquals(3, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLE_BODIES));
+
+        // The FTS index carried over from version 2 still finds merged and unmerged rows
+        assertEquals(1, dao.searchArticles("story").size());
+        assertEquals(1, dao.searchArticles("kept").size());
+        assertTrue(dao.searchArticles("lost").isEmpty());
+    }
+
+    @Test
+    public void failedUpgrade_rollsBackAndKeepsFavorites() {
+        // Claims version 5 but lacks the packed columns version 5 added, so step 6 fails
+        File file = writeDatabase(5, CREATE_ARTICLES_V1,
+                v1Row("https://example.com/favorite", "Favorite", "Body", 1, 1_000));
+
+        try {
+            NewsDatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).getDatabase();
+            fail("upgrade should have failed");
+        } catch (SQLiteException expected) {
+            // rethrown by onUpgrade
+        } finally {
+            NewsDatabaseHelper.closeInstance();
+        }
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            assertEquals(5, db.getVersion());
+            assertEquals(1, DatabaseUtils.queryNumEntries(db, NewsDatabaseHelper.TABLE_ARTICLES,
+                    NewsDatabaseHelper.COLUMN_IS_FAVORITE + " = 1"));
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void upgradeToVersion9_recomputesUrlKeys() {
+        String url = "https://example.com/story?ref=sidebar";
+        NewsDatabaseHelper helper = TestDatabase.open();
+        new ArticleDao(helper).insertArticles(Collections.singletonList(TestDatabase.article(url, "Story", 1_000)));
+        SQLiteDatabase db = helper.getDatabase();
+        db.execSQL("UPDATE " + NewsDatabaseHelper.TABLE_ARTICLES + " SET " + NewsDatabaseHelper.COLUMN_URL_KEY + " = ?",
+                new Object[]{UrlKey.of("https://example.com/story")});
+        db.setVersion(8);
+        NewsDatabaseHelper.closeInstance();
+        ArticleCache.getInstance().invalidateAll();
+
+        NewsDatabaseHelper upgraded = NewsDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        assertEquals(9, upgraded.getDatabase().getVersion());
+        Article article = new ArticleDao(upgraded).getArticleByUrl(url);
+        assertNotNull(article);
+        assertEquals("Story", article.getTitle());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Feed page latency near the top and deep into a 20k-row table, for ArticleDao's page query
+// against the earlier form whose OR-only predicate made the index scan down from the newest row
+@RunWith(RobolectricTestRunner.class)
+public class PageQueryBenchmark {
+    private static final int ROWS = 20_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String OR_ONLY_QUERY = "SELECT " + ArticleRowMapper.LIST_PROJECTION +
+            " FROM " + NewsDatabaseHelper.TABLE_ARTICLES +
+            " WHERE (" + NewsDatabaseHelper.COLUMN_TIMESTAMP + " < ? OR (" +
+            NewsDatabaseHelper.COLUMN_TIMESTAMP + " = ? AND " + NewsDatabaseHelper.COLUMN_ID + " < ?))" +
+            " ORDER BY " + NewsDatabaseHelper.COLUMN_TIMESTAMP + " DESC, " + NewsDatabaseHelper.COLUMN_ID + " DESC" +
+            " LIMIT " + PAGE_SIZE;
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        NewsDatabaseHelper helper = TestDatabase.open();
+        List<Article> articles = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            articles.add(TestDatabase.article("https://example.com/" + i, "Article " + i, i));
+        }
+        new ArticleDao(helper).insertArticles(articles);
+        db = helper.getDatabase();
+    }
+
+    private int readPage(String sql, long timestamp) {
+        String[] args = {String.valueOf(timestamp), String.valueOf(timestamp), String.valueOf(Integer.MAX_VALUE)};
+        Cursor cursor = db.rawQuery(sql, args);
+        try {
+            ArticleRowMapper mapper = new ArticleRowMapper(cursor);
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                mapper.map(cursor);
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void feedPage_byDepth() {
+        String seekQuery = ArticleDao.pageQuery(null, PAGE_SIZE);
+        for (int depth : new int[]{0, 10_000, ROWS - PAGE_SIZE}) {
+            long after = ROWS - depth;
+            Benchmarks.report("feed page", "seek, " + depth + " rows deep",
+                    Benchmarks.time(50, 300, () -> readPage(seekQuery, after)));
+            Benchmarks.report("feed page", "OR only, " + depth + " rows deep",
+                    Benchmarks.time(50, 300, () -> readPage(OR_ONLY_QUERY, after)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.snapnews.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// The feed, favorites, category and search queries must keep reading through their indexes;
+// a plan that scans articles or sorts it in a temp b-tree grows with the table, not the page
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+    private static final String TS = "1000";
+    private static final String ID = "1000";
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        NewsDatabaseHelper helper = TestDatabase.open();
+        List<Article> articles = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Article article = TestDatabase.article("https://example.com/" + i, "Story " + i, i);
+            article.setFavorite(i % 10 == 0);
+            articles.add(article);
+        }
+        new ArticleDao(helper).insertArticles(articles, "business");
+        db = helper.getDatabase();
+        db.execSQL("ANALYZE");
+    }
+
+    // SQLite 3.36 dropped the word TABLE from plan details; strip it so either version matches
+    static String plan(SQLiteDatabase db, String sql, String... args) {
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            StringBuilder plan = new StringBuilder();
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+            return plan.toString().replace("TABLE ", "");
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void assertUses(String plan, String expected) {
+        assertTrue("expected \"" + expected + "\" in plan:\n" + plan, plan.contains(expected));
+    }
+
+    private static void assertLacks(String plan, String unexpected) {
+        assertFalse("unexpected \"" + unexpected + "\" in plan:\n" + plan, plan.contains(unexpected));
+    }
+
+    @Test
+    public void feedPage_seeksTheTimestampIndexInOrder() {
+        String plan = plan(db, ArticleDao.pageQuery(null, 20), TS, TS, ID);
+
+        assertUses(plan, "SEARCH articles USING INDEX " + NewsDatabaseHelper.INDEX_ARTICLES_TIMESTAMP +
+                " (timestamp<?)");
+        assertLacks(plan, "TEMP B-TREE");
+    }
+
+    @Test
+    public void favoritesPage_seeksTheFavoriteTimestampIndexInOrder() {
+        String plan = plan(db, ArticleDao.pageQuery(ArticleDao.FAVORITE_PAGE_FILTER, 20), TS, TS, ID);
+
+        assertUses(plan, "SEARCH articles USING INDEX " + NewsDatabaseHelper.INDEX_ARTICLES_FAVORITE_TIMESTAMP +
+                " (isFavorite=? AND timestamp<?)");
+        assertLacks(plan, "TEMP B-TREE");
+    }
+
+    @Test
+    public void categoryPage_readsIdsOffTheCategoryKey() {
+        String plan = plan(db, ArticleDao.pageQuery(ArticleDao.CATEGORY_PAGE_FILTER, 20), "business", TS, TS, ID);
+
+        assertUses(plan, "SEARCH article_categories USING PRIMARY KEY (category=?)");
+        assertLacks(plan, "SCAN articles\n");
+        assertLacks(plan, "SCAN article_categories");
+    }
+
+    @Test
+    public void searchRanking_readsOnlyTheFullTextIndex() {
+        String plan = plan(db, ArticleDao.rankQuery(false), "\"story*\"");
+
+        assertUses(plan, "VIRTUAL INDEX");
+        assertLacks(plan, " articles ");
+    }
+
+    @Test
+    public void searchRankingByCategory_readsIdsOffTheCategoryKey() {
+        String plan = plan(db, ArticleDao.rankQuery(true), "\"story*\"", "business");
+
+        assertUses(plan, "VIRTUAL INDEX");
+        assertUses(plan, "SEARCH article_categories USING PRIMARY KEY (category=?)");
+    }
+}
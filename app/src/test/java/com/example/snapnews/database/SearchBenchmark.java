@@ -0,0 +1,40 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// searchArticles latency over 5000 stored articles, for a term in a handful of rows and for a
+// prefix in every row, where ranking has to score all matches to keep the best 100
+@RunWith(RobolectricTestRunner.class)
+public class SearchBenchmark {
+    private static final int ROWS = 5_000;
+
+    private ArticleDao dao;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        dao = new ArticleDao(TestDatabase.open());
+        List<Article> articles = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            String title = (i % 1000 == 0 ? "Election night " : "Market update ") + i;
+            articles.add(TestDatabase.article("https://example.com/" + i, title, i));
+        }
+        dao.insertArticles(articles);
+    }
+
+    @Test
+    public void search_rareAndCommonTerms() {
+        Benchmarks.report("search", "term in 5 rows",
+                Benchmarks.time(20, 200, () -> dao.searchArticles("election")));
+        Benchmarks.report("search", "prefix in every row",
+                Benchmarks.time(20, 200, () -> dao.searchArticles("upd")));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.snapnews.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import com.example.snapnews.models.Article;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class StoredKeyFilterTest {
+    // What an empty table is sized for: the minimum 2^16 bits at 16 bits per key
+    private static final int EMPTY_TABLE_CAPACITY = 4096;
+    private static final int STORED = 50;
+
+    private NewsDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private StoredKeyFilter filter;
+
+    @Before
+    public void setUp() {
+        helper = TestDatabase.open();
+        db = helper.getDatabase();
+        filter = new StoredKeyFilter();
+    }
+
+    private static long key(String prefix, int i) {
+        return UrlKey.of("https://example.com/" + prefix + "/" + i);
+    }
+
+    private void store(int count) {
+        List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            articles.add(TestDatabase.article("https://example.com/stored/" + i, "Stored " + i, i));
+        }
+        new ArticleDao(helper).insertArticles(articles);
+    }
+
+    private double falsePositiveRate(String prefix, int probes) {
+        int maybes = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(key(prefix, i))) {
+                maybes++;
+            }
+        }
+        return (double) maybes / probes;
+    }
+
+    @Test
+    public void load_coversEveryStoredKey() {
+        store(STORED);
+        filter.ensureLoaded(db);
+
+        for (int i = 0; i < STORED; i++) {
+            assertTrue(String.valueOf(i), filter.mightContain(key("stored", i)));
+        }
+    }
+
+    @Test
+    public void atCapacity_noFalseNegativesAndAboutAQuarterPercentFalsePositives() {
+        filter.ensureLoaded(db);
+        for (int i = 0; i < EMPTY_TABLE_CAPACITY; i++) {
+            filter.add(key("added", i));
+        }
+
+        for (int i = 0; i < EMPTY_TABLE_CAPACITY; i++) {
+            assertTrue(String.valueOf(i), filter.mightContain(key("added", i)));
+        }
+        // (1 - e^(-4/16))^4 = 0.24%
+        double rate = falsePositiveRate("absent", 200_000);
+        assertTrue("false positive rate " + rate, rate > 0.001 && rate < 0.004);
+    }
+
+    @Test
+    public void pastCapacity_isRebuiltFromTheTable() {
+        store(STORED);
+        filter.ensureLoaded(db);
+        for (int i = 0; i < 4 * EMPTY_TABLE_CAPACITY; i++) {
+            filter.add(key("added", i));
+        }
+        assertTrue(falsePositiveRate("absent", 20_000) > 0.05);
+
+        filter.ensureLoaded(db);
+
+        for (int i = 0; i < STORED; i++) {
+            assertTrue(String.valueOf(i), filter.mightContain(key("stored", i)));
+        }
+        // Keys that never reached the table are gone with the old bits
+        assertTrue(falsePositiveRate("added", 20_000) < 0.01);
+        assertTrue(falsePositiveRate("absent", 20_000) < 0.01);
+    }
+
+    @Test
+    public void withinCapacity_ensureLoadedKeepsAddedKeys() {
+        filter.ensureLoaded(db);
+        filter.add(key("added", 1));
+
+        filter.ensureLoaded(db);
+
+        assertTrue(filter.mightContain(key("added", 1)));
+    }
+}
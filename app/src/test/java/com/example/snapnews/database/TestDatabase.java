@@ -0,0 +1,26 @@
+package com.example.snapnews.database;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.Source;
+import org.robolectric.RuntimeEnvironment;
+
+// Fresh database and caches for each Robolectric case. The sandbox keeps static state between
+// tests, so the singletons would otherwise still point at the previous case's file
+final class TestDatabase {
+    private TestDatabase() {}
+
+    static NewsDatabaseHelper open() {
+        NewsDatabaseHelper.closeInstance();
+        ArticleCache.getInstance().invalidateAll();
+        NewsDatabaseHelper helper = NewsDatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        helper.getDatabase();
+        return helper;
+    }
+
+    static Article article(String url, String title, long timestamp) {
+        Article article = new Article(title, "Description of " + title, url, null,
+                "2024-01-01T00:00:00Z", "Body of " + title, "Author", new Source("id", "Source"));
+        article.setTimestamp(timestamp);
+        return article;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.snapnews.database;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class UrlKeyTest {
+    private static void assertSameKey(String a, String b) {
+        assertEquals(UrlKey.canonicalize(a), UrlKey.canonicalize(b));
+        assertEquals(UrlKey.of(a), UrlKey.of(b));
+    }
+
+    private static void assertDifferentKey(String a, String b) {
+        assertNotEquals(UrlKey.canonicalize(a), UrlKey.canonicalize(b));
+        assertNotEquals(UrlKey.of(a), UrlKey.of(b));
+    }
+
+    @Test
+    public void canonicalize_normalizesSchemeHostPortFragmentAndTrailingSlash() {
+        assertEquals("https://example.com/news/a",
+                UrlKey.canonicalize("  HTTP://Example.COM:80/news/a/#comments "));
+        assertEquals("https://example.com/news/a", UrlKey.canonicalize("https://example.com:443/news/a"));
+        assertEquals("https://example.com/", UrlKey.canonicalize("https://example.com"));
+        assertEquals("https://example.com:8080/a", UrlKey.canonicalize("https://example.com:8080/a"));
+    }
+
+    @Test
+    public void canonicalize_keepsPathCase() {
+        assertDifferentKey("https://example.com/News/A", "https://example.com/news/a");
+    }
+
+    @Test
+    public void trackingParameters_areDropped() {
+        assertSameKey("https://example.com/a",
+                "https://example.com/a?utm_source=twitter&utm_medium=social&UTM_Campaign=x");
+        assertSameKey("https://example.com/a?id=7", "https://example.com/a?fbclid=abc&id=7");
+        assertSameKey("https://example.com/a?id=7", "https://example.com/a?id=7&gclid=xyz");
+        assertEquals("https://example.com/a?id=7&page=2",
+                UrlKey.canonicalize("https://example.com/a?id=7&utm_source=x&&page=2"));
+    }
+
+    // These select content on some sites, so two URLs differing only in them stay two articles
+    @Test
+    public void genericParameters_areKept() {
+        assertDifferentKey("https://example.com/a?ref=1", "https://example.com/a?ref=2");
+        assertDifferentKey("https://example.com/a", "https://example.com/a?ref=sidebar");
+        assertDifferentKey("https://example.com/a?ocid=1", "https://example.com/a?ocid=2");
+        assertDifferentKey("https://example.com/a?cmpid=1", "https://example.com/a?cmpid=2");
+        assertDifferentKey("https://example.com/a?smid=1", "https://example.com/a?smid=2");
+        assertDifferentKey("https://example.com/story?id=1", "https://example.com/story?id=2");
+    }
+
+    @Test
+    public void parameterOrder_isKept() {
+        assertEquals("https://example.com/a?b=2&a=1", UrlKey.canonicalize("https://example.com/a?b=2&a=1"));
+    }
+
+    @Test
+    public void nullAndSchemelessUrls_areLeftAsTheyAre() {
+        assertEquals("", UrlKey.canonicalize(null));
+        assertEquals("example.com/a", UrlKey.canonicalize("example.com/a#top"));
+    }
+
+    @Test
+    public void similarUrls_doNotCollide() {
+        Map<Long, String> seen = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            String url = "https://news.example.com/" + (i % 50) + "/story-" + i + "?id=" + (i * 31);
+            String previous = seen.put(UrlKey.of(url), url);
+            assertNull("collision between " + previous + " and " + url, previous);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.snapnews.network;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// The app's OkHttp stack against a local server. Staleness comes from the Date header: OkHttp
+// ages a cached response from when the server says it was sent
+public class HttpCacheTest {
+    private static final String HEADLINES = "/v2/top-headlines?country=us&apiKey=test";
+
+    @Rule
+    public final TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        client = RetrofitClient.buildHttpClient(cacheDir.getRoot());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.dispatcher().executorService().shutdown();
+        client.cache().close();
+        server.shutdown();
+    }
+
+    private static MockResponse page(String body, long ageMinutes) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Date sent = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ageMinutes));
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setHeader("Date", format.format(sent))
+                .setBody(body);
+    }
+
+    private String get(String path) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.url(path)).build()).execute()) {
+            assertEquals(200, response.code());
+            return response.body().string();
+        }
+    }
+
+    private void awaitRequestCount(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (server.getRequestCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, server.getRequestCount());
+    }
+
+    @Test
+    public void freshHit_isServedWithoutTheNetwork() throws Exception {
+        server.enqueue(page("v1", 0));
+        assertEquals("v1", get(HEADLINES));
+
+        server.shutdown();
+        assertEquals("v1", get(HEADLINES));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void staleHit_servesTheCachedBodyAndRevalidatesOnce() throws Exception {
+        // Ten minutes old: past the five-minute max-age, inside the one-hour stale window
+        server.enqueue(page("v1", 10));
+        assertEquals("v1", get(HEADLINES));
+        server.enqueue(page("v2", 0).setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        assertEquals("v1", get(HEADLINES));
+        assertEquals("v1", get(HEADLINES));
+        assertEquals("v1", get(HEADLINES));
+        awaitRequestCount(2);
+
+        // The revalidated copy is fresh, so later reads stay off the network
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = get(HEADLINES);
+        while (!"v2".equals(body) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = get(HEADLINES);
+        }
+        assertEquals("v2", body);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void pastTheStaleWindow_waitsForTheNetwork() throws Exception {
+        // Two hours old: beyond max-age plus the one-hour stale window
+        server.enqueue(page("v1", 120));
+        assertEquals("v1", get(HEADLINES));
+        server.enqueue(page("v2", 0));
+
+        assertEquals("v2", get(HEADLINES));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void forcedRefresh_skipsTheCache() throws Exception {
+        server.enqueue(page("v1", 0));
+        assertEquals("v1", get(HEADLINES));
+        server.enqueue(page("v2", 0));
+
+        Request refresh = new Request.Builder().url(server.url(HEADLINES)).header("Cache-Control", "no-cache").build();
+        try (Response response = client.newCall(refresh).execute()) {
+            assertEquals("v2", response.body().string());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void errorResponses_areNotCached() throws Exception {
+        server.enqueue(page("{\"status\":\"error\"}", 0).setResponseCode(429));
+        try (Response response = client.newCall(new Request.Builder().url(server.url(HEADLINES)).build()).execute()) {
+            assertEquals(429, response.code());
+        }
+        server.enqueue(page("v1", 0));
+
+        assertEquals("v1", get(HEADLINES));
+        assertEquals(2, server.getRequestCount());
+    }
+}
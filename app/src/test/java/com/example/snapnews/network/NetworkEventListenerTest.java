@@ -0,0 +1,40 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.BuildConfig;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NetworkEventListenerTest {
+    private final Call call = new OkHttpClient().newCall(
+            new Request.Builder().url("https://newsapi.org/v2/top-headlines?country=us").build());
+
+    @After
+    public void tearDown() {
+        NetworkStats.setEnabled(BuildConfig.DEBUG);
+    }
+
+    @Test
+    public void statsFollowTheBuildType() {
+        assertEquals(BuildConfig.DEBUG, NetworkStats.isEnabled());
+    }
+
+    @Test
+    public void disabled_callsGetNoListener() {
+        NetworkStats.setEnabled(false);
+        assertSame(EventListener.NONE, NetworkEventListener.FACTORY.create(call));
+    }
+
+    @Test
+    public void enabled_callsAreTimedUnderTheirEndpoint() {
+        NetworkStats.setEnabled(true);
+        EventListener listener = NetworkEventListener.FACTORY.create(call);
+        assertTrue(listener instanceof NetworkEventListener);
+        assertSame(NetworkStats.TOP_HEADLINES, NetworkStats.endpointFor(call.request().url()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+// Time and bytes allocated per article decoding a 100-article page with the hand-written adapters
+// against Gson's reflective ones
+public class NewsJsonBenchmark {
+    private static final int ARTICLES = 100;
+
+    private String page;
+
+    @Before
+    public void setUp() throws Exception {
+        Benchmarks.assumeEnabled();
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        page = topHeadlinesPage(ARTICLES);
+    }
+
+    // The top-headlines fixture grown to the given number of articles, each with its own URL
+    static String topHeadlinesPage(int size) throws IOException {
+        JsonObject fixture = new JsonParser().parse(NewsResponseTypeAdapterTest.fixture("top-headlines.json"))
+                .getAsJsonObject();
+        JsonArray samples = fixture.getAsJsonArray("articles");
+        JsonArray articles = new JsonArray();
+        for (int i = 0; articles.size() < size; i++) {
+            JsonElement sample = samples.get(i % samples.size());
+            if (sample.isJsonNull()) {
+                continue;
+            }
+            JsonObject article = sample.deepCopy().getAsJsonObject();
+            article.addProperty("url", article.get("url").getAsString() + "?n=" + i);
+            articles.add(article);
+        }
+        fixture.add("articles", articles);
+        return fixture.toString();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void run(String benchmark, String variant, int warmup, int runs, Runnable decode) {
+        long[] nanos = Benchmarks.time(warmup, runs, decode);
+        long before = allocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            decode.run();
+        }
+        long bytesPerArticle = (allocatedBytes() - before) / runs / ARTICLES;
+        Benchmarks.report(benchmark, String.format(Locale.US, "%s: median %.1f us, p95 %.1f us, %d bytes/article",
+                variant, Benchmarks.percentile(nanos, 50) / 1000.0, Benchmarks.percentile(nanos, 95) / 1000.0,
+                bytesPerArticle));
+    }
+
+    @Test
+    public void topHeadlinesPage_handWrittenVersusReflective() {
+        Gson handWritten = NewsJson.create();
+        Gson reflective = new Gson();
+        assertEquals(ARTICLES, handWritten.fromJson(page, NewsResponse.class).getArticles().size());
+        assertEquals(ARTICLES, reflective.fromJson(page, NewsResponse.class).getArticles().size());
+
+        run("decode 100 articles", "reflective Gson", 500, 2_000,
+                () -> reflective.fromJson(page, NewsResponse.class));
+        run("decode 100 articles", "hand-written adapters", 500, 2_000,
+                () -> handWritten.fromJson(page, NewsResponse.class));
+        // A new Gson per call pays for building its adapters every time, on classes the JVM has
+        // already loaded and compiled - a process cold start also pays for those, and is not measured here
+        run("adapter construction + decode", "reflective Gson, new instance per call", 0, 200,
+                () -> new Gson().fromJson(page, NewsResponse.class));
+        run("adapter construction + decode", "hand-written adapters, new instance per call", 0, 200,
+                () -> NewsJson.create().fromJson(page, NewsResponse.class));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.Benchmarks;
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.Gson;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+// Time until Home has its first rows: NewsResponseReader's first batch against the Retrofit
+// converter's whole response, on the same Gson. In memory that is decode cost alone; over a
+// throttled body the converter also waits for the last byte, which is what streaming avoids
+public class NewsResponseStreamBenchmark {
+    private static final int ARTICLES = 100;
+    // ArticleRepository's HEADLINES_FIRST_BATCH and HEADLINES_BATCH
+    private static final int FIRST_BATCH = 6;
+    private static final int BATCH = 20;
+    // A slow mobile link: the 100-article page takes well over a tenth of a second to arrive
+    private static final long BYTES_PER_SECOND = 256 * 1024;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private byte[] page;
+    private Converter<ResponseBody, ?> converter;
+    private NewsResponseReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        Benchmarks.assumeEnabled();
+        page = NewsJsonBenchmark.topHeadlinesPage(ARTICLES).getBytes(StandardCharsets.UTF_8);
+
+        Gson gson = RetrofitClient.getGson();
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl("https://newsapi.org/v2/")
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+        converter = retrofit.responseBodyConverter(NewsResponse.class, new Annotation[0]);
+        reader = new NewsResponseReader(gson);
+    }
+
+    @Test
+    public void inMemoryPage_firstBatchVersusConverter() throws IOException {
+        assertEquals(ARTICLES, ((NewsResponse) converter.convert(body(false))).getArticles().size());
+
+        compare("first rows from memory", false, 500, 2_000);
+    }
+
+    @Test
+    public void throttledPage_firstBatchVersusConverter() throws IOException {
+        Benchmarks.report("first rows over a throttled body", page.length + " bytes at " +
+                BYTES_PER_SECOND / 1024 + " KB/s");
+
+        compare("first rows over a throttled body", true, 2, 10);
+    }
+
+    private void compare(String benchmark, boolean throttled, int warmup, int runs) throws IOException {
+        for (int i = 0; i < warmup; i++) {
+            converter.convert(body(throttled));
+            readStreamed(throttled, new long[1]);
+        }
+
+        long[] converterNanos = new long[runs];
+        long[] firstBatchNanos = new long[runs];
+        long[] streamedNanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            ResponseBody body = body(throttled);
+            long start = System.nanoTime();
+            converter.convert(body);
+            converterNanos[i] = System.nanoTime() - start;
+
+            long[] firstBatchAt = new long[1];
+            start = System.nanoTime();
+            readStreamed(throttled, firstBatchAt);
+            streamedNanos[i] = System.nanoTime() - start;
+            firstBatchNanos[i] = firstBatchAt[0] - start;
+        }
+
+        Arrays.sort(converterNanos);
+        Arrays.sort(firstBatchNanos);
+        Arrays.sort(streamedNanos);
+        Benchmarks.report(benchmark, "GsonConverterFactory, whole response", converterNanos);
+        Benchmarks.report(benchmark, "NewsResponseReader, first " + FIRST_BATCH + " articles", firstBatchNanos);
+        Benchmarks.report(benchmark, "NewsResponseReader, whole response", streamedNanos);
+    }
+
+    // Reads the whole page, noting when the first batch was handed out
+    private void readStreamed(boolean throttled, long[] firstBatchAt) throws IOException {
+        try (ResponseBody body = body(throttled)) {
+            NewsResponse response = reader.read(body.charStream(), FIRST_BATCH, BATCH, batch -> {
+                if (firstBatchAt[0] == 0) {
+                    firstBatchAt[0] = System.nanoTime();
+                }
+            });
+            assertEquals(ARTICLES, response.getArticles().size());
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private ResponseBody body(boolean throttled) {
+        Buffer bytes = new Buffer().write(page);
+        if (!throttled) {
+            return ResponseBody.create(JSON, page.length, bytes);
+        }
+        return ResponseBody.create(JSON, page.length, Okio.buffer(new TrickleSource(bytes)));
+    }
+
+    // Hands out one network-sized segment at a time, each after the time it takes to arrive
+    private static final class TrickleSource extends ForwardingSource {
+        private static final int SEGMENT_BYTES = 1460;
+
+        TrickleSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, Math.min(byteCount, SEGMENT_BYTES));
+            if (read > 0) {
+                LockSupport.parkNanos(read * 1_000_000_000L / BYTES_PER_SECOND);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.snapnews.network;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.models.NewsResponse;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NewsResponseTypeAdapterTest {
+    private final Gson gson = NewsJson.create();
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = NewsResponseTypeAdapterTest.class.getResourceAsStream("/fixtures/" + name);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return text.toString();
+        }
+    }
+
+    private NewsResponse decode(String json) {
+        return gson.fromJson(json, NewsResponse.class);
+    }
+
+    private NewsResponse stream(String json) throws IOException {
+        return new NewsResponseReader(gson).read(new StringReader(json), 2, 2, batch -> { });
+    }
+
+    @Test
+    public void topHeadlines_decodesEveryField() throws Exception {
+        NewsResponse response = decode(fixture("top-headlines.json"));
+
+        assertEquals("ok", response.getStatus());
+        assertEquals(38, response.getTotalResults());
+        assertEquals(3, response.getArticles().size());
+
+        Article first = response.getArticles().get(0);
+        assertEquals("Markets steady ahead of rate decision", first.getTitle());
+        assertEquals("Investors wait for the central bank's latest move.", first.getDescription());
+        assertEquals("https://www.bbc.co.uk/news/business-1", first.getUrl());
+        assertEquals("https://ichef.bbci.co.uk/news/1024/markets.jpg", first.getUrlToImage());
+        assertEquals("2024-05-01T09:15:00Z", first.getPublishedAt());
+        assertTrue(first.getContent().startsWith("Shares were little changed"));
+        assertEquals("BBC News", first.getAuthor());
+        assertEquals("bbc-news", first.getSource().getId());
+        assertEquals("BBC News", first.getSource().getName());
+    }
+
+    @Test
+    public void nullFieldsStayNull_andUnknownFieldsAreSkipped() throws Exception {
+        Article second = decode(fixture("top-headlines.json")).getArticles().get(1);
+
+        assertEquals("City opens new riverside park", second.getTitle());
+        assertNull(second.getAuthor());
+        assertNull(second.getDescription());
+        assertNull(second.getUrlToImage());
+        assertNull(second.getContent());
+        assertNull(second.getSource().getId());
+        assertEquals("Example Times", second.getSource().getName());
+    }
+
+    @Test
+    public void repeatedStrings_shareOneInstance() throws Exception {
+        List<Article> articles = decode(fixture("top-headlines.json")).getArticles();
+        assertSame(articles.get(0).getAuthor(), articles.get(2).getAuthor());
+    }
+
+    @Test
+    public void errorBody_keepsTheMessage() {
+        NewsResponse response = decode("{\"status\":\"error\",\"code\":\"apiKeyInvalid\","
+                + "\"message\":\"Your API key is invalid or incorrect.\"}");
+
+        assertEquals("error", response.getStatus());
+        assertEquals("Your API key is invalid or incorrect.", response.getMessage());
+        assertNull(response.getArticles());
+        assertEquals(0, response.getTotalResults());
+    }
+
+    @Test
+    public void nullTotalResults_readsAsZero() throws Exception {
+        String json = "{\"status\":\"ok\",\"totalResults\":null,\"articles\":[]}";
+        assertEquals(0, decode(json).getTotalResults());
+        assertEquals(0, stream(json).getTotalResults());
+    }
+
+    @Test
+    public void totalResultsPastIntRange_isCapped() throws Exception {
+        String json = "{\"status\":\"ok\",\"totalResults\":3000000000,\"articles\":[]}";
+        assertEquals(Integer.MAX_VALUE, decode(json).getTotalResults());
+        assertEquals(Integer.MAX_VALUE, stream(json).getTotalResults());
+    }
+
+    @Test
+    public void nullArticles_readAsNull() throws Exception {
+        String json = "{\"status\":\"ok\",\"totalResults\":0,\"articles\":null}";
+        assertNull(decode(json).getArticles());
+        assertNull(stream(json).getArticles());
+    }
+
+    @Test
+    public void streamedAndBufferedDecoding_agree() throws Exception {
+        String json = fixture("top-headlines.json");
+        List<List<Article>> batches = new ArrayList<>();
+        NewsResponse streamed = new NewsResponseReader(gson).read(new StringReader(json), 2, 2, batches::add);
+        NewsResponse buffered = decode(json);
+
+        assertEquals(buffered.getTotalResults(), streamed.getTotalResults());
+        assertEquals(buffered.getArticles().size(), streamed.getArticles().size());
+        for (int i = 0; i < buffered.getArticles().size(); i++) {
+            assertEquals(buffered.getArticles().get(i).getUrl(), streamed.getArticles().get(i).getUrl());
+        }
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void writtenResponse_readsBackTheSame() throws Exception {
+        NewsResponse original = decode(fixture("top-headlines.json"));
+        NewsResponse copy = decode(gson.toJson(original));
+
+        assertEquals(original.getStatus(), copy.getStatus());
+        assertEquals(original.getTotalResults(), copy.getTotalResults());
+        assertEquals(original.getArticles().size(), copy.getArticles().size());
+        for (int i = 0; i < original.getArticles().size(); i++) {
+            Article a = original.getArticles().get(i);
+            Article b = copy.getArticles().get(i);
+            assertEquals(a.getTitle(), b.getTitle());
+            assertEquals(a.getDescription(), b.getDescription());
+            assertEquals(a.getUrl(), b.getUrl());
+            assertEquals(a.getContent(), b.getContent());
+            assertEquals(a.getAuthor(), b.getAuthor());
+            assertEquals(a.getSource().getName(), b.getSource().getName());
+        }
+    }
+}
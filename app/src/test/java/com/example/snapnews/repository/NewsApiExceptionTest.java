@@ -0,0 +1,52 @@
+package com.example.snapnews.repository;
+
+import com.example.snapnews.models.NewsResponse;
+import com.example.snapnews.network.RetrofitClient;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+public class NewsApiExceptionTest {
+    private static NewsApiException fromError(int code, String body, String mediaType) {
+        Response<NewsResponse> response = Response.error(code, ResponseBody.create(body, MediaType.get(mediaType)));
+        return NewsApiException.fromResponse(response, RetrofitClient.getGson());
+    }
+
+    @Test
+    public void invalidApiKey_keepsNewsApiMessage() {
+        NewsApiException e = fromError(401, "{\"status\":\"error\",\"code\":\"apiKeyInvalid\","
+                + "\"message\":\"Your API key is invalid or incorrect. Check your key, or go to "
+                + "https://newsapi.org to create a free API key.\"}", "application/json");
+
+        assertEquals(401, e.getHttpCode());
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Your API key is invalid"));
+        // What HomeFragment looks for to show the API key error
+        assertTrue(e.getMessage().toLowerCase().contains("api key"));
+    }
+
+    @Test
+    public void rateLimited_keepsNewsApiMessage() {
+        NewsApiException e = fromError(429, "{\"status\":\"error\",\"code\":\"rateLimited\","
+                + "\"message\":\"You have made too many requests recently.\"}", "application/json");
+
+        assertEquals(429, e.getHttpCode());
+        assertEquals("You have made too many requests recently.", e.getMessage());
+    }
+
+    @Test
+    public void bodyThatIsNotNewsApiJson_fallsBackToTheStatusCode() {
+        NewsApiException e = fromError(502, "<html><body>Bad gateway</body></html>", "text/html");
+
+        assertEquals(502, e.getHttpCode());
+        assertEquals("Request failed with HTTP 502", e.getMessage());
+    }
+
+    @Test
+    public void errorWithoutMessage_fallsBackToTheStatusCode() {
+        NewsApiException e = fromError(500, "{\"status\":\"error\"}", "application/json");
+        assertEquals("Request failed with HTTP 500", e.getMessage());
+    }
+}
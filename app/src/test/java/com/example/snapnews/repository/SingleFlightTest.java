@@ -0,0 +1,209 @@
+package com.example.snapnews.repository;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final List<CompletableFuture<String>> loads = new ArrayList<>();
+    private final AtomicInteger hooksRun = new AtomicInteger();
+
+    // Starts a load the test completes by hand, with a hook counting cancellations
+    private CompletableFuture<String> join(String key) {
+        return singleFlight.join(key, flight -> {
+            CompletableFuture<String> load = new CompletableFuture<>();
+            loads.add(load);
+            flight.onCancel(hooksRun::incrementAndGet);
+            return load;
+        });
+    }
+
+    @Test
+    public void callersOfOneKey_shareOneLoad() throws Exception {
+        CompletableFuture<String> first = join("top-headlines?country=us");
+        CompletableFuture<String> second = join("top-headlines?country=us");
+
+        assertEquals(1, loads.size());
+        assertNotSame(first, second);
+        loads.get(0).complete("articles");
+        assertEquals("articles", first.get());
+        assertEquals("articles", second.get());
+    }
+
+    @Test
+    public void differentKeys_loadSeparately() {
+        join("top-headlines?country=us");
+        join("top-headlines?country=gb");
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void concurrentJoins_startOneLoad() throws Exception {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<CompletableFuture<String>>> callers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 32; i++) {
+                callers.add(threads.submit(() -> {
+                    go.await();
+                    return singleFlight.join("everything?q=news", flight -> {
+                        started.incrementAndGet();
+                        return load;
+                    });
+                }));
+            }
+            go.countDown();
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (Future<CompletableFuture<String>> caller : callers) {
+                futures.add(caller.get(5, TimeUnit.SECONDS));
+            }
+
+            load.complete("result");
+            assertEquals(1, started.get());
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("result", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    @Test
+    public void cancellingOneCaller_keepsTheSharedLoadRunning() throws Exception {
+        CompletableFuture<String> leaving = join("key");
+        CompletableFuture<String> staying = join("key");
+
+        leaving.cancel(false);
+
+        assertFalse(loads.get(0).isCancelled());
+        assertEquals(0, hooksRun.get());
+        loads.get(0).complete("done");
+        assertEquals("done", staying.get());
+    }
+
+    @Test
+    public void lastCancel_cancelsTheLoadAndRunsItsHooksOnce() {
+        CompletableFuture<String> first = join("key");
+        CompletableFuture<String> second = join("key");
+
+        first.cancel(false);
+        second.cancel(false);
+        second.cancel(false);
+
+        assertTrue(loads.get(0).isCancelled());
+        assertEquals(1, hooksRun.get());
+    }
+
+    @Test
+    public void lastCancel_cancelsTheOkHttpCall() {
+        Call call = new OkHttpClient().newCall(new Request.Builder()
+                .url("https://newsapi.org/v2/top-headlines?country=us").build());
+        CompletableFuture<String> first = singleFlight.join("key", flight -> {
+            flight.onCancel(call::cancel);
+            return new CompletableFuture<>();
+        });
+        CompletableFuture<String> second = singleFlight.join("key", flight -> {
+            throw new AssertionError("second caller must join the running call");
+        });
+
+        first.cancel(false);
+        assertFalse(call.isCanceled());
+        second.cancel(false);
+        assertTrue(call.isCanceled());
+    }
+
+    @Test
+    public void hookAddedAfterTheLoadWasCancelled_runsRightAway() {
+        SingleFlight.Flight[] started = new SingleFlight.Flight[1];
+        singleFlight.join("key", flight -> {
+            started[0] = flight;
+            return new CompletableFuture<String>();
+        }).cancel(false);
+
+        AtomicInteger late = new AtomicInteger();
+        started[0].onCancel(late::incrementAndGet);
+        assertEquals(1, late.get());
+    }
+
+    @Test
+    public void joinAfterSomeCallersLeft_stillSharesTheLoad() {
+        join("key").cancel(false);
+        // The only caller left, so that load is gone and this starts another
+        CompletableFuture<String> second = join("key");
+        CompletableFuture<String> third = join("key");
+        assertEquals(2, loads.size());
+
+        second.cancel(false);
+        assertFalse(loads.get(1).isCancelled());
+        third.cancel(false);
+        assertTrue(loads.get(1).isCancelled());
+        assertEquals(2, hooksRun.get());
+    }
+
+    @Test
+    public void cancelAfterTheLoadFinished_changesNothing() throws Exception {
+        CompletableFuture<String> caller = join("key");
+        loads.get(0).complete("done");
+
+        assertFalse(caller.cancel(false));
+        assertEquals("done", caller.get());
+        assertEquals(0, hooksRun.get());
+    }
+
+    @Test
+    public void finishedLoad_releasesTheKey() {
+        join("key");
+        loads.get(0).complete("done");
+
+        join("key");
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void failedLoad_failsEveryCallerAndReleasesTheKey() throws Exception {
+        CompletableFuture<String> first = join("key");
+        CompletableFuture<String> second = join("key");
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        loads.get(0).completeExceptionally(failure);
+
+        for (CompletableFuture<String> caller : List.of(first, second)) {
+            try {
+                caller.get();
+                fail("caller should have failed");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(0, hooksRun.get());
+        join("key");
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void loadThatCompletesWhileStarting_releasesTheKey() throws Exception {
+        CompletableFuture<String> caller = singleFlight.join("key",
+                flight -> CompletableFuture.completedFuture("cached"));
+        assertEquals("cached", caller.get());
+
+        join("key");
+        assertEquals(1, loads.size());
+    }
+}
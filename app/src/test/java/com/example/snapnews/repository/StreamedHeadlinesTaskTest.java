@@ -0,0 +1,128 @@
+package com.example.snapnews.repository;
+
+import com.example.snapnews.models.Article;
+import com.example.snapnews.network.NewsResponseReader;
+import com.example.snapnews.network.RetrofitClient;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StreamedHeadlinesTaskTest {
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final NewsResponseReader reader = new NewsResponseReader(RetrofitClient.getGson());
+
+    private CompletableFuture<List<Article>> parse(String json, List<List<Article>> batches) {
+        CompletableFuture<List<Article>> future = new CompletableFuture<>();
+        new StreamedHeadlinesTask(reader, ResponseBody.create(json, JSON), 200, 2, 2,
+                batches::add, () -> false, future).run();
+        return future;
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) throws Exception {
+        assertTrue("future must be completed", future.isDone());
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("future completed normally");
+        return null;
+    }
+
+    @Test
+    public void validBody_completesWithAllArticlesInBatches() throws Exception {
+        List<List<Article>> batches = new ArrayList<>();
+        CompletableFuture<List<Article>> future = parse("{\"status\":\"ok\",\"totalResults\":3,\"articles\":["
+                + "{\"title\":\"a\"},{\"title\":\"b\"},{\"title\":\"c\"}]}", batches);
+
+        assertEquals(3, future.get().size());
+        assertEquals(2, batches.size());
+        assertEquals("c", batches.get(1).get(0).getTitle());
+    }
+
+    @Test
+    public void numberWhereNumberExpectedIsText_failsTheFuture() throws Exception {
+        CompletableFuture<List<Article>> future = parse(
+                "{\"status\":\"ok\",\"totalResults\":\"many\",\"articles\":[]}", new ArrayList<>());
+        assertTrue(failureOf(future) instanceof NumberFormatException);
+    }
+
+    @Test
+    public void articleOfWrongType_failsTheFuture() throws Exception {
+        CompletableFuture<List<Article>> future = parse(
+                "{\"status\":\"ok\",\"articles\":[{\"title\":\"a\",\"source\":5}]}", new ArrayList<>());
+        assertTrue(failureOf(future) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void truncatedBody_failsTheFuture() throws Exception {
+        CompletableFuture<List<Article>> future = parse(
+                "{\"status\":\"ok\",\"articles\":[{\"title\":\"a\"", new ArrayList<>());
+        assertTrue(failureOf(future) instanceof EOFException);
+    }
+
+    @Test
+    public void errorStatus_failsWithNewsApiException() throws Exception {
+        CompletableFuture<List<Article>> future = parse(
+                "{\"status\":\"error\",\"code\":\"apiKeyInvalid\",\"message\":\"Your API key is invalid\"}",
+                new ArrayList<>());
+        Throwable failure = failureOf(future);
+        assertTrue(failure instanceof NewsApiException);
+        assertEquals("Your API key is invalid", failure.getMessage());
+    }
+
+    @Test
+    public void throwingBatchListener_failsTheFuture() throws Exception {
+        CompletableFuture<List<Article>> future = new CompletableFuture<>();
+        new StreamedHeadlinesTask(reader, ResponseBody.create(
+                "{\"status\":\"ok\",\"articles\":[{\"title\":\"a\"}]}", JSON), 200, 1, 1,
+                batch -> { throw new NullPointerException("listener"); }, () -> false, future).run();
+        assertTrue(failureOf(future) instanceof NullPointerException);
+    }
+
+    @Test
+    public void malformedBody_releasesTheSharedRequestKey() throws Exception {
+        SingleFlight flights = new SingleFlight();
+        ExecutorService parseExecutor = Executors.newSingleThreadExecutor();
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            CompletableFuture<List<Article>> first = flights.join("top-headlines?country=us", flight -> {
+                loads.incrementAndGet();
+                CompletableFuture<List<Article>> fetched = new CompletableFuture<>();
+                parseExecutor.execute(new StreamedHeadlinesTask(reader, ResponseBody.create(
+                        "{\"status\":\"ok\",\"totalResults\":1e99x}", JSON), 200, 6, 12,
+                        batch -> {}, () -> false, fetched));
+                return fetched;
+            });
+
+            try {
+                first.get(5, TimeUnit.SECONDS);
+                fail("malformed body must fail");
+            } catch (ExecutionException expected) {
+                // the failure is the point; a hang would have timed out instead
+            }
+
+            CompletableFuture<List<Article>> second = flights.join("top-headlines?country=us", flight -> {
+                loads.incrementAndGet();
+                return CompletableFuture.completedFuture(new ArrayList<>());
+            });
+            assertEquals(2, loads.get());
+            assertTrue(second.get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            parseExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.snapnews.utils;
+
+import com.example.snapnews.Benchmarks;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+// Bytes stored for the article text corpus as plain UTF-8, as deflate without the preset
+// dictionary, and as CompressedText writes it, plus pack and unpack time per text
+public class CompressedTextBenchmark {
+    private static int deflatedWithoutDictionary(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length + 64];
+            return deflater.deflate(buffer);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Test
+    public void corpus_storageAndSpeed() throws Exception {
+        Benchmarks.assumeEnabled();
+        List<String> corpus = CompressedTextTest.corpus();
+
+        long plain = 0;
+        long noDictionary = 0;
+        long packed = 0;
+        for (String text : corpus) {
+            byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+            plain += raw.length + 1;
+            // Same header and plain fallback as CompressedText, so only the dictionary differs
+            noDictionary += Math.min(raw.length, deflatedWithoutDictionary(raw) + 2) + 1;
+            packed += CompressedText.pack(text).length;
+        }
+        Benchmarks.report("compressed text", String.format(Locale.US,
+                "%d texts: plain %d bytes, deflate without dictionary %d bytes (%.0f%%), CompressedText %d bytes (%.0f%%)",
+                corpus.size(), plain, noDictionary, 100.0 * noDictionary / plain, packed, 100.0 * packed / plain));
+
+        byte[][] blobs = new byte[corpus.size()][];
+        long[] packNanos = Benchmarks.time(200, 1000, () -> {
+            for (int i = 0; i < blobs.length; i++) {
+                blobs[i] = CompressedText.pack(corpus.get(i));
+            }
+        });
+        Benchmarks.report("compressed text", "pack corpus", packNanos);
+        Benchmarks.report("compressed text", "unpack corpus", Benchmarks.time(200, 1000, () -> {
+            for (byte[] blob : blobs) {
+                CompressedText.unpack(blob);
+            }
+        }));
+    }
+}
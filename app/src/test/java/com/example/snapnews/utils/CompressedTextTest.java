@@ -0,0 +1,135 @@
+package com.example.snapnews.utils;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedTextTest {
+    // Descriptions and truncated content in the shape NewsAPI returns, one per line
+    static List<String> corpus() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CompressedTextTest.class.getResourceAsStream("/fixtures/article-text.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static String roundTrip(String text) {
+        return CompressedText.unpack(CompressedText.pack(text));
+    }
+
+    @Test
+    public void null_staysNull() {
+        assertNull(CompressedText.pack(null));
+        assertNull(CompressedText.unpack(null));
+        assertNull(CompressedText.unpack(new byte[0]));
+    }
+
+    @Test
+    public void emptyText_roundTripsAsEmpty() {
+        assertArrayEquals(new byte[]{0}, CompressedText.pack(""));
+        assertEquals("", roundTrip(""));
+    }
+
+    @Test
+    public void shortText_isStoredPlain() {
+        byte[] packed = CompressedText.pack("Short headline");
+
+        assertEquals(0, packed[0]);
+        assertEquals("Short headline".length() + 1, packed.length);
+        assertEquals("Short headline", CompressedText.unpack(packed));
+    }
+
+    @Test
+    public void corpus_roundTripsAndTypicalTextShrinks() throws IOException {
+        int deflated = 0;
+        for (String text : corpus()) {
+            byte[] packed = CompressedText.pack(text);
+            assertEquals(text, CompressedText.unpack(packed));
+            assertTrue(text, packed.length <= text.getBytes(StandardCharsets.UTF_8).length + 1);
+            if (packed[0] == 1) {
+                deflated++;
+            }
+        }
+        assertTrue("deflated " + deflated, deflated >= 15);
+    }
+
+    @Test
+    public void dictionaryPhrases_compressWell() {
+        String text = "according to a statement on Monday the government said the president told reporters " +
+                "that the economy would grow this year, officials said on Tuesday in a statement";
+        byte[] packed = CompressedText.pack(text);
+
+        assertEquals(1, packed[0]);
+        assertTrue("packed to " + packed.length, packed.length * 3 < text.length());
+        assertEquals(text, CompressedText.unpack(packed));
+    }
+
+    @Test
+    public void unicode_roundTrips() {
+        String text = "Les marchés européens — 東京株式市場で日経平均株価は反発 — emoji 📰🌍 and a lone é, " +
+                "repeated: marchés marchés marchés 東京 東京 東京";
+        assertEquals(text, roundTrip(text));
+    }
+
+    @Test
+    public void largeText_roundTripsAcrossVarintLengths() {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(7);
+        while (text.length() < 1_000_000) {
+            text.append("Paragraph ").append(random.nextInt(1000)).append(" of the story said the minister. ");
+        }
+        for (int length : new int[]{48, 127, 128, 16_383, 16_384, 1_000_000}) {
+            String slice = text.substring(0, length);
+            assertEquals(length + " chars", slice, roundTrip(slice));
+        }
+    }
+
+    @Test
+    public void randomText_isNeverLargerThanPlain() {
+        Random random = new Random(11);
+        for (int length = 48; length < 2_000; length += 97) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (0x21 + random.nextInt(0x5E));
+            }
+            String text = new String(chars);
+            byte[] packed = CompressedText.pack(text);
+
+            assertTrue(length + " chars packed to " + packed.length, packed.length <= length + 1);
+            assertEquals(text, CompressedText.unpack(packed));
+        }
+    }
+
+    @Test
+    public void packing_isDeterministic() throws IOException {
+        for (String text : corpus()) {
+            assertArrayEquals(text, CompressedText.pack(text), CompressedText.pack(new String(text)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormat_isRejected() {
+        CompressedText.unpack(new byte[]{7, 'a'});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedBlob_isRejected() throws IOException {
+        byte[] packed = CompressedText.pack(corpus().get(1));
+        assertEquals(1, packed[0]);
+        CompressedText.unpack(Arrays.copyOf(packed, packed.length / 2));
+    }
+}